@@ -0,0 +1,180 @@
+package com.epam.upskillproject.connect.customds;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free container of pooled connections. Idle connections are kept in a LIFO deque (the most recently returned
+ * connection is borrowed first, so hot connections stay warm) and are claimed by CAS on their state. Borrowers that
+ * find no idle connection park on a fair SynchronousQueue, and returning threads hand connections over to them
+ * directly. Neither borrow nor return ever takes a monitor shared by the whole pool
+ */
+class ConnectionBag {
+
+    // Upper bound of a single park, after which a waiter rescans the idle deque (covers a return that raced with
+    // the waiter registration and went to the deque instead of the handoff queue)
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Deque<PoolConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Set<PoolConnection> allConnections = ConcurrentHashMap.newKeySet();
+    private final SynchronousQueue<PoolConnection> handoffQueue = new SynchronousQueue<>(true);
+    private final AtomicInteger waiters = new AtomicInteger();
+    // Number of registered connections plus connections being created at the moment
+    private final AtomicInteger reservedSlots = new AtomicInteger();
+
+    /**
+     * Claims an idle connection without blocking
+     * @return a connection switched to the in-use state or null if there are no idle connections
+     */
+    PoolConnection poll() {
+        PoolConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            if (connection.compareAndSetState(PoolConnection.STATE_IDLE, PoolConnection.STATE_IN_USE)) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits for a connection returned by another thread
+     * @param timeoutNanos a maximum waiting time
+     * @return a connection switched to the in-use state or null if the timeout elapsed
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    PoolConnection await(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiters.incrementAndGet();
+        try {
+            long remaining = timeoutNanos;
+            while (remaining > 0) {
+                PoolConnection connection = poll();
+                if (connection == null) {
+                    connection = handoffQueue.poll(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                }
+                if (connection != null) {
+                    return connection;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a connection to the bag. The connection is passed directly to a waiting borrower if there is one,
+     * otherwise it is put to the head of the idle deque
+     * @param connection a connection owned by the calling thread
+     */
+    void requite(PoolConnection connection) {
+        connection.setState(PoolConnection.STATE_IN_USE);
+        if (waiters.get() > 0 && handoffQueue.offer(connection)) {
+            return;
+        }
+        connection.setState(PoolConnection.STATE_IDLE);
+        idleConnections.offerFirst(connection);
+    }
+
+    /**
+     * Takes an idle connection out of the bag for housekeeping. Borrowers cannot claim the connection until it is
+     * returned with unreserve() or removed
+     * @param connection an idle connection
+     * @return true if the connection was idle and now is reserved by the calling thread
+     */
+    boolean reserve(PoolConnection connection) {
+        if (connection.compareAndSetState(PoolConnection.STATE_IDLE, PoolConnection.STATE_RESERVED)) {
+            idleConnections.remove(connection);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a connection reserved with reserve() to the tail of the idle deque, so it does not overtake connections
+     * returned by borrowers
+     * @param connection a reserved connection
+     */
+    void unreserve(PoolConnection connection) {
+        connection.setState(PoolConnection.STATE_IDLE);
+        idleConnections.offerLast(connection);
+    }
+
+    /**
+     * Reserves a slot for a new connection if the total number of connections is less than the passed limit
+     * @param maxSize a maximum number of connections
+     * @return true if the slot was reserved
+     */
+    boolean tryReserve(int maxSize) {
+        int current;
+        do {
+            current = reservedSlots.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!reservedSlots.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases a slot reserved with tryReserve() when a connection could not be created
+     */
+    void cancelReservation() {
+        reservedSlots.decrementAndGet();
+    }
+
+    /**
+     * Registers a new connection created in a reserved slot. The connection stays in the in-use state
+     * @param connection a new connection
+     */
+    void register(PoolConnection connection) {
+        allConnections.add(connection);
+    }
+
+    /**
+     * Removes a connection from the bag and frees its slot. The caller must own the connection
+     * @param connection a connection to remove
+     * @return true if the connection was registered in the bag
+     */
+    boolean remove(PoolConnection connection) {
+        connection.setState(PoolConnection.STATE_REMOVED);
+        idleConnections.remove(connection);
+        if (allConnections.remove(connection)) {
+            reservedSlots.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    boolean contains(PoolConnection connection) {
+        return allConnections.contains(connection);
+    }
+
+    Collection<PoolConnection> values() {
+        return Collections.unmodifiableSet(allConnections);
+    }
+
+    int size() {
+        return reservedSlots.get();
+    }
+
+    int idleCount() {
+        return (int) allConnections.stream().filter(c -> c.getState() == PoolConnection.STATE_IDLE).count();
+    }
+
+    int activeCount() {
+        return (int) allConnections.stream().filter(c -> c.getState() == PoolConnection.STATE_IN_USE).count();
+    }
+
+    int waitersCount() {
+        return waiters.get();
+    }
+}
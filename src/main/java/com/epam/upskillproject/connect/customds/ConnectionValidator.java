@@ -0,0 +1,99 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validation policy of CustomPooledDataSource. A server round trip (Connection.isValid()) is made on borrow only if
+ * the connection was not used or checked within the skip window; idle connections are validated in background by
+ * the housekeeper. Returned connections are never pinged: a connection is quarantined (closed and removed from the
+ * pool) if the driver has closed it after a communication failure or if any validation of it has failed
+ */
+public class ConnectionValidator {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionValidator.class.getName());
+
+    private final LongAdder performedValidations = new LongAdder();
+    private final LongAdder skippedValidations = new LongAdder();
+    private final LongAdder quarantinedConnections = new LongAdder();
+    private final LatencyHistogram validationTime;
+    private volatile int skipWindowMillis;
+
+    /**
+     * @param skipWindowMillis a period after the last activity during which a borrowed connection is not pinged
+     * @param validationTime a histogram receiving durations of performed validations
+     */
+    ConnectionValidator(int skipWindowMillis, LatencyHistogram validationTime) {
+        this.skipWindowMillis = skipWindowMillis;
+        this.validationTime = validationTime;
+    }
+
+    /**
+     * Checks a connection claimed by a borrower
+     * @param connection a connection in the in-use state
+     * @return true if the connection may be passed to the borrower
+     */
+    boolean validateOnBorrow(PoolConnection connection) {
+        if (connection.isBroken()) {
+            quarantinedConnections.increment();
+            return false;
+        }
+        if (System.currentTimeMillis() - connection.getLastActivityTimeStamp() <= skipWindowMillis) {
+            skippedValidations.increment();
+            return true;
+        }
+        performedValidations.increment();
+        long startTime = System.nanoTime();
+        try {
+            if (connection.isValid(CustomPooledDataSource.VALIDATION_TIMEOUT_VALUE_SEC)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.DEBUG, "Validation of pooled connection failed", e);
+        } finally {
+            validationTime.recordNanos(System.nanoTime() - startTime);
+        }
+        quarantinedConnections.increment();
+        return false;
+    }
+
+    /**
+     * Checks a returned connection using its local state only (without a server round trip)
+     * @param connection a returned connection
+     * @return true if the connection may be returned to the pool
+     */
+    boolean checkOnReturn(PoolConnection connection) {
+        try {
+            if (!connection.isBroken() && !connection.isClosed()) {
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.DEBUG, "Cannot check state of returned connection", e);
+        }
+        quarantinedConnections.increment();
+        return false;
+    }
+
+    void setSkipWindowMillis(int skipWindowMillis) {
+        this.skipWindowMillis = skipWindowMillis;
+    }
+
+    public int getSkipWindowMillis() {
+        return skipWindowMillis;
+    }
+
+    public long getPerformedValidations() {
+        return performedValidations.sum();
+    }
+
+    public long getSkippedValidations() {
+        return skippedValidations.sum();
+    }
+
+    public long getQuarantinedConnections() {
+        return quarantinedConnections.sum();
+    }
+}
@@ -2,23 +2,39 @@ package com.epam.upskillproject.connect.customds;
 
 import com.epam.upskillproject.exception.CustomSQLCode;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import com.mysql.cj.jdbc.JdbcConnection;
 import com.mysql.cj.jdbc.MysqlDataSource;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.sql.*;
-import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executor;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Singleton(name = "customProjectDB")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class CustomPooledDataSource extends MysqlDataSource {
 
     private static final Logger logger = LogManager.getLogger(CustomPooledDataSource.class.getName());
@@ -32,14 +48,49 @@ public class CustomPooledDataSource extends MysqlDataSource {
     private static final String CP_REQUEST_TIMEOUT_VALUE_PROP = "cp.requestTimeoutValue";
     private static final String CP_REQUEST_TIMEOUT_UNIT_PROP = "cp.requestTimeoutUnit";
     private static final String CP_INACTIVITY_LIMIT_MS_PROP = "cp.inactivityTimeLimitMillis";
+    private static final String CP_STATEMENT_CACHE_SIZE_PROP = "cp.statementCacheSize";
+    private static final String CP_HOUSEKEEPING_PERIOD_MS_PROP = "cp.housekeepingPeriodMillis";
+    private static final String CP_KEEPALIVE_TIME_MS_PROP = "cp.keepaliveTimeMillis";
+    private static final String CP_MAX_LIFETIME_MS_PROP = "cp.maxLifetimeMillis";
+    private static final String CP_VALIDATION_SKIP_WINDOW_MS_PROP = "cp.validationSkipWindowMillis";
+    private static final String CP_WARMUP_TIMEOUT_MS_PROP = "cp.warmupTimeoutMillis";
+    private static final String CP_SHUTDOWN_TIMEOUT_MS_PROP = "cp.shutdownTimeoutMillis";
+    private static final String CP_ADAPTIVE_SIZING_PROP = "cp.adaptiveSizingEnabled";
+    private static final String CP_ADAPTIVE_SIZING_PERIOD_MS_PROP = "cp.adaptiveSizingPeriodMillis";
+    private static final String CP_ADAPTIVE_HEADROOM_PERCENT_PROP = "cp.adaptiveHeadroomPercent";
+    private static final String CP_ADAPTIVE_SHRINK_DELAY_MS_PROP = "cp.adaptiveShrinkDelayMillis";
+    private static final String CP_LEAK_DETECTION_THRESHOLD_MS_PROP = "cp.leakDetectionThresholdMillis";
+    private static final String CP_LEAK_DETECTION_SAMPLE_RATE_PROP = "cp.leakDetectionSampleRate";
+    private static final String CP_LEAK_RECLAIM_PROP = "cp.leakReclaimEnabled";
     // ConnectionPool default values
-    private static final int VALIDATION_TIMEOUT_VALUE_SEC = 3;
-    private static final int SHUTDOWN_TIMEOUT_VALUE_MS = 1000;
+    static final int VALIDATION_TIMEOUT_VALUE_SEC = 3;
+    private static final int MIN_SHUTDOWN_CLOSE_WAIT_MS = 1000;
+    private static final int MAX_SHUTDOWN_THREADS = 8;
     private static final int DEFAULT_CP_MIN_CONNECT = 5;
     private static final int DEFAULT_CP_MAX_CONNECT = 10;
     private static final int DEFAULT_CP_REQUEST_TIMEOUT_VALUE = 5;
     private static final TimeUnit DEFAULT_CP_REQUEST_TIMEOUT_UNIT = TimeUnit.SECONDS;
     private static final int DEFAULT_CP_INACTIVITY_LIMIT_MS = 100000;
+    private static final int DEFAULT_CP_STATEMENT_CACHE_SIZE = 100;
+    private static final int DEFAULT_CP_HOUSEKEEPING_PERIOD_MS = 30000;
+    private static final int DEFAULT_CP_KEEPALIVE_TIME_MS = 120000;
+    private static final int DEFAULT_CP_MAX_LIFETIME_MS = 1800000;
+    private static final int DEFAULT_CP_VALIDATION_SKIP_WINDOW_MS = 1000;
+    private static final int DEFAULT_CP_WARMUP_TIMEOUT_MS = 10000;
+    private static final int DEFAULT_CP_SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final boolean DEFAULT_CP_ADAPTIVE_SIZING = false;
+    private static final int DEFAULT_CP_ADAPTIVE_SIZING_PERIOD_MS = 5000;
+    private static final int DEFAULT_CP_ADAPTIVE_HEADROOM_PERCENT = 25;
+    private static final int DEFAULT_CP_ADAPTIVE_SHRINK_DELAY_MS = 300000;
+    // Zero threshold disables leak detection
+    private static final int DEFAULT_CP_LEAK_DETECTION_THRESHOLD_MS = 0;
+    private static final int DEFAULT_CP_LEAK_DETECTION_SAMPLE_RATE = 10;
+    private static final boolean DEFAULT_CP_LEAK_RECLAIM = false;
+    private static final int MIN_LEAK_CHECK_PERIOD_MS = 1000;
+    private static final String HOUSEKEEPER_THREAD_NAME = "customds-housekeeper";
+    private static final String WARMUP_THREAD_NAME = "customds-warmup-";
+    private static final String SHUTDOWN_THREAD_NAME = "customds-shutdown-";
+    private static final String KILL_QUERY = "KILL QUERY %d";
 
     private static final String CONNECTION_FAILURE_SQLSTATE = "08001";
 
@@ -48,15 +99,30 @@ public class CustomPooledDataSource extends MysqlDataSource {
     private String url;
     private String name;
     private String password;
-    private int minConnectionsNumber;
-    private int maxConnectionsNumber;
+    private volatile int minConnectionsNumber;
+    private volatile int maxConnectionsNumber;
+    // The number of connections kept open by the housekeeper, moved by PoolSizingController (zero if adaptive sizing
+    // is off, so the min number is used)
+    private volatile int targetConnectionsNumber;
     private int requestTimeoutValue;
     private TimeUnit requestTimeoutUnit;
-    private int inactivityTimeLimitMillis;
-
-    private BlockingQueue<PoolConnection> connectionPool;
-    private ArrayList<PoolConnection> activeConnections;
-    boolean active;
+    private volatile int inactivityTimeLimitMillis;
+    private int statementCacheSize;
+    private int housekeepingPeriodMillis;
+    private volatile int keepaliveTimeMillis;
+    private volatile int maxLifetimeMillis;
+    private int shutdownTimeoutMillis;
+
+    private ConnectionBag connectionBag;
+    private ScheduledExecutorService housekeepingExecutor;
+    private ConnectionValidator connectionValidator;
+    private LeakDetector leakDetector;
+    private final StatementCacheStatistics statementCacheStatistics = new StatementCacheStatistics();
+    private final PoolMetrics poolMetrics = new PoolMetrics(this);
+    private volatile boolean active;
+    // Signalled by releasing threads while the pool is draining on shutdown
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Condition connectionReturned = drainLock.newCondition();
 
     @Inject
     public CustomPooledDataSource(PropertiesKeeper propertiesKeeper) {
@@ -76,21 +142,99 @@ public class CustomPooledDataSource extends MysqlDataSource {
                 DEFAULT_CP_REQUEST_TIMEOUT_UNIT);
         inactivityTimeLimitMillis = propertiesKeeper.getIntOrDefault(CP_INACTIVITY_LIMIT_MS_PROP,
                 DEFAULT_CP_INACTIVITY_LIMIT_MS);
-
-        connectionPool = new ArrayBlockingQueue<>(maxConnectionsNumber);
-        activeConnections = new ArrayList<>();
+        statementCacheSize = propertiesKeeper.getIntOrDefault(CP_STATEMENT_CACHE_SIZE_PROP,
+                DEFAULT_CP_STATEMENT_CACHE_SIZE);
+        housekeepingPeriodMillis = propertiesKeeper.getIntOrDefault(CP_HOUSEKEEPING_PERIOD_MS_PROP,
+                DEFAULT_CP_HOUSEKEEPING_PERIOD_MS);
+        keepaliveTimeMillis = propertiesKeeper.getIntOrDefault(CP_KEEPALIVE_TIME_MS_PROP, DEFAULT_CP_KEEPALIVE_TIME_MS);
+        maxLifetimeMillis = propertiesKeeper.getIntOrDefault(CP_MAX_LIFETIME_MS_PROP, DEFAULT_CP_MAX_LIFETIME_MS);
+        shutdownTimeoutMillis = propertiesKeeper.getIntOrDefault(CP_SHUTDOWN_TIMEOUT_MS_PROP,
+                DEFAULT_CP_SHUTDOWN_TIMEOUT_MS);
+        connectionValidator = new ConnectionValidator(propertiesKeeper.getIntOrDefault(
+                CP_VALIDATION_SKIP_WINDOW_MS_PROP, DEFAULT_CP_VALIDATION_SKIP_WINDOW_MS),
+                poolMetrics.getValidationHistogram());
+
+        connectionBag = new ConnectionBag();
         active = true;
-        while (totalConnections() < minConnectionsNumber) {
-            try {
-                connectionPool.add(createConnection());
-            } catch (SQLException e) {
-                logger.log(Level.WARN, "Exception thrown during Connection pool initialization", e);
-            }
-        }
+        warmUp(propertiesKeeper.getIntOrDefault(CP_WARMUP_TIMEOUT_MS_PROP, DEFAULT_CP_WARMUP_TIMEOUT_MS));
+        housekeepingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, HOUSEKEEPER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeepingExecutor.scheduleWithFixedDelay(new PoolHousekeeper(this, connectionBag),
+                housekeepingPeriodMillis, housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+        startAdaptiveSizing();
+        startLeakDetection();
+        registerMetrics();
         logger.log(Level.DEBUG, String.format("Connection pool has been initialized (total connections %d)",
                 totalConnections()));
     }
 
+    /**
+     * Opens the min number of connections in parallel and waits for them no longer than the passed timeout, so the
+     * cold start takes about one connection latency and an unreachable database does not block the deployment.
+     * Connections still being opened after the timeout are added to the pool in background; failed ones are
+     * reopened by the housekeeper, and borrowers open connections on demand meanwhile
+     * @param timeoutMillis a maximum waiting time
+     */
+    private void warmUp(int timeoutMillis) {
+        int target = minConnectionsNumber;
+        if (target <= 0) {
+            return;
+        }
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<SQLException> firstFailure = new AtomicReference<>();
+        long startTime = System.nanoTime();
+        ExecutorService warmupExecutor = Executors.newFixedThreadPool(target,
+                daemonThreadFactory(WARMUP_THREAD_NAME));
+        for (int i = 0; i < target; i++) {
+            warmupExecutor.execute(() -> {
+                if (!active || !connectionBag.tryReserve(minConnectionsNumber)) {
+                    return;
+                }
+                try {
+                    PoolConnection connection = createReservedConnection();
+                    if (active) {
+                        connectionBag.requite(connection);
+                        opened.incrementAndGet();
+                    } else {
+                        discardConnection(connection);
+                    }
+                } catch (SQLException e) {
+                    failed.incrementAndGet();
+                    firstFailure.compareAndSet(null, e);
+                }
+            });
+        }
+        warmupExecutor.shutdown();
+        try {
+            warmupExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARN, "Connection pool warm-up has been interrupted");
+        }
+        int ready = opened.get();
+        String summary = String.format("Connection pool warm-up: %d of %d connections opened in %d ms (%d failed, " +
+                        "%d pending)", ready, target, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                failed.get(), target - ready - failed.get());
+        if (ready == target) {
+            logger.log(Level.INFO, summary);
+        } else {
+            logger.log(Level.WARN, summary + ", the pool will be filled in background", firstFailure.get());
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     public void setMinConnectionsNumber(int minConnectionsNumber) throws IllegalArgumentException {
         if (minConnectionsNumber > 0 && minConnectionsNumber <= this.maxConnectionsNumber) {
             this.minConnectionsNumber = minConnectionsNumber;
@@ -154,591 +298,485 @@ public class CustomPooledDataSource extends MysqlDataSource {
         }
     }
 
-    @Override
-    public synchronized Connection getConnection() throws SQLException, IllegalStateException {
-        if (!isActive()) {
-            throw new IllegalStateException("Connection pool is shut down");
+    public void setKeepaliveTimeMillis(int keepaliveTimeMillis) throws IllegalArgumentException {
+        if (keepaliveTimeMillis > 0) {
+            this.keepaliveTimeMillis = keepaliveTimeMillis;
+            logger.log(Level.TRACE, String.format("Connection pool keepaliveTimeMillis has been changed to %d",
+                    keepaliveTimeMillis));
+        } else {
+            logger.log(Level.WARN, String.format("Invalid keepaliveTimeMillis passed - %d (allowed values greater " +
+                    "than zero)", keepaliveTimeMillis));
+            throw new IllegalArgumentException("Invalid keepalive time value (the value must be greater than zero)");
         }
-        try {
-            PoolConnection connection = connectionPool.poll(requestTimeoutValue, requestTimeoutUnit);
-            logger.log(Level.TRACE, "Connection obtained from connection pool");
-            if (connection != null && !connection.isValid(VALIDATION_TIMEOUT_VALUE_SEC)) {
-                connection.close();
-                connection = createConnection();
-            } else if (connection == null && totalConnections() < maxConnectionsNumber) {
-                connection = createConnection();
-            } else if (connection == null) {
-                logger.log(Level.WARN, String.format("Cannot get connection: connection pool exhausted, timeout: %s %s",
-                        requestTimeoutValue, requestTimeoutUnit.name()));
-                throw new SQLException("Cannot get connection: connection pool exhausted", CONNECTION_FAILURE_SQLSTATE,
-                        CustomSQLCode.POOL_EXHAUSTED.getCode());
-            }
-            activeConnections.add(connection);
-            return connection;
-        } catch (InterruptedException e) {
-            logger.log(Level.WARN, String.format("Cannot get connection: interrupted while waiting, timeout: %s %s",
-                    requestTimeoutValue, requestTimeoutUnit.name()), e);
-            throw new SQLException("Cannot get connection: interrupted while waiting", CONNECTION_FAILURE_SQLSTATE,
-                    CustomSQLCode.POOL_INTERRUPTED.getCode(), e);
+    }
+
+    public void setMaxLifetimeMillis(int maxLifetimeMillis) throws IllegalArgumentException {
+        if (maxLifetimeMillis > 0) {
+            this.maxLifetimeMillis = maxLifetimeMillis;
+            logger.log(Level.TRACE, String.format("Connection pool maxLifetimeMillis has been changed to %d",
+                    maxLifetimeMillis));
+        } else {
+            logger.log(Level.WARN, String.format("Invalid maxLifetimeMillis passed - %d (allowed values greater " +
+                    "than zero)", maxLifetimeMillis));
+            throw new IllegalArgumentException("Invalid max lifetime value (the value must be greater than zero)");
         }
     }
 
-    // Method is not supported
-    @Override
-    public Connection getConnection(String username, String password) throws UnsupportedOperationException {
-        throw new UnsupportedOperationException("Not supported by CustomPooledDataSource");
+    /**
+     * Sets a period after the last usage of a connection during which the connection is passed to a borrower without
+     * validation
+     * @param validationSkipWindowMillis a non-negative number of milliseconds (zero means validation on every borrow)
+     * @throws IllegalArgumentException
+     */
+    public void setValidationSkipWindowMillis(int validationSkipWindowMillis) throws IllegalArgumentException {
+        if (validationSkipWindowMillis >= 0) {
+            connectionValidator.setSkipWindowMillis(validationSkipWindowMillis);
+            logger.log(Level.TRACE, String.format("Connection pool validationSkipWindowMillis has been changed to %d",
+                    validationSkipWindowMillis));
+        } else {
+            logger.log(Level.WARN, String.format("Invalid validationSkipWindowMillis passed - %d (allowed values " +
+                    "greater or equal than zero)", validationSkipWindowMillis));
+            throw new IllegalArgumentException("Invalid validation skip window value (the value must not be " +
+                    "negative)");
+        }
     }
 
-    public boolean isActive() {
-        return (active && connectionPool != null && activeConnections != null && totalConnections() > 0);
+    public ConnectionValidator getConnectionValidator() {
+        return connectionValidator;
     }
 
-    private PoolConnection createConnection() throws SQLException {
-        return new PoolConnection(DriverManager.getConnection(url, name, password));
+    /**
+     * @return wait, hold, creation and validation time histograms and pool gauges, also available over JMX
+     */
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
     }
 
-    private int totalConnections() {
-        return this.connectionPool.size() + activeConnections.size();
+    int getMaxConnectionsNumber() {
+        return maxConnectionsNumber;
     }
 
-    private synchronized void releaseConnection(PoolConnection poolConnection) {
-        if (poolConnection == null) {
-            return;
-        }
-        try {
-            boolean added = false;
-            poolConnection.closeStatements();
-            // in case if the connection comes from activeConnections
-            if (activeConnections.remove(poolConnection)) {
-                if (poolConnection.isValid(VALIDATION_TIMEOUT_VALUE_SEC) &&
-                        connectionPool.size() < connectionPool.remainingCapacity()) {
-                    if (!poolConnection.getAutoCommit()) {
-                        poolConnection.rollback();
-                        poolConnection.setAutoCommit(true);
-                    }
-                    added = connectionPool.add(poolConnection);
-                } else {
-                    poolConnection.shutdown();
-                    logger.log(Level.TRACE, "Connection from pool closed (is invalid)");
-                }
-            } else {
-                poolConnection.shutdown();
-                logger.log(Level.INFO, "Unknown connection closed");
-            }
-            if (added) {
-                logger.log(Level.TRACE, "Connection returned to connection pool");
-            }
-        } catch (SQLException e) {
-            logger.log(Level.WARN, "Connection was not released properly", e);
-        }
-        try {
-            closeOldConnections();
-        } catch (SQLException e) {
-            logger.log(Level.WARN, "Cannot clear old connections in connection pool", e);
-        }
+    /**
+     * @return the number of connections kept open by the housekeeper, within [min...max]
+     */
+    int getTargetConnectionsNumber() {
+        return Math.min(Math.max(targetConnectionsNumber, minConnectionsNumber), maxConnectionsNumber);
     }
 
-    private void closeOldConnections() throws SQLException {
-        int closedConnections = 0;
-        while (connectionPool.size() > minConnectionsNumber) {
-            Optional<PoolConnection> oldConnection = connectionPool.stream().filter(c ->
-                    System.currentTimeMillis() - c.getLastUsageTimeStamp() > inactivityTimeLimitMillis).findAny();
-            if (oldConnection.isPresent()) {
-                if (connectionPool.remove(oldConnection.get())) {
-                    oldConnection.get().shutdown();
-                    closedConnections++;
-                }
-            } else {
-                break;
-            }
-        }
-        if (closedConnections > 0) {
-            logger.log(Level.DEBUG, String.format("%d old connections from Connection pool were closed",
-                    closedConnections));
-        }
+    void setTargetConnectionsNumber(int targetConnectionsNumber) {
+        this.targetConnectionsNumber = targetConnectionsNumber;
     }
 
-    @PreDestroy
-    public void shutdown() throws SQLException {
-        active = false;
-        for (Connection connection : activeConnections) {
-            long startTime = System.currentTimeMillis();
-            while (System.currentTimeMillis() < startTime + SHUTDOWN_TIMEOUT_VALUE_MS) {
-                if (connection == null || connection.isClosed()) {
-                    break;
-                }
-            }
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        }
-        for (PoolConnection poolConnection : connectionPool) {
-            if (poolConnection != null && !poolConnection.isClosed()) {
-                poolConnection.shutdown();
-            }
-        }
-        activeConnections = null;
-        connectionPool = null;
-        logger.log(Level.DEBUG, "Connection Pool has been shut down");
+    int getMinConnectionsNumber() {
+        return minConnectionsNumber;
     }
 
-    private class PoolConnection implements Connection {
-        private Connection connection;
-        private long lastUsageTimeStamp = System.currentTimeMillis();
-        private List<Statement> statements = new ArrayList<>();
-        private List<PreparedStatement> preparedStatements = new ArrayList<>();
-        private List<CallableStatement> callableStatements = new ArrayList<>();
+    int getInactivityTimeLimitMillis() {
+        return inactivityTimeLimitMillis;
+    }
 
-        private PoolConnection(Connection connection) {
-            this.connection = connection;
+    int getKeepaliveTimeMillis() {
+        return keepaliveTimeMillis;
+    }
+
+    int getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    /**
+     * Sets a maximum number of prepared statements cached by every pooled connection. The new value is applied to
+     * connections created after the call
+     * @param statementCacheSize a non-negative number (zero disables statement caching)
+     * @throws IllegalArgumentException
+     */
+    public void setStatementCacheSize(int statementCacheSize) throws IllegalArgumentException {
+        if (statementCacheSize >= 0) {
+            this.statementCacheSize = statementCacheSize;
+            logger.log(Level.TRACE, String.format("Connection pool statementCacheSize has been changed to %d",
+                    statementCacheSize));
+        } else {
+            logger.log(Level.WARN, String.format("Invalid statementCacheSize passed - %d (allowed values greater " +
+                    "or equal than zero)", statementCacheSize));
+            throw new IllegalArgumentException("Invalid statement cache size (the value must not be negative)");
         }
+    }
 
-        private void closeStatements() {
-            for (Statement st : statements) {
-                try {
-                    if (st != null && !st.isClosed()) {
-                        st.close();
-                        statements.remove(st);
-                    }
-                } catch (SQLException e) {
-                    logger.log(Level.WARN, "Cannot close statement", e);
+    public StatementCacheStatistics getStatementCacheStatistics() {
+        return statementCacheStatistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException, IllegalStateException {
+        if (!isActive()) {
+            throw new IllegalStateException("Connection pool is shut down");
+        }
+        long startTime = System.nanoTime();
+        long deadline = startTime + requestTimeoutUnit.toNanos(requestTimeoutValue);
+        try {
+            long remaining;
+            while (active && (remaining = deadline - System.nanoTime()) > 0) {
+                PoolConnection connection = connectionBag.poll();
+                if (connection == null && connectionBag.tryReserve(maxConnectionsNumber)) {
+                    connection = createReservedConnection();
+                } else if (connection == null) {
+                    connection = connectionBag.await(remaining);
                 }
-                statements = statements.stream().filter(Objects::nonNull).collect(Collectors.toList());
-            }
-            for (PreparedStatement ps : preparedStatements) {
-                try {
-                    if (ps != null && !ps.isClosed()) {
-                        ps.close();
-                        statements.remove(ps);
-                    }
-                } catch (SQLException e) {
-                    logger.log(Level.WARN, "Cannot close prepared statement", e);
+                if (connection == null) {
+                    break;
                 }
-                preparedStatements = preparedStatements.stream().filter(Objects::nonNull).collect(Collectors.toList());
-            }
-            for (CallableStatement cs : callableStatements) {
-                try {
-                    if (cs != null && !cs.isClosed()) {
-                        cs.close();
-                        statements.remove(cs);
+                if (connectionValidator.validateOnBorrow(connection)) {
+                    if (leakDetector != null) {
+                        leakDetector.onBorrow(connection);
                     }
-                } catch (SQLException e) {
-                    logger.log(Level.WARN, "Cannot close callable statement", e);
+                    long borrowTime = System.nanoTime();
+                    connection.markBorrowed(borrowTime);
+                    poolMetrics.recordBorrow(borrowTime - startTime);
+                    logger.log(Level.TRACE, "Connection obtained from connection pool");
+                    return connection;
                 }
-                callableStatements = callableStatements.stream().filter(Objects::nonNull).collect(Collectors.toList());
+                discardConnection(connection);
+                logger.log(Level.TRACE, "Connection from pool closed (is invalid)");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARN, String.format("Cannot get connection: interrupted while waiting, timeout: %s %s",
+                    requestTimeoutValue, requestTimeoutUnit.name()), e);
+            throw new SQLException("Cannot get connection: interrupted while waiting", CONNECTION_FAILURE_SQLSTATE,
+                    CustomSQLCode.POOL_INTERRUPTED.getCode(), e);
         }
-
-        private void shutdown() throws SQLException {
-            connection.close();
-        }
-
-        public long getLastUsageTimeStamp() {
-            return lastUsageTimeStamp;
-        }
-
-        public Connection getConnection() {
-            return connection;
-        }
-
-        @Override
-        public void close() {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            releaseConnection(this);
-        }
-
-        @Override
-        public void beginRequest() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.beginRequest();
-        }
-
-        @Override
-        public void endRequest() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.endRequest();
-        }
-
-        @Override
-        public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws
-                SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
-        }
-
-        @Override
-        public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.setShardingKeyIfValid(shardingKey, timeout);
-        }
-
-        @Override
-        public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setShardingKey(shardingKey, superShardingKey);
-        }
-
-        @Override
-        public void setShardingKey(ShardingKey shardingKey) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setShardingKey(shardingKey);
-        }
-
-        @Override
-        public Statement createStatement() throws SQLException {
-            Statement st = connection.createStatement();
-            statements.add(st);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return st;
-        }
-
-        @Override
-        public PreparedStatement prepareStatement(String sql) throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
-        }
-
-        @Override
-        public CallableStatement prepareCall(String sql) throws SQLException {
-            CallableStatement cs = connection.prepareCall(sql);
-            callableStatements.add(cs);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return cs;
-        }
-
-        @Override
-        public String nativeSQL(String sql) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.nativeSQL(sql);
-        }
-
-        @Override
-        public void setAutoCommit(boolean autoCommit) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setAutoCommit(autoCommit);
-        }
-
-        @Override
-        public boolean getAutoCommit() throws SQLException {
-            return connection.getAutoCommit();
-        }
-
-        @Override
-        public void commit() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.commit();
-        }
-
-        @Override
-        public void rollback() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.rollback();
-        }
-
-
-        @Override
-        public boolean isClosed() throws SQLException {
-            return connection.isClosed();
-        }
-
-        @Override
-        public DatabaseMetaData getMetaData() throws SQLException {
-            return connection.getMetaData();
-        }
-
-        @Override
-        public void setReadOnly(boolean readOnly) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setReadOnly(readOnly);
-        }
-
-        @Override
-        public boolean isReadOnly() throws SQLException {
-            return connection.isReadOnly();
-        }
-
-        @Override
-        public void setCatalog(String catalog) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setCatalog(catalog);
-        }
-
-        @Override
-        public String getCatalog() throws SQLException {
-            return connection.getCatalog();
-        }
-
-        @Override
-        public void setTransactionIsolation(int level) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setTransactionIsolation(level);
-        }
-
-        @Override
-        public int getTransactionIsolation() throws SQLException {
-            return connection.getTransactionIsolation();
-        }
-
-        @Override
-        public SQLWarning getWarnings() throws SQLException {
-            return connection.getWarnings();
-        }
-
-        @Override
-        public void clearWarnings() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.clearWarnings();
-        }
-
-        @Override
-        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
-            Statement st = connection.createStatement(resultSetType, resultSetConcurrency);
-            statements.add(st);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return st;
-        }
-
-        @Override
-        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
-                throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
-        }
-
-        @Override
-        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
-                throws SQLException {
-            CallableStatement cs = connection.prepareCall(sql, resultSetType, resultSetConcurrency);
-            callableStatements.add(cs);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return cs;
-        }
-
-        @Override
-        public Map<String, Class<?>> getTypeMap() throws SQLException {
-            return connection.getTypeMap();
-        }
-
-        @Override
-        public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setTypeMap(map);
-        }
-
-        @Override
-        public void setHoldability(int holdability) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setHoldability(holdability);
-        }
-
-        @Override
-        public int getHoldability() throws SQLException {
-            return connection.getHoldability();
-        }
-
-        @Override
-        public Savepoint setSavepoint() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.setSavepoint();
-        }
-
-        @Override
-        public Savepoint setSavepoint(String name) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.setSavepoint(name);
-        }
-
-        @Override
-        public void rollback(Savepoint savepoint) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.rollback(savepoint);
+        if (!active) {
+            throw new IllegalStateException("Connection pool is shut down");
         }
+        poolMetrics.recordTimeout(System.nanoTime() - startTime);
+        logger.log(Level.WARN, String.format("Cannot get connection: connection pool exhausted, timeout: %s %s " +
+                "(connections total %d of %d, active %d, idle %d, waiting threads %d; borrow wait p99 %d us, " +
+                "hold time p99 %d us, timeouts %d)", requestTimeoutValue, requestTimeoutUnit.name(),
+                totalConnections(), maxConnectionsNumber, activeConnections(), idleConnections(), waitingThreads(),
+                poolMetrics.getBorrowWait().getP99Micros(), poolMetrics.getHoldTime().getP99Micros(),
+                poolMetrics.getTimeoutCount()));
+        throw new SQLException("Cannot get connection: connection pool exhausted", CONNECTION_FAILURE_SQLSTATE,
+                CustomSQLCode.POOL_EXHAUSTED.getCode());
+    }
 
-        @Override
-        public void releaseSavepoint(Savepoint savepoint) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.releaseSavepoint(savepoint);
-        }
+    // Method is not supported
+    @Override
+    public Connection getConnection(String username, String password) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Not supported by CustomPooledDataSource");
+    }
 
-        @Override
-        public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
-                throws SQLException {
-            Statement st = connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
-            statements.add(st);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return st;
-        }
+    public boolean isActive() {
+        return (active && connectionBag != null);
+    }
 
-        @Override
-        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
-                                                  int resultSetHoldability) throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql, resultSetType, resultSetConcurrency,
-                    resultSetHoldability);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
+    private PoolConnection createConnection() throws SQLException {
+        StatementCache statementCache = (statementCacheSize > 0) ?
+                new StatementCache(statementCacheSize, statementCacheStatistics) : null;
+        long startTime = System.nanoTime();
+        Connection driverConnection;
+        try {
+            driverConnection = DriverManager.getConnection(url, name, password);
+        } catch (SQLException e) {
+            poolMetrics.recordCreationFailure();
+            throw e;
         }
+        poolMetrics.recordCreation(System.nanoTime() - startTime);
+        PoolConnection connection = new PoolConnection(this, driverConnection, statementCache);
+        connectionBag.register(connection);
+        return connection;
+    }
 
-        @Override
-        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
-                                             int resultSetHoldability) throws SQLException {
-            CallableStatement cs = connection.prepareCall(sql, resultSetType, resultSetConcurrency,
-                    resultSetHoldability);
-            callableStatements.add(cs);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return cs;
+    /**
+     * Creates a connection in a slot reserved by ConnectionBag.tryReserve(). The slot is released if the driver fails
+     * @return a new connection in the in-use state
+     * @throws SQLException
+     */
+    private PoolConnection createReservedConnection() throws SQLException {
+        try {
+            return createConnection();
+        } catch (SQLException e) {
+            connectionBag.cancelReservation();
+            throw e;
         }
+    }
 
-        @Override
-        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql, autoGeneratedKeys);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
-        }
+    int totalConnections() {
+        return connectionBag.size();
+    }
 
-        @Override
-        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql, columnIndexes);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
-        }
+    int activeConnections() {
+        return connectionBag.activeCount();
+    }
 
-        @Override
-        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
-            PreparedStatement ps = connection.prepareStatement(sql, columnNames);
-            preparedStatements.add(ps);
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return ps;
-        }
+    int idleConnections() {
+        return connectionBag.idleCount();
+    }
 
-        @Override
-        public Clob createClob() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createClob();
-        }
+    int waitingThreads() {
+        return connectionBag.waitersCount();
+    }
 
-        @Override
-        public Blob createBlob() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createBlob();
+    /**
+     * Schedules PoolSizingController on the housekeeping thread if cp.adaptiveSizingEnabled is true. The controller
+     * keeps the target pool size between cp.minConnectionsNumber and cp.maxConnectionsNumber
+     */
+    private void startAdaptiveSizing() {
+        if (!propertiesKeeper.getBooleanOrDefault(CP_ADAPTIVE_SIZING_PROP, DEFAULT_CP_ADAPTIVE_SIZING)) {
+            return;
         }
+        int periodMillis = propertiesKeeper.getIntOrDefault(CP_ADAPTIVE_SIZING_PERIOD_MS_PROP,
+                DEFAULT_CP_ADAPTIVE_SIZING_PERIOD_MS);
+        int headroomPercent = propertiesKeeper.getIntOrDefault(CP_ADAPTIVE_HEADROOM_PERCENT_PROP,
+                DEFAULT_CP_ADAPTIVE_HEADROOM_PERCENT);
+        int shrinkDelayMillis = propertiesKeeper.getIntOrDefault(CP_ADAPTIVE_SHRINK_DELAY_MS_PROP,
+                DEFAULT_CP_ADAPTIVE_SHRINK_DELAY_MS);
+        targetConnectionsNumber = minConnectionsNumber;
+        housekeepingExecutor.scheduleWithFixedDelay(new PoolSizingController(this, poolMetrics, headroomPercent,
+                shrinkDelayMillis), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        logger.log(Level.DEBUG, String.format("Connection pool adaptive sizing enabled (period %d ms, headroom %d%%, " +
+                "shrink delay %d ms)", periodMillis, headroomPercent, shrinkDelayMillis));
+    }
 
-        @Override
-        public NClob createNClob() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createNClob();
+    /**
+     * Schedules the leak check on the housekeeping thread if cp.leakDetectionThresholdMillis is positive. Detection is
+     * off by default; to enable it set the threshold to the longest expected connection hold time and, optionally,
+     * cp.leakDetectionSampleRate (1 captures the borrow site of every borrow) and cp.leakReclaimEnabled. The check
+     * runs twice per threshold period, so a leak is reported within 1.5 thresholds after the borrow
+     */
+    private void startLeakDetection() {
+        int thresholdMillis = propertiesKeeper.getIntOrDefault(CP_LEAK_DETECTION_THRESHOLD_MS_PROP,
+                DEFAULT_CP_LEAK_DETECTION_THRESHOLD_MS);
+        if (thresholdMillis <= 0) {
+            return;
         }
+        int sampleRate = propertiesKeeper.getIntOrDefault(CP_LEAK_DETECTION_SAMPLE_RATE_PROP,
+                DEFAULT_CP_LEAK_DETECTION_SAMPLE_RATE);
+        boolean reclaimEnabled = propertiesKeeper.getBooleanOrDefault(CP_LEAK_RECLAIM_PROP, DEFAULT_CP_LEAK_RECLAIM);
+        leakDetector = new LeakDetector(connectionBag, poolMetrics, thresholdMillis, sampleRate, reclaimEnabled);
+        long checkPeriodMillis = Math.max(thresholdMillis / 2, MIN_LEAK_CHECK_PERIOD_MS);
+        housekeepingExecutor.scheduleWithFixedDelay(leakDetector, checkPeriodMillis, checkPeriodMillis,
+                TimeUnit.MILLISECONDS);
+        logger.log(Level.DEBUG, String.format("Connection leak detection enabled (threshold %d ms, borrow site " +
+                "sample rate 1/%d, reclaim %s)", thresholdMillis, sampleRate, reclaimEnabled));
+    }
 
-        @Override
-        public SQLXML createSQLXML() throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createSQLXML();
+    private void registerMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(PoolMetrics.OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(poolMetrics, objectName);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARN, "Cannot register connection pool metrics MBean", e);
         }
+    }
 
-        @Override
-        public boolean isValid(int timeout) throws SQLException {
-            return connection.isValid(timeout);
+    private void unregisterMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(PoolMetrics.OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARN, "Cannot unregister connection pool metrics MBean", e);
         }
+    }
 
-        @Override
-        public void setClientInfo(String name, String value) throws SQLClientInfoException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setClientInfo(name, value);
+    /**
+     * Opens new connections until the pool contains the target number of connections. Called by the housekeeper and
+     * the sizing controller, so borrowers never wait for the refill
+     */
+    void fillPool() {
+        int created = 0;
+        while (active && connectionBag.tryReserve(getTargetConnectionsNumber())) {
+            try {
+                connectionBag.requite(createReservedConnection());
+                created++;
+            } catch (SQLException e) {
+                logger.log(Level.WARN, "Cannot refill connection pool up to the target connections number", e);
+                break;
+            }
         }
-
-        @Override
-        public void setClientInfo(Properties properties) throws SQLClientInfoException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setClientInfo(properties);
+        if (created > 0) {
+            logger.log(Level.DEBUG, String.format("%d connections added to connection pool (total connections %d)",
+                    created, totalConnections()));
         }
+    }
 
-        @Override
-        public String getClientInfo(String name) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.getClientInfo(name);
+    void discardConnection(PoolConnection connection) {
+        connectionBag.remove(connection);
+        try {
+            connection.shutdown();
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Cannot close discarded connection", e);
         }
+    }
 
-        @Override
-        public Properties getClientInfo() throws SQLException {
-            return connection.getClientInfo();
+    void releaseConnection(PoolConnection poolConnection) {
+        if (poolConnection == null) {
+            return;
         }
-
-        @Override
-        public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createArrayOf(typeName, elements);
+        // guards against a repeated close() of the same connection
+        if (!poolConnection.compareAndSetState(PoolConnection.STATE_IN_USE, PoolConnection.STATE_RESERVED)) {
+            logger.log(Level.TRACE, "Connection is already released");
+            return;
         }
-
-        @Override
-        public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.createStruct(typeName, attributes);
+        poolMetrics.recordHold(System.nanoTime() - poolConnection.getBorrowTimeNanos());
+        if (poolConnection.isLeakReported()) {
+            logger.log(Level.INFO, String.format("Connection reported as leaked has been returned by thread '%s'",
+                    poolConnection.getBorrowerThreadName()));
         }
-
-        @Override
-        public void setSchema(String schema) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setSchema(schema);
+        poolConnection.markReleased();
+        try {
+            poolConnection.closeStatements();
+            if (!connectionBag.contains(poolConnection)) {
+                poolConnection.shutdown();
+                logger.log(Level.INFO, "Unknown connection closed");
+                return;
+            }
+            boolean expired = System.currentTimeMillis() - poolConnection.getCreationTimeStamp() > maxLifetimeMillis;
+            if (active && !expired && connectionValidator.checkOnReturn(poolConnection)) {
+                poolConnection.resetSession();
+                connectionBag.requite(poolConnection);
+                logger.log(Level.TRACE, "Connection returned to connection pool");
+            } else {
+                discardConnection(poolConnection);
+                logger.log(Level.TRACE, (!active) ? "Connection from pool closed (pool is shut down)" :
+                        (expired) ? "Connection from pool closed (max lifetime exceeded)" :
+                        "Connection from pool closed (is invalid)");
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Connection was not released properly", e);
+            discardConnection(poolConnection);
         }
-
-        @Override
-        public String getSchema() throws SQLException {
-            return connection.getSchema();
+        if (!active) {
+            signalConnectionReturned();
         }
+    }
 
-        @Override
-        public void abort(Executor executor) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.abort(executor);
+    private void signalConnectionReturned() {
+        drainLock.lock();
+        try {
+            connectionReturned.signalAll();
+        } finally {
+            drainLock.unlock();
         }
+    }
 
-        @Override
-        public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            connection.setNetworkTimeout(executor, milliseconds);
+    /**
+     * Shuts the pool down within cp.shutdownTimeoutMillis: stops borrows and maintenance, closes idle connections,
+     * waits until borrowers return their connections or the deadline comes, then cancels queries still running on
+     * the remaining connections and aborts them. Connections are closed in parallel
+     * @throws SQLException
+     */
+    @PreDestroy
+    public void shutdown() throws SQLException {
+        if (!active) {
+            return;
         }
-
-        @Override
-        public int getNetworkTimeout() throws SQLException {
-            return connection.getNetworkTimeout();
+        active = false;
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        housekeepingExecutor.shutdownNow();
+        unregisterMetrics();
+        ExecutorService closeExecutor = Executors.newFixedThreadPool(
+                Math.max(Math.min(totalConnections(), MAX_SHUTDOWN_THREADS), 1),
+                daemonThreadFactory(SHUTDOWN_THREAD_NAME));
+        try {
+            closeIdleConnections(closeExecutor);
+            awaitReturnedConnections(deadline);
+            // connections which were being returned or maintained when the pool stopped
+            closeIdleConnections(closeExecutor);
+            List<PoolConnection> abandoned = new ArrayList<>();
+            for (PoolConnection connection : connectionBag.values()) {
+                if (connection.compareAndSetState(PoolConnection.STATE_IN_USE, PoolConnection.STATE_RESERVED)) {
+                    abandoned.add(connection);
+                }
+            }
+            if (!abandoned.isEmpty()) {
+                logger.log(Level.WARN, String.format("%d connections were not returned to connection pool before " +
+                        "shutdown deadline, running queries will be cancelled", abandoned.size()));
+                cancelRunningQueries(abandoned);
+                for (PoolConnection connection : abandoned) {
+                    connectionBag.remove(connection);
+                    closeExecutor.execute(() -> abortConnection(connection));
+                }
+            }
+        } finally {
+            closeExecutor.shutdown();
         }
-
-        @Override
-        public <T> T unwrap(Class<T> iface) throws SQLException {
-            lastUsageTimeStamp = System.currentTimeMillis();
-            return connection.unwrap(iface);
+        try {
+            long closeWait = Math.max(deadline - System.nanoTime(),
+                    TimeUnit.MILLISECONDS.toNanos(MIN_SHUTDOWN_CLOSE_WAIT_MS));
+            if (!closeExecutor.awaitTermination(closeWait, TimeUnit.NANOSECONDS)) {
+                logger.log(Level.WARN, "Not all connections were closed during connection pool shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARN, "Connection pool shutdown has been interrupted");
         }
+        logger.log(Level.DEBUG, String.format("Connection Pool has been shut down in %d ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
 
-        @Override
-        public boolean isWrapperFor(Class<?> iface) throws SQLException {
-            return connection.isWrapperFor(iface);
+    private void closeIdleConnections(ExecutorService closeExecutor) {
+        for (PoolConnection connection : connectionBag.values()) {
+            if (connectionBag.reserve(connection)) {
+                closeExecutor.execute(() -> discardConnection(connection));
+            }
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return connection.hashCode();
+    /**
+     * Waits on a condition signalled by releasing threads until there are no borrowed connections or the deadline
+     * comes
+     * @param deadline a System.nanoTime() value
+     */
+    private void awaitReturnedConnections(long deadline) {
+        drainLock.lock();
+        try {
+            long remaining;
+            while (connectionBag.activeCount() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                connectionReturned.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARN, "Interrupted while waiting for borrowed connections on shutdown");
+        } finally {
+            drainLock.unlock();
         }
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null || PoolConnection.class != obj.getClass()) {
-                return false;
-            } else {
-                PoolConnection other = (PoolConnection) obj;
-                return this.connection.equals(other.getConnection());
+    /**
+     * Kills queries running on the passed connections with a separate short-lived connection (Statement.cancel()
+     * would need the executing statement which belongs to the borrower)
+     */
+    private void cancelRunningQueries(List<PoolConnection> connections) {
+        try (Connection killerConnection = DriverManager.getConnection(url, name, password);
+             Statement statement = killerConnection.createStatement()) {
+            for (PoolConnection connection : connections) {
+                try {
+                    long serverThreadId = connection.getConnection().unwrap(JdbcConnection.class).getId();
+                    statement.execute(String.format(KILL_QUERY, serverThreadId));
+                } catch (SQLException e) {
+                    logger.log(Level.DEBUG, "Cannot cancel query of abandoned connection", e);
+                }
             }
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Cannot cancel queries of abandoned connections", e);
         }
+    }
 
-        @Override
-        public String toString() {
-            return connection.toString();
+    /**
+     * Closes the driver connection without touching the statement cache, which may still be used by the borrower
+     */
+    private void abortConnection(PoolConnection connection) {
+        try {
+            connection.getConnection().abort(Runnable::run);
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Cannot abort abandoned connection", e);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.epam.upskillproject.connect.customds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets (the layout of HdrHistogram with 4 significant bits): every
+ * power-of-two range of microseconds is split into 16 linear sub-buckets, so a reported percentile differs from the
+ * recorded value by less than 1/16 of it. Recording is a few atomic increments and never blocks; percentiles are
+ * computed on demand from a non-atomic scan of the buckets, which is good enough for monitoring
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values above 2^40 microseconds (about 12 days) are recorded to the last bucket
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_TRACKABLE_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a duration measured with System.nanoTime()
+     * @param nanos a duration in nanoseconds (negative values are recorded as zero)
+     */
+    void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), MAX_TRACKABLE_VALUE);
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the histogram
+     * @return count, mean, max and 50th, 95th, 99th, 99.9th percentiles in microseconds
+     */
+    LatencySnapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            count += bucketCounts[i];
+        }
+        long max = maxMicros.get();
+        long recorded = totalCount.sum();
+        long mean = (recorded > 0) ? totalMicros.sum() / recorded : 0;
+        return new LatencySnapshot(count, mean, percentile(bucketCounts, count, 50.0, max),
+                percentile(bucketCounts, count, 95.0, max), percentile(bucketCounts, count, 99.0, max),
+                percentile(bucketCounts, count, 99.9, max), max);
+    }
+
+    long getCount() {
+        return totalCount.sum();
+    }
+
+    long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] bucketCounts, long count, double percentile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(count * percentile / 100.0), 1);
+        long accumulated = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            accumulated += bucketCounts[i];
+            if (accumulated >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,129 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Optional connection leak detection of CustomPooledDataSource. Every borrow records the borrowing thread name; the
+ * stack of the borrow site is captured only for a sampled share of borrows (a leaking code path borrows repeatedly,
+ * so it gets sampled soon anyway). A periodic check reports connections held longer than the threshold and, if
+ * reclaiming is enabled, forcibly closes them and frees their slots in the pool
+ */
+class LeakDetector implements Runnable {
+
+    private static final Logger logger = LogManager.getLogger(LeakDetector.class.getName());
+
+    private static final int MAX_STACK_DEPTH = 24;
+    private static final String POOL_PACKAGE = LeakDetector.class.getPackageName();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private final ConnectionBag connectionBag;
+    private final PoolMetrics poolMetrics;
+    private final long thresholdNanos;
+    private final int sampleRate;
+    private final boolean reclaimEnabled;
+
+    /**
+     * @param connectionBag a bag of the checked pool
+     * @param poolMetrics metrics receiving leak and reclaim counts
+     * @param thresholdMillis a connection held longer than the threshold is considered leaked
+     * @param sampleRate the borrow site is captured once per sampleRate borrows on average (1 means every borrow)
+     * @param reclaimEnabled whether leaked connections must be forcibly closed
+     */
+    LeakDetector(ConnectionBag connectionBag, PoolMetrics poolMetrics, int thresholdMillis, int sampleRate,
+                 boolean reclaimEnabled) {
+        this.connectionBag = connectionBag;
+        this.poolMetrics = poolMetrics;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.reclaimEnabled = reclaimEnabled;
+    }
+
+    /**
+     * Records the borrower of a connection. Called by the borrowing thread
+     * @param connection a connection passed to the borrower
+     */
+    void onBorrow(PoolConnection connection) {
+        StackTraceElement[] borrowSite = null;
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            borrowSite = stackWalker.walk(frames -> frames
+                    .dropWhile(frame -> frame.getClassName().startsWith(POOL_PACKAGE))
+                    .limit(MAX_STACK_DEPTH)
+                    .map(StackWalker.StackFrame::toStackTraceElement)
+                    .toArray(StackTraceElement[]::new));
+        }
+        connection.setBorrower(Thread.currentThread().getName(), borrowSite);
+    }
+
+    @Override
+    public void run() {
+        try {
+            long now = System.nanoTime();
+            for (PoolConnection connection : connectionBag.values()) {
+                long borrowTime = connection.getBorrowTimeNanos();
+                if (connection.getState() != PoolConnection.STATE_IN_USE || borrowTime == 0 ||
+                        now - borrowTime <= thresholdNanos) {
+                    continue;
+                }
+                if (!connection.isLeakReported()) {
+                    connection.setLeakReported(true);
+                    poolMetrics.recordLeak();
+                    report(connection, now - borrowTime);
+                }
+                if (reclaimEnabled) {
+                    reclaim(connection, borrowTime);
+                }
+            }
+        } catch (RuntimeException e) {
+            // an exception thrown out of run() would cancel all further executions
+            logger.log(Level.ERROR, "Unexpected exception thrown during connection leak detection", e);
+        }
+    }
+
+    private void report(PoolConnection connection, long heldNanos) {
+        StackTraceElement[] borrowSite = connection.getBorrowSite();
+        String site = (borrowSite != null) ?
+                ", borrowed at:" + System.lineSeparator() + formatStack(borrowSite) :
+                " (borrow site was not sampled)";
+        logger.log(Level.WARN, String.format("Connection leak suspected: connection is held for %d ms by thread " +
+                "'%s'%s", TimeUnit.NANOSECONDS.toMillis(heldNanos), connection.getBorrowerThreadName(), site));
+    }
+
+    /**
+     * Takes a leaked connection away from its borrower and closes it. The borrower gets SQLException on further use
+     * of the connection, its close() call is ignored
+     */
+    private void reclaim(PoolConnection connection, long borrowTime) {
+        if (!connection.compareAndSetState(PoolConnection.STATE_IN_USE, PoolConnection.STATE_RESERVED)) {
+            return;
+        }
+        if (connection.getBorrowTimeNanos() != borrowTime) {
+            // the connection was returned and borrowed again after the check, so it belongs to a new borrower. If the
+            // new borrower closes it right now, the close is lost and the connection will be reclaimed next time
+            connection.setState(PoolConnection.STATE_IN_USE);
+            return;
+        }
+        connectionBag.remove(connection);
+        try {
+            // the borrower may still use the statement cache, so only the driver connection is closed
+            connection.getConnection().abort(Runnable::run);
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Cannot close reclaimed connection", e);
+        }
+        poolMetrics.recordReclaim();
+        logger.log(Level.WARN, String.format("Leaked connection held by thread '%s' has been reclaimed",
+                connection.getBorrowerThreadName()));
+    }
+
+    private static String formatStack(StackTraceElement[] stack) {
+        return Arrays.stream(stack)
+                .map(element -> "\tat " + element)
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+}
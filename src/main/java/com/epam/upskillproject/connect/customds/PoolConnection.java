@@ -0,0 +1,637 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pooled java.sql.Connection wrapper. An instance is owned by exactly one thread at a time: the state field is
+ * switched with compare-and-set operations, so a connection can be claimed from the idle bag, handed off to a waiting
+ * borrower or reserved for housekeeping without any pool-wide lock.
+ * The wrapper keeps a local copy of the session state (auto-commit mode, isolation level, read-only flag, catalog),
+ * so calls that would not change anything do not reach the server: setting the same isolation level for every
+ * transaction, resetting the auto-commit mode on release. Commits and rollbacks are always passed to the driver: a
+ * statement may be prepared before a transaction begins and executed within it, so the wrapper cannot tell whether
+ * the transaction has changes
+ */
+class PoolConnection implements Connection {
+
+    static final int STATE_IDLE = 0;
+    static final int STATE_IN_USE = 1;
+    static final int STATE_RESERVED = 2;
+    static final int STATE_REMOVED = -1;
+
+    private static final int UNKNOWN_ISOLATION = -1;
+
+    private static final Logger logger = LogManager.getLogger(PoolConnection.class.getName());
+
+    private final CustomPooledDataSource pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+    private final long creationTimeStamp = System.currentTimeMillis();
+    private volatile long lastUsageTimeStamp = creationTimeStamp;
+    private volatile long lastKeepaliveTimeStamp = creationTimeStamp;
+    private volatile boolean broken;
+    // System.nanoTime() of the last handout to a borrower or zero if the connection is not borrowed
+    private volatile long borrowTimeNanos;
+    // Borrower data recorded by the leak detector
+    private volatile String borrowerThreadName;
+    private volatile StackTraceElement[] borrowSite;
+    private volatile boolean leakReported;
+    // Local session state, owned by the borrowing thread (a new connection is in auto-commit mode; isolation level,
+    // read-only flag and catalog are unknown until first use)
+    private boolean autoCommit = true;
+    private int transactionIsolation = UNKNOWN_ISOLATION;
+    private Boolean readOnly;
+    private String catalog;
+    private List<Statement> statements = new ArrayList<>();
+    private List<PreparedStatement> preparedStatements = new ArrayList<>();
+    private List<CallableStatement> callableStatements = new ArrayList<>();
+
+    /**
+     * @param pool an owner of the connection
+     * @param connection an underlying driver connection
+     * @param statementCache a cache of prepared statements or null if statement caching is disabled
+     */
+    PoolConnection(CustomPooledDataSource pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+    }
+
+    boolean compareAndSetState(int expectedState, int newState) {
+        return state.compareAndSet(expectedState, newState);
+    }
+
+    void setState(int newState) {
+        state.set(newState);
+    }
+
+    int getState() {
+        return state.get();
+    }
+
+    void closeStatements() {
+        if (statementCache != null) {
+            statementCache.release();
+        }
+        closeAll(statements, "statement");
+        closeAll(preparedStatements, "prepared statement");
+        closeAll(callableStatements, "callable statement");
+    }
+
+    private void closeAll(List<? extends Statement> openedStatements, String statementType) {
+        for (Statement st : openedStatements) {
+            try {
+                if (st != null && !st.isClosed()) {
+                    st.close();
+                }
+            } catch (SQLException e) {
+                logger.log(Level.WARN, "Cannot close " + statementType, e);
+            }
+        }
+        openedStatements.clear();
+    }
+
+    /**
+     * Brings the session to the state expected by the next borrower: rolls back an unfinished transaction, restores
+     * the auto-commit mode and the read-write mode
+     * @throws SQLException
+     */
+    void resetSession() throws SQLException {
+        if (!autoCommit) {
+            rollback();
+            setAutoCommit(true);
+        }
+        if (Boolean.TRUE.equals(readOnly)) {
+            setReadOnly(false);
+        }
+    }
+
+    private void onStatementCreated() {
+        lastUsageTimeStamp = System.currentTimeMillis();
+    }
+
+    void shutdown() throws SQLException {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        connection.close();
+    }
+
+    void markBorrowed(long borrowTimeNanos) {
+        this.leakReported = false;
+        this.borrowTimeNanos = borrowTimeNanos;
+    }
+
+    void markReleased() {
+        this.borrowTimeNanos = 0;
+    }
+
+    void setBorrower(String borrowerThreadName, StackTraceElement[] borrowSite) {
+        this.borrowerThreadName = borrowerThreadName;
+        this.borrowSite = borrowSite;
+    }
+
+    String getBorrowerThreadName() {
+        return borrowerThreadName;
+    }
+
+    /**
+     * @return a sampled stack of the borrow site or null if the last borrow was not sampled
+     */
+    StackTraceElement[] getBorrowSite() {
+        return borrowSite;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    long getBorrowTimeNanos() {
+        return borrowTimeNanos;
+    }
+
+    public long getLastUsageTimeStamp() {
+        return lastUsageTimeStamp;
+    }
+
+    public long getCreationTimeStamp() {
+        return creationTimeStamp;
+    }
+
+    /**
+     * @return the time of the last usage or the last keepalive check, whichever is later
+     */
+    long getLastActivityTimeStamp() {
+        return Math.max(lastUsageTimeStamp, lastKeepaliveTimeStamp);
+    }
+
+    /**
+     * Checks the connection with a server round trip without touching the usage time stamp, so an idle connection
+     * kept alive by the housekeeper still can be evicted by inactivity
+     * @param timeout a validation timeout in seconds
+     * @return true if the connection is valid
+     * @throws SQLException
+     */
+    boolean keepAlive(int timeout) throws SQLException {
+        lastKeepaliveTimeStamp = System.currentTimeMillis();
+        return isValid(timeout);
+    }
+
+    /**
+     * @return true if a validation of the connection has failed, such a connection will not be returned to the pool
+     */
+    boolean isBroken() {
+        return broken;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        pool.releaseConnection(this);
+    }
+
+    @Override
+    public void beginRequest() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.beginRequest();
+    }
+
+    @Override
+    public void endRequest() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.endRequest();
+    }
+
+    @Override
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws
+            SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+    }
+
+    @Override
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.setShardingKeyIfValid(shardingKey, timeout);
+    }
+
+    @Override
+    public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setShardingKey(shardingKey, superShardingKey);
+    }
+
+    @Override
+    public void setShardingKey(ShardingKey shardingKey) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setShardingKey(shardingKey);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        Statement st = connection.createStatement();
+        statements.add(st);
+        onStatementCreated();
+        return st;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        onStatementCreated();
+        if (statementCache != null) {
+            PreparedStatement cached = statementCache.prepare(this, connection, sql);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        PreparedStatement ps = connection.prepareStatement(sql);
+        preparedStatements.add(ps);
+        return ps;
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        CallableStatement cs = connection.prepareCall(sql);
+        callableStatements.add(cs);
+        onStatementCreated();
+        return cs;
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        if (this.autoCommit == autoCommit) {
+            return;
+        }
+        connection.setAutoCommit(autoCommit);
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return autoCommit;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.rollback();
+    }
+
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return connection.isClosed();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return connection.getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        if (this.readOnly != null && this.readOnly == readOnly) {
+            return;
+        }
+        connection.setReadOnly(readOnly);
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        if (readOnly == null) {
+            readOnly = connection.isReadOnly();
+        }
+        return readOnly;
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        if (catalog != null && catalog.equals(this.catalog)) {
+            return;
+        }
+        connection.setCatalog(catalog);
+        this.catalog = catalog;
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        if (catalog == null) {
+            catalog = connection.getCatalog();
+        }
+        return catalog;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        if (transactionIsolation == level) {
+            return;
+        }
+        connection.setTransactionIsolation(level);
+        transactionIsolation = level;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        if (transactionIsolation == UNKNOWN_ISOLATION) {
+            transactionIsolation = connection.getTransactionIsolation();
+        }
+        return transactionIsolation;
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return connection.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        Statement st = connection.createStatement(resultSetType, resultSetConcurrency);
+        statements.add(st);
+        onStatementCreated();
+        return st;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        preparedStatements.add(ps);
+        onStatementCreated();
+        return ps;
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        CallableStatement cs = connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+        callableStatements.add(cs);
+        onStatementCreated();
+        return cs;
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return connection.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return connection.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        Statement st = connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+        statements.add(st);
+        onStatementCreated();
+        return st;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability);
+        preparedStatements.add(ps);
+        onStatementCreated();
+        return ps;
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        CallableStatement cs = connection.prepareCall(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability);
+        callableStatements.add(cs);
+        onStatementCreated();
+        return cs;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, autoGeneratedKeys);
+        preparedStatements.add(ps);
+        onStatementCreated();
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, columnIndexes);
+        preparedStatements.add(ps);
+        onStatementCreated();
+        return ps;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, columnNames);
+        preparedStatements.add(ps);
+        onStatementCreated();
+        return ps;
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        boolean valid = connection.isValid(timeout);
+        if (!valid) {
+            broken = true;
+        }
+        return valid;
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return connection.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setSchema(schema);
+        // MySQL maps schemas to catalogs
+        catalog = null;
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return connection.getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        connection.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return connection.getNetworkTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        lastUsageTimeStamp = System.currentTimeMillis();
+        return connection.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return connection.isWrapperFor(iface);
+    }
+
+    @Override
+    public int hashCode() {
+        return connection.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || PoolConnection.class != obj.getClass()) {
+            return false;
+        } else {
+            PoolConnection other = (PoolConnection) obj;
+            return this.connection.equals(other.getConnection());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return connection.toString();
+    }
+}
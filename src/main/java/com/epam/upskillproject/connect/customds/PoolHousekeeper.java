@@ -0,0 +1,85 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.SQLException;
+
+/**
+ * A periodic maintenance task of CustomPooledDataSource. Runs on a dedicated scheduler thread and takes all the
+ * pool maintenance off the borrow and return paths:
+ * - retires idle connections which exceeded the max lifetime;
+ * - evicts idle connections which are inactive longer than the inactivity time limit (down to the target number);
+ * - pings idle connections which were not used for the keepalive time, so the server does not drop them by its
+ * wait_timeout;
+ * - refills the pool up to the target number of connections (the min number unless adaptive sizing is on)
+ */
+class PoolHousekeeper implements Runnable {
+
+    private static final Logger logger = LogManager.getLogger(PoolHousekeeper.class.getName());
+
+    private final CustomPooledDataSource pool;
+    private final ConnectionBag connectionBag;
+
+    PoolHousekeeper(CustomPooledDataSource pool, ConnectionBag connectionBag) {
+        this.pool = pool;
+        this.connectionBag = connectionBag;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (pool.isActive()) {
+                maintainIdleConnections();
+                pool.fillPool();
+            }
+        } catch (RuntimeException e) {
+            // an exception thrown out of run() would cancel all further executions
+            logger.log(Level.ERROR, "Unexpected exception thrown during connection pool housekeeping", e);
+        }
+    }
+
+    private void maintainIdleConnections() {
+        int retired = 0;
+        int evicted = 0;
+        int kept = 0;
+        for (PoolConnection connection : connectionBag.values()) {
+            if (!connectionBag.reserve(connection)) {
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            if (now - connection.getCreationTimeStamp() > pool.getMaxLifetimeMillis()) {
+                pool.discardConnection(connection);
+                retired++;
+            } else if (now - connection.getLastUsageTimeStamp() > pool.getInactivityTimeLimitMillis() &&
+                    connectionBag.size() > pool.getTargetConnectionsNumber()) {
+                pool.discardConnection(connection);
+                evicted++;
+            } else if (now - connection.getLastActivityTimeStamp() > pool.getKeepaliveTimeMillis()) {
+                if (keepAlive(connection)) {
+                    connectionBag.unreserve(connection);
+                    kept++;
+                } else {
+                    pool.discardConnection(connection);
+                    evicted++;
+                }
+            } else {
+                connectionBag.unreserve(connection);
+            }
+        }
+        if (retired > 0 || evicted > 0 || kept > 0) {
+            logger.log(Level.DEBUG, String.format("Connection pool housekeeping: %d connections retired by max " +
+                    "lifetime, %d idle or broken connections closed, %d connections kept alive", retired, evicted,
+                    kept));
+        }
+    }
+
+    private boolean keepAlive(PoolConnection connection) {
+        try {
+            return connection.keepAlive(CustomPooledDataSource.VALIDATION_TIMEOUT_VALUE_SEC);
+        } catch (SQLException e) {
+            logger.log(Level.DEBUG, "Keepalive check of idle connection failed", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.epam.upskillproject.connect.customds;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of CustomPooledDataSource. Counters and histograms are updated by borrowing and returning threads
+ * without locks; gauges are read from the connection bag on demand. The same instance is exposed over JMX and to
+ * the superadmin pool page
+ */
+public class PoolMetrics implements PoolMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.epam.upskillproject:type=CustomPooledDataSource,name=customProjectDB";
+
+    private final CustomPooledDataSource pool;
+    private final AtomicInteger borrowedConnections = new AtomicInteger();
+    private final AtomicInteger peakBorrowedConnections = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder creationFailureCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder reclaimCount = new LongAdder();
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private final LatencyHistogram validationTime = new LatencyHistogram();
+
+    PoolMetrics(CustomPooledDataSource pool) {
+        this.pool = pool;
+    }
+
+    void recordBorrow(long waitNanos) {
+        int borrowed = borrowedConnections.incrementAndGet();
+        if (borrowed > peakBorrowedConnections.get()) {
+            peakBorrowedConnections.accumulateAndGet(borrowed, Math::max);
+        }
+        borrowCount.increment();
+        borrowWait.recordNanos(waitNanos);
+    }
+
+    void recordTimeout(long waitNanos) {
+        timeoutCount.increment();
+        borrowWait.recordNanos(waitNanos);
+    }
+
+    void recordHold(long holdNanos) {
+        borrowedConnections.decrementAndGet();
+        holdTime.recordNanos(holdNanos);
+    }
+
+    void recordCreation(long creationNanos) {
+        creationTime.recordNanos(creationNanos);
+    }
+
+    void recordCreationFailure() {
+        creationFailureCount.increment();
+    }
+
+    void recordLeak() {
+        leakCount.increment();
+    }
+
+    void recordReclaim() {
+        borrowedConnections.decrementAndGet();
+        reclaimCount.increment();
+    }
+
+    /**
+     * Starts a new period of peak tracking
+     * @return the max number of simultaneously borrowed connections since the previous call
+     */
+    int resetPeakBorrowedConnections() {
+        return peakBorrowedConnections.getAndSet(borrowedConnections.get());
+    }
+
+    LatencyHistogram getBorrowWaitHistogram() {
+        return borrowWait;
+    }
+
+    LatencyHistogram getHoldTimeHistogram() {
+        return holdTime;
+    }
+
+    LatencyHistogram getValidationHistogram() {
+        return validationTime;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return pool.getMaxConnectionsNumber();
+    }
+
+    @Override
+    public int getTargetConnections() {
+        return pool.getTargetConnectionsNumber();
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return pool.totalConnections();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return pool.activeConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool.idleConnections();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        return pool.waitingThreads();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    @Override
+    public long getCreationFailureCount() {
+        return creationFailureCount.sum();
+    }
+
+    @Override
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public long getReclaimCount() {
+        return reclaimCount.sum();
+    }
+
+    @Override
+    public LatencySnapshot getBorrowWait() {
+        return borrowWait.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getHoldTime() {
+        return holdTime.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getCreationTime() {
+        return creationTime.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getValidationTime() {
+        return validationTime.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+                "maxConnections=" + getMaxConnections() +
+                ", targetConnections=" + getTargetConnections() +
+                ", totalConnections=" + getTotalConnections() +
+                ", activeConnections=" + getActiveConnections() +
+                ", idleConnections=" + getIdleConnections() +
+                ", waitingThreads=" + getWaitingThreads() +
+                ", borrowCount=" + getBorrowCount() +
+                ", timeoutCount=" + getTimeoutCount() +
+                ", creationFailureCount=" + getCreationFailureCount() +
+                ", leakCount=" + getLeakCount() +
+                ", reclaimCount=" + getReclaimCount() +
+                ", borrowWait=" + getBorrowWait() +
+                ", holdTime=" + getHoldTime() +
+                ", creationTime=" + getCreationTime() +
+                ", validationTime=" + getValidationTime() +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.epam.upskillproject.connect.customds;
+
+/**
+ * Management interface of CustomPooledDataSource metrics. Registered in the platform MBean server under
+ * PoolMetrics.OBJECT_NAME
+ */
+public interface PoolMetricsMXBean {
+
+    int getMaxConnections();
+
+    int getTargetConnections();
+
+    int getTotalConnections();
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getWaitingThreads();
+
+    long getBorrowCount();
+
+    long getTimeoutCount();
+
+    long getCreationFailureCount();
+
+    long getLeakCount();
+
+    long getReclaimCount();
+
+    LatencySnapshot getBorrowWait();
+
+    LatencySnapshot getHoldTime();
+
+    LatencySnapshot getCreationTime();
+
+    LatencySnapshot getValidationTime();
+}
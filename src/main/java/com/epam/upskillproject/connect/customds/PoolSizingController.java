@@ -0,0 +1,120 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive sizing of CustomPooledDataSource. Runs periodically on the housekeeping thread and moves the target pool
+ * size (the number of connections the housekeeper keeps open) between the min and the max number of connections:
+ * - the demand is the peak number of borrowed connections in the last period or the concurrency derived from the
+ * borrow rate and the mean hold time (Little's law), whichever is higher, plus the threads waiting at the moment;
+ * - the target grows at once to the demand with headroom, and by an extra step if borrowers were starved (threads
+ * are waiting, requests timed out or the mean borrow wait exceeded the threshold);
+ * - the target shrinks by one connection per period only after the demand has stayed below it for the shrink delay,
+ * surplus idle connections are then closed by the housekeeper after the inactivity time limit
+ */
+class PoolSizingController implements Runnable {
+
+    private static final Logger logger = LogManager.getLogger(PoolSizingController.class.getName());
+
+    // A mean borrow wait above 1 ms means that borrowers had to open connections or wait for returned ones
+    private static final long STARVATION_WAIT_THRESHOLD_MICROS = 1000;
+
+    private final CustomPooledDataSource pool;
+    private final PoolMetrics poolMetrics;
+    private final int headroomPercent;
+    private final long shrinkDelayMillis;
+    // Counters of the previous run, owned by the housekeeping thread
+    private long lastRunNanos;
+    private long lastBorrowCount;
+    private long lastBorrowWaitMicros;
+    private long lastHoldCount;
+    private long lastHoldMicros;
+    private long lastTimeoutCount;
+    private long quietSinceMillis = -1;
+
+    /**
+     * @param pool a controlled pool
+     * @param poolMetrics metrics of the pool
+     * @param headroomPercent a share of connections kept above the demand, in percent
+     * @param shrinkDelayMillis a period of low demand after which the target size starts to decrease
+     */
+    PoolSizingController(CustomPooledDataSource pool, PoolMetrics poolMetrics, int headroomPercent,
+                         long shrinkDelayMillis) {
+        this.pool = pool;
+        this.poolMetrics = poolMetrics;
+        this.headroomPercent = Math.max(headroomPercent, 0);
+        this.shrinkDelayMillis = shrinkDelayMillis;
+        this.lastRunNanos = System.nanoTime();
+        this.lastBorrowCount = poolMetrics.getBorrowWaitHistogram().getCount();
+        this.lastBorrowWaitMicros = poolMetrics.getBorrowWaitHistogram().getTotalMicros();
+        this.lastHoldCount = poolMetrics.getHoldTimeHistogram().getCount();
+        this.lastHoldMicros = poolMetrics.getHoldTimeHistogram().getTotalMicros();
+        this.lastTimeoutCount = poolMetrics.getTimeoutCount();
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (pool.isActive()) {
+                adjustTargetSize();
+            }
+        } catch (RuntimeException e) {
+            // an exception thrown out of run() would cancel all further executions
+            logger.log(Level.ERROR, "Unexpected exception thrown during connection pool sizing", e);
+        }
+    }
+
+    private void adjustTargetSize() {
+        long now = System.nanoTime();
+        double periodSeconds = (now - lastRunNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        long borrowCount = poolMetrics.getBorrowWaitHistogram().getCount();
+        long borrowWaitMicros = poolMetrics.getBorrowWaitHistogram().getTotalMicros();
+        long holdCount = poolMetrics.getHoldTimeHistogram().getCount();
+        long holdMicros = poolMetrics.getHoldTimeHistogram().getTotalMicros();
+        long timeoutCount = poolMetrics.getTimeoutCount();
+        long borrows = borrowCount - lastBorrowCount;
+        long holds = holdCount - lastHoldCount;
+        double meanHoldSeconds = (holds > 0) ?
+                (holdMicros - lastHoldMicros) / (double) holds / TimeUnit.SECONDS.toMicros(1) : 0;
+        double concurrency = (periodSeconds > 0) ? borrows / periodSeconds * meanHoldSeconds : 0;
+        int waiting = pool.waitingThreads();
+        boolean starved = waiting > 0 || timeoutCount > lastTimeoutCount ||
+                (borrows > 0 && (borrowWaitMicros - lastBorrowWaitMicros) / borrows > STARVATION_WAIT_THRESHOLD_MICROS);
+        lastRunNanos = now;
+        lastBorrowCount = borrowCount;
+        lastBorrowWaitMicros = borrowWaitMicros;
+        lastHoldCount = holdCount;
+        lastHoldMicros = holdMicros;
+        lastTimeoutCount = timeoutCount;
+
+        int demand = Math.max(poolMetrics.resetPeakBorrowedConnections(), (int) Math.ceil(concurrency)) + waiting;
+        int current = pool.getTargetConnectionsNumber();
+        int desired = (int) Math.ceil(demand * (100 + headroomPercent) / 100.0);
+        if (starved) {
+            desired = Math.max(desired, current + Math.max(current / 4, 1));
+        }
+        desired = Math.max(Math.min(desired, pool.getMaxConnectionsNumber()), pool.getMinConnectionsNumber());
+
+        if (desired > current) {
+            quietSinceMillis = -1;
+            pool.setTargetConnectionsNumber(desired);
+            logger.log(Level.DEBUG, String.format("Connection pool target size increased from %d to %d (demand %d, " +
+                    "waiting threads %d, starved: %s)", current, desired, demand, waiting, starved));
+            pool.fillPool();
+        } else if (desired < current) {
+            long nowMillis = System.currentTimeMillis();
+            if (quietSinceMillis < 0) {
+                quietSinceMillis = nowMillis;
+            } else if (nowMillis - quietSinceMillis >= shrinkDelayMillis) {
+                pool.setTargetConnectionsNumber(current - 1);
+                logger.log(Level.DEBUG, String.format("Connection pool target size decreased from %d to %d " +
+                        "(demand %d)", current, current - 1, demand));
+            }
+        } else {
+            quietSinceMillis = -1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of prepared statements of a single pooled connection keyed by SQL text. A pooled connection
+ * is used by one thread at a time, so the cache is not thread-safe
+ */
+class StatementCache {
+
+    private static final Logger logger = LogManager.getLogger(StatementCache.class.getName());
+
+    private final StatementCacheStatistics statistics;
+    private final Map<String, CachedPreparedStatement> statements;
+
+    StatementCache(int maxSize, StatementCacheStatistics statistics) {
+        this.statistics = statistics;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    evict(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for the passed SQL text or prepares and caches a new one
+     * @param conn a pooled connection which owns the cache
+     * @param driverConnection an underlying driver connection
+     * @param sql a String representing raw sql-query with placeholders
+     * @return a checked out statement or null if a statement with the same SQL text is being used at the moment
+     * (the caller is supposed to prepare an uncached statement in this case)
+     * @throws SQLException
+     */
+    CachedPreparedStatement prepare(Connection conn, Connection driverConnection, String sql) throws SQLException {
+        CachedPreparedStatement cached = statements.get(sql);
+        if (cached != null && cached.isReusable()) {
+            statistics.recordHit();
+            cached.checkOut();
+            return cached;
+        }
+        statistics.recordMiss();
+        if (cached != null && cached.isInUse()) {
+            return null;
+        }
+        CachedPreparedStatement prepared = new CachedPreparedStatement(conn, driverConnection.prepareStatement(sql));
+        prepared.checkOut();
+        statements.put(sql, prepared);
+        return prepared;
+    }
+
+    /**
+     * Returns to the cache all the statements which were not closed by their users
+     */
+    void release() {
+        for (CachedPreparedStatement cached : statements.values()) {
+            try {
+                cached.close();
+            } catch (SQLException e) {
+                logger.log(Level.WARN, "Cannot return prepared statement to statement cache", e);
+            }
+        }
+    }
+
+    /**
+     * Closes all the cached statements
+     */
+    void clear() {
+        for (CachedPreparedStatement cached : statements.values()) {
+            try {
+                cached.evict();
+            } catch (SQLException e) {
+                logger.log(Level.WARN, "Cannot close cached prepared statement", e);
+            }
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private void evict(CachedPreparedStatement cached) {
+        statistics.recordEviction();
+        try {
+            cached.evict();
+        } catch (SQLException e) {
+            logger.log(Level.WARN, "Cannot close evicted prepared statement", e);
+        }
+    }
+}
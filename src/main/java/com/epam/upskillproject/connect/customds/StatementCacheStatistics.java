@@ -0,0 +1,47 @@
+package com.epam.upskillproject.connect.customds;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool-wide counters of prepared statement cache usage. Every PoolConnection owns its own StatementCache, all of them
+ * report to a single instance of this class
+ */
+public class StatementCacheStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCacheStatistics{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+}
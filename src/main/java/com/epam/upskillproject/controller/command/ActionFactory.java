@@ -9,6 +9,8 @@ import com.epam.upskillproject.controller.command.enumeration.TargetType;
 import com.epam.upskillproject.controller.command.impl.payservice.*;
 import com.epam.upskillproject.exception.CommandNotFoundException;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +24,7 @@ import java.util.Map;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class ActionFactory {
 
     private static final Logger logger = LogManager.getLogger(ActionFactory.class.getName());
@@ -52,6 +55,9 @@ public class ActionFactory {
     private final CustomerAccountsCommand customerAccountsCommand;
     private final PaymentListCommand paymentListCommand;
     private final SystemIncomeCommand systemIncomeCommand;
+    private final PoolMetricsCommand poolMetricsCommand;
+    private final BulkTransferPageCommand bulkTransferPageCommand;
+    private final BulkTransferCommand bulkTransferCommand;
     private final MyAccountsCommand myAccountsCommand;
     private final MyAccountsServiceCommand myAccountsServiceCommand;
     private final BlockUserAccountCommand blockUserAccountCommand;
@@ -94,6 +100,9 @@ public class ActionFactory {
                          CustomerAccountsCommand customerAccountsCommand,
                          PaymentListCommand paymentListCommand,
                          SystemIncomeCommand systemIncomeCommand,
+                         PoolMetricsCommand poolMetricsCommand,
+                         BulkTransferPageCommand bulkTransferPageCommand,
+                         BulkTransferCommand bulkTransferCommand,
                          MyAccountsCommand myAccountsCommand,
                          MyAccountsServiceCommand myAccountsServiceCommand,
                          BlockUserAccountCommand blockUserAccountCommand,
@@ -134,6 +143,9 @@ public class ActionFactory {
         this.customerAccountsCommand = customerAccountsCommand;
         this.paymentListCommand = paymentListCommand;
         this.systemIncomeCommand = systemIncomeCommand;
+        this.poolMetricsCommand = poolMetricsCommand;
+        this.bulkTransferPageCommand = bulkTransferPageCommand;
+        this.bulkTransferCommand = bulkTransferCommand;
         this.myAccountsCommand = myAccountsCommand;
         this.myAccountsServiceCommand = myAccountsServiceCommand;
         this.blockUserAccountCommand = blockUserAccountCommand;
@@ -205,6 +217,9 @@ public class ActionFactory {
         addCommand(EndpointEnum.CUSTOMER_ACCOUNTS, TargetType.DELETE_CARD, cardDeleteCommand, customerAccountsCommand);
         addCommand(EndpointEnum.PAYMENT_LIST, TargetType.GET, paymentListCommand);
         addCommand(EndpointEnum.SYSTEM_INCOME, TargetType.GET, systemIncomeCommand);
+        addCommand(EndpointEnum.POOL_METRICS, TargetType.GET, poolMetricsCommand);
+        addCommand(EndpointEnum.BULK_TRANSFER, TargetType.GET, bulkTransferPageCommand);
+        addCommand(EndpointEnum.BULK_TRANSFER, TargetType.BULK_TRANSFER, bulkTransferCommand, bulkTransferPageCommand);
         addCommand(EndpointEnum.PAYSERVICE_ACCOUNTS, TargetType.GET, myAccountsCommand);
         addCommand(EndpointEnum.PAYSERVICE_ACCOUNTS, TargetType.ADD_ACCOUNT, addUserAccountCommand, myAccountsCommand);
         addCommand(EndpointEnum.PAYSERVICE_ACCOUNTS, TargetType.INCREASE_ACCOUNT, topupUserAccountCommand, myAccountsCommand);
@@ -2,9 +2,12 @@ package com.epam.upskillproject.controller.command;
 
 import com.epam.upskillproject.controller.command.enumeration.EndpointEnum;
 import com.epam.upskillproject.controller.command.enumeration.TargetType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 
 @Singleton
+@Lock(LockType.READ)
 public class CommandRouteFactory {
 
     public CommandRoute produce(EndpointEnum endpoint, TargetType target) {
@@ -16,6 +16,8 @@ public enum EndpointEnum {
     CUSTOMER_ACCOUNTS("/customer/accounts/[0-9]+"),
     PAYMENT_LIST("/payments"),
     SYSTEM_INCOME("/income"),
+    POOL_METRICS("/pool"),
+    BULK_TRANSFER("/transfers"),
     PAYSERVICE_ACCOUNTS("/payservice/my_accounts"),
     PAYSERVICE_SERVICE("/payservice/my_account_service/[0-9]+"),
     PAYSERVICE_INCOMING("/payservice/my_account_incoming/[0-9]+"),
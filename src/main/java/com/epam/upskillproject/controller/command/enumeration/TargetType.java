@@ -14,5 +14,6 @@ public enum TargetType {
     UPDATE_PERSON,
     DELETE_PERSON,
     ADD_PERSON,
-    PAYMENT
+    PAYMENT,
+    BULK_TRANSFER
 }
@@ -0,0 +1,127 @@
+package com.epam.upskillproject.controller.command.impl;
+
+import com.epam.upskillproject.controller.command.CommandResult;
+import com.epam.upskillproject.controller.servlet.util.LocaleDispatcher;
+import com.epam.upskillproject.controller.servlet.util.ParamReader;
+import com.epam.upskillproject.model.dto.IdempotencyRecord;
+import com.epam.upskillproject.model.service.IdempotencyService;
+import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.security.Principal;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * A command which is performed once per idempotency key. The key is passed in the Idempotency-Key header or in the
+ * 'idempotencyKey' parameter (pages put a new key into their forms). A repeated request with the same key gets the
+ * recorded result of the first request; a request without a key is performed as usual
+ */
+public abstract class IdempotentCommand extends AbstractCommand {
+
+    private static final Logger logger = LogManager.getLogger(IdempotentCommand.class.getName());
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENCY_KEY_PARAM = "idempotencyKey";
+    private static final String OPERATION_NAME_ATTR = "opName";
+    private static final String OPERATION_STATUS_ATTR = "opStat";
+    private static final String ERROR_MESSAGE_ATTR = "errMsg";
+    private static final int MAX_KEY_LENGTH = 64;
+
+    protected final IdempotencyService idempotencyService;
+
+    public IdempotentCommand(LocaleDispatcher localeDispatcher, ParamReader paramReader,
+                             IdempotencyService idempotencyService) {
+        super(localeDispatcher, paramReader);
+        this.idempotencyService = idempotencyService;
+    }
+
+    /**
+     * Performs a request once per idempotency key. Results with server error status codes are not recorded: the key
+     * is released, so the client can repeat the request with the same key
+     * @param principal the caller principal (the owner of the key)
+     * @param operationType an operation type for the status message of a replayed result
+     * @param fingerprint a fingerprint of the request parameters (see IdempotencyService.fingerprint())
+     * @param execution the request performing
+     * @return a result of the execution or the recorded result
+     * @throws IOException
+     */
+    protected CommandResult executeOnce(HttpServletRequest req, Principal principal, OperationType operationType,
+                                        String fingerprint, Execution execution) throws IOException {
+        Optional<String> key = readIdempotencyKey(req);
+        if (key.isEmpty()) {
+            return execution.execute();
+        }
+        String owner = principal.getName();
+        Optional<IdempotencyRecord> recorded;
+        try {
+            recorded = idempotencyService.reserve(owner, key.get(), operationType.name(), fingerprint);
+        } catch (SQLException e) {
+            logger.log(Level.ERROR, String.format("Cannot reserve idempotency key (principal: %s, key: %s)", owner,
+                    key.get()), e);
+            setOperationError(req, operationType, "Operation is temporarily unavailable, please try again later. ");
+            return new CommandResult(false, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        if (recorded.isPresent()) {
+            return replay(req, operationType, fingerprint, recorded.get());
+        }
+        CommandResult commandResult = null;
+        try {
+            commandResult = execution.execute();
+        } finally {
+            if (commandResult == null || commandResult.getStatusCode() == null ||
+                    commandResult.getStatusCode() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                idempotencyService.release(owner, key.get());
+            } else {
+                Object errMsg = req.getAttribute(ERROR_MESSAGE_ATTR);
+                idempotencyService.complete(owner, key.get(), commandResult.getStatusCode(),
+                        (!commandResult.isSuccessful() && errMsg != null) ? errMsg.toString() : null);
+            }
+        }
+        return commandResult;
+    }
+
+    private CommandResult replay(HttpServletRequest req, OperationType operationType, String fingerprint,
+                                 IdempotencyRecord record) {
+        if (!record.matches(operationType.name(), fingerprint)) {
+            logger.log(Level.WARN, String.format("Idempotency key is reused with other parameters (principal: %s, " +
+                    "key: %s)", record.getOwner(), record.getKey()));
+            setOperationError(req, operationType, "The request key was already used for another request. ");
+            return new CommandResult(false, HttpServletResponse.SC_CONFLICT);
+        } else if (!record.isCompleted()) {
+            logger.log(Level.INFO, String.format("Idempotent request is being performed (principal: %s, key: %s)",
+                    record.getOwner(), record.getKey()));
+            setOperationError(req, operationType, "The request is already being performed. ");
+            return new CommandResult(false, HttpServletResponse.SC_CONFLICT);
+        }
+        logger.log(Level.INFO, String.format("Idempotent request is repeated, recorded result returned (principal: " +
+                "%s, key: %s, status: %d)", record.getOwner(), record.getKey(), record.getStatusCode()));
+        boolean successful = record.getStatusCode() < HttpServletResponse.SC_BAD_REQUEST;
+        if (successful) {
+            req.setAttribute(OPERATION_NAME_ATTR, operationType);
+            req.setAttribute(OPERATION_STATUS_ATTR, true);
+        } else {
+            setOperationError(req, operationType, record.getMessage());
+        }
+        return new CommandResult(successful, record.getStatusCode());
+    }
+
+    private Optional<String> readIdempotencyKey(HttpServletRequest req) {
+        String header = req.getHeader(IDEMPOTENCY_KEY_HEADER);
+        Optional<String> key = (header != null && header.trim().length() > 0) ? Optional.of(header.trim()) :
+                paramReader.readString(req, IDEMPOTENCY_KEY_PARAM).map(String::trim);
+        return key.filter(value -> value.length() > 0 && value.length() <= MAX_KEY_LENGTH);
+    }
+
+    /**
+     * Performing of an idempotent request
+     */
+    @FunctionalInterface
+    protected interface Execution {
+        CommandResult execute() throws IOException;
+    }
+}
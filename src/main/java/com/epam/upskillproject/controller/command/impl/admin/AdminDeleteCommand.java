@@ -8,6 +8,8 @@ import com.epam.upskillproject.exception.TransactionException;
 import com.epam.upskillproject.model.service.SuperadminService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,11 +17,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class AdminDeleteCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(AdminDeleteCommand.class.getName());
@@ -42,9 +44,9 @@ public class AdminDeleteCommand extends AbstractCommand {
     @Override
     public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
         CommandResult commandResult;
-        Optional<BigInteger> id = paramReader.readBigInteger(req, ID_PARAM);
+        Optional<Long> id = paramReader.readLong(req, ID_PARAM);
         try {
-            if (id.isEmpty() || id.get().compareTo(BigInteger.ZERO) <= 0) {
+            if (id.isEmpty() || id.get() <= 0) {
                 logger.log(Level.WARN, String.format("Cannot delete admin (bad id parameter) [id: %s]",
                         id.orElse(null)));
                 setOperationError(req, OperationType.DELETE, "Incorrect or missing admin's ID. ");
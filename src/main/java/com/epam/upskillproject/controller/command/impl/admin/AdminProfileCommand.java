@@ -7,6 +7,8 @@ import com.epam.upskillproject.controller.command.CommandResult;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.SuperadminService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -16,10 +18,10 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.sql.SQLException;
 
 @Singleton
+@Lock(LockType.READ)
 public class AdminProfileCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(AdminProfileCommand.class.getName());
@@ -46,8 +48,8 @@ public class AdminProfileCommand extends AbstractCommand {
         RequestDispatcher view = getView(req, VIEW_PROP, DEFAULT_VIEW);
         try {
             String path = req.getRequestURI();
-            BigInteger id = new BigInteger(path.replace(BASE_PATH, ""));
-            if (id.compareTo(BigInteger.ZERO) > 0) {
+            Long id = Long.valueOf(path.replace(BASE_PATH, ""));
+            if (id > 0) {
                 Person admin = superadminService.getAdmin(id);
                 if (admin != null) {
                     req.setAttribute(ADMIN_ATTR, admin);
@@ -0,0 +1,140 @@
+package com.epam.upskillproject.controller.command.impl.admin;
+
+import com.epam.upskillproject.controller.servlet.util.LocaleDispatcher;
+import com.epam.upskillproject.controller.servlet.util.ParamReader;
+import com.epam.upskillproject.controller.command.CommandResult;
+import com.epam.upskillproject.controller.command.impl.AbstractCommand;
+import com.epam.upskillproject.exception.TransactionException;
+import com.epam.upskillproject.model.dto.Transfer;
+import com.epam.upskillproject.model.dto.TransferAtomicity;
+import com.epam.upskillproject.model.dto.TransferResult;
+import com.epam.upskillproject.model.service.SuperadminService;
+import com.epam.upskillproject.util.RoleType;
+import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Performs a bulk transfer. Items are passed as lines of the 'transfers' parameter, every line contains a payer's
+ * account id, a receiver's account id and an amount separated by commas, semicolons or spaces
+ */
+@Singleton
+@Lock(LockType.READ)
+public class BulkTransferCommand extends AbstractCommand {
+
+    private static final Logger logger = LogManager.getLogger(BulkTransferCommand.class.getName());
+
+    private static final String TRANSFERS_PARAM = "transfers";
+    private static final String ATOMICITY_PARAM = "atomicity";
+    private static final String TRANSFER_RESULTS_ATTR = "results";
+    private static final String PERFORMED_COUNT_ATTR = "performed";
+    private static final String OPERATION_NAME_ATTR = "opName";
+    private static final String OPERATION_STATUS_ATTR = "opStat";
+    private static final String LINE_SEPARATOR_REGEX = "\\R";
+    private static final String FIELD_SEPARATOR_REGEX = "[,;\\s]+";
+
+    private static final RoleType[] roles = {RoleType.SUPERADMIN};
+
+    private final SuperadminService superadminService;
+
+    @Inject
+    public BulkTransferCommand(LocaleDispatcher localeDispatcher, ParamReader paramReader,
+                               SuperadminService superadminService) {
+        super(localeDispatcher, paramReader);
+        this.superadminService = superadminService;
+    }
+
+    @Override
+    public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
+        CommandResult commandResult;
+        Optional<String> transfersParam = paramReader.readString(req, TRANSFERS_PARAM);
+        Optional<TransferAtomicity> atomicity = readAtomicity(req);
+        List<Transfer> transfers = (transfersParam.isPresent()) ? parseTransfers(transfersParam.get()) : null;
+        if (transfers != null && !transfers.isEmpty() && atomicity.isPresent()) {
+            try {
+                List<TransferResult> results = superadminService.performBulkTransfer(transfers, atomicity.get());
+                long performed = results.stream().filter(TransferResult::isPerformed).count();
+                req.setAttribute(TRANSFER_RESULTS_ATTR, results);
+                req.setAttribute(PERFORMED_COUNT_ATTR, performed);
+                if (performed == results.size()) {
+                    req.setAttribute(OPERATION_NAME_ATTR, OperationType.PAYMENT);
+                    req.setAttribute(OPERATION_STATUS_ATTR, true);
+                    commandResult = new CommandResult();
+                } else {
+                    logger.log(Level.INFO, String.format("Bulk transfer partially rejected (items: %d, performed: %d, " +
+                            "atomicity: %s)", results.size(), performed, atomicity.get()));
+                    setOperationError(req, OperationType.PAYMENT, String.format("Performed %d of %d transfers. ",
+                            performed, results.size()));
+                    commandResult = (performed > 0) ? new CommandResult() :
+                            new CommandResult(false, HttpServletResponse.SC_BAD_REQUEST);
+                }
+            } catch (TransactionException e) {
+                logger.log(Level.WARN, String.format("Cannot perform bulk transfer - transaction failed (items: %d, " +
+                        "atomicity: %s)", transfers.size(), atomicity.get()), e);
+                setOperationError(req, OperationType.PAYMENT, String.format("Cannot perform bulk transfer. %s",
+                        e.getType().getMessage()));
+                commandResult = new CommandResult(false, e.getStatusCode());
+            }
+        } else {
+            logger.log(Level.WARN, String.format("Cannot perform bulk transfer (incorrect parameters passed) " +
+                    "[transfers are valid: %s, atomicity: %s]", (transfers != null && !transfers.isEmpty()),
+                    atomicity.orElse(null)));
+            setOperationError(req, OperationType.PAYMENT, "Cannot perform bulk transfer: incorrect parameters " +
+                    "passed. ");
+            commandResult = new CommandResult(false, HttpServletResponse.SC_BAD_REQUEST);
+        }
+        return commandResult;
+    }
+
+    @Override
+    public RoleType[] getRoles() {
+        return roles;
+    }
+
+    private Optional<TransferAtomicity> readAtomicity(HttpServletRequest req) {
+        Optional<String> paramValue = paramReader.readString(req, ATOMICITY_PARAM);
+        try {
+            return paramValue.map(value -> TransferAtomicity.valueOf(value.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses transfer items, blank lines are skipped
+     * @return a list of items or null if at least one line is malformed
+     */
+    private List<Transfer> parseTransfers(String text) {
+        List<Transfer> transfers = new ArrayList<>();
+        String[] lines = text.split(LINE_SEPARATOR_REGEX);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(FIELD_SEPARATOR_REGEX);
+            try {
+                if (fields.length != 3) {
+                    throw new NumberFormatException("Three fields expected");
+                }
+                transfers.add(new Transfer(Long.valueOf(fields[0]), Long.valueOf(fields[1]),
+                        new BigDecimal(fields[2])));
+            } catch (NumberFormatException e) {
+                logger.log(Level.INFO, String.format("Malformed bulk transfer item (line %d: %s)", i + 1, line));
+                return null;
+            }
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,40 @@
+package com.epam.upskillproject.controller.command.impl.admin;
+
+import com.epam.upskillproject.controller.servlet.util.LocaleDispatcher;
+import com.epam.upskillproject.controller.servlet.util.ParamReader;
+import com.epam.upskillproject.controller.command.CommandResult;
+import com.epam.upskillproject.controller.command.impl.AbstractCommand;
+import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Singleton
+@Lock(LockType.READ)
+public class BulkTransferPageCommand extends AbstractCommand {
+
+    private static final String VIEW_PROP = "servlet.view.transfers";
+    private static final String DEFAULT_VIEW = "/WEB-INF/view/en/admin/transfers.jsp";
+
+    private static final RoleType[] roles = {RoleType.SUPERADMIN};
+
+    @Inject
+    public BulkTransferPageCommand(LocaleDispatcher localeDispatcher, ParamReader paramReader) {
+        super(localeDispatcher, paramReader);
+    }
+
+    @Override
+    public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
+        RequestDispatcher view = getView(req, VIEW_PROP, DEFAULT_VIEW);
+        return new CommandResult(view);
+    }
+
+    @Override
+    public RoleType[] getRoles() {
+        return roles;
+    }
+}
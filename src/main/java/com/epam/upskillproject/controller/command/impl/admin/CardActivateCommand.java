@@ -8,6 +8,8 @@ import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.service.AdminService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,11 +17,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class CardActivateCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CardActivateCommand.class.getName());
@@ -41,11 +43,11 @@ public class CardActivateCommand extends AbstractCommand {
     @Override
     public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
         CommandResult commandResult;
-        Optional<BigInteger> id = paramReader.readBigInteger(req, ID_PARAM);
+        Optional<Long> id = paramReader.readLong(req, ID_PARAM);
         if (id.isPresent()) {
             try {
                 boolean updated;
-                BigInteger accountId = adminService.getAccountIdByCardId(id.get());
+                Long accountId = adminService.getAccountIdByCardId(id.get());
                 if (accountId != null && !adminService.getAccountStatus(accountId).equals(StatusType.BLOCKED)) {
                     updated = adminService.updateCardStatus(id.get(), StatusType.ACTIVE);
                     req.setAttribute(OPERATION_NAME_ATTR, OperationType.UPDATE.name());
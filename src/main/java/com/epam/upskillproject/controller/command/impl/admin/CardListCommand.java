@@ -9,6 +9,8 @@ import com.epam.upskillproject.model.dto.Card;
 import com.epam.upskillproject.model.dto.Page;
 import com.epam.upskillproject.model.service.AdminService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -22,6 +24,7 @@ import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class CardListCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CardListCommand.class.getName());
@@ -9,6 +9,8 @@ import com.epam.upskillproject.model.dto.Card;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.AdminService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -18,11 +20,11 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.List;
 
 @Singleton
+@Lock(LockType.READ)
 public class CustomerAccountsCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CustomerAccountsCommand.class.getName());
@@ -85,16 +87,16 @@ public class CustomerAccountsCommand extends AbstractCommand {
         return adminService.getCardsByOwner(getIdFromRequestUri(req));
     }
 
-    private BigInteger getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
+    private Long getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
         String path = req.getRequestURI();
         String idFromUri = path.replace(BASE_PATH, "");
-        BigInteger id;
+        Long id;
         try {
-            id = new BigInteger(idFromUri);
+            id = Long.valueOf(idFromUri);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Incorrect customer's id");
         }
-        if (id.compareTo(BigInteger.ONE) < 0) {
+        if (id < 1) {
             throw new IllegalArgumentException("Customer's id may not be less than 1");
         }
         return id;
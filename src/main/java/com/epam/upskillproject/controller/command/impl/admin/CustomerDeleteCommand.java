@@ -8,6 +8,8 @@ import com.epam.upskillproject.exception.TransactionException;
 import com.epam.upskillproject.model.service.SuperadminService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,10 +17,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigInteger;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class CustomerDeleteCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CustomerDeleteCommand.class.getName());
@@ -41,9 +43,9 @@ public class CustomerDeleteCommand extends AbstractCommand {
     @Override
     public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
         CommandResult commandResult;
-        Optional<BigInteger> id = paramReader.readBigInteger(req, ID_PARAM);
+        Optional<Long> id = paramReader.readLong(req, ID_PARAM);
         try {
-            if (id.isEmpty() || id.get().compareTo(BigInteger.ZERO) <= 0) {
+            if (id.isEmpty() || id.get() <= 0) {
                 logger.log(Level.WARN, String.format("Cannot delete customer (bad id parameter) [id: %s]",
                         id.orElse(null)));
                 setOperationError(req, OperationType.DELETE, "Incorrect or missing customer's ID. ");
@@ -7,6 +7,8 @@ import com.epam.upskillproject.controller.command.impl.AbstractCommand;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.AdminService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -16,10 +18,10 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.sql.SQLException;
 
 @Singleton
+@Lock(LockType.READ)
 public class CustomerProfileCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CustomerProfileCommand.class.getName());
@@ -46,8 +48,8 @@ public class CustomerProfileCommand extends AbstractCommand {
         RequestDispatcher view = getView(req, VIEW_PROP, DEFAULT_VIEW);
         try {
             String path = req.getRequestURI();
-            BigInteger id = new BigInteger(path.replace(BASE_PATH, ""));
-            if (id.compareTo(BigInteger.ZERO) > 0) {
+            Long id = Long.valueOf(path.replace(BASE_PATH, ""));
+            if (id > 0) {
                 Person customer = adminService.getCustomer(id);
                 if (customer != null) {
                     req.setAttribute(CUSTOMER_ATTR, customer);
@@ -11,6 +11,8 @@ import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import com.epam.upskillproject.view.tag.OperationType;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.identitystore.Pbkdf2PasswordHash;
@@ -19,7 +21,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigInteger;
 import java.security.InvalidParameterException;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class CustomerUpdateCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(CustomerUpdateCommand.class.getName());
@@ -68,10 +70,10 @@ public class CustomerUpdateCommand extends AbstractCommand {
     @Override
     public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) {
         CommandResult commandResult;
-        Optional<BigInteger> id = paramReader.readBigInteger(req, ID_PARAM);
+        Optional<Long> id = paramReader.readLong(req, ID_PARAM);
         Optional<Integer> customerHash = paramReader.readInteger(req, HASH_PARAM);
         try {
-            if (id.isEmpty() || id.get().compareTo(BigInteger.ZERO) <= 0) {
+            if (id.isEmpty() || id.get() <= 0) {
                 logger.log(Level.WARN, String.format("Cannot update customer (bad id parameter) [id: %s]",
                         id.orElse(null)));
                 setOperationError(req, OperationType.UPDATE, "Incorrect or missing customer's ID. ");
@@ -88,7 +90,7 @@ public class CustomerUpdateCommand extends AbstractCommand {
                     commandResult = new CommandResult(false, HttpServletResponse.SC_CONFLICT);
                 } else {
                     updated = adminService.updateCustomer(
-                            paramReader.readBigInteger(req, ID_PARAM).orElseThrow(InvalidParameterException::new),
+                            paramReader.readLong(req, ID_PARAM).orElseThrow(InvalidParameterException::new),
                             paramReader.readRoleType(req, ROLE_PARAM).orElse(null),
                             paramReader.readString(req, EMAIL_PARAM).orElseThrow(InvalidParameterException::new),
                             paramReader.readString(req, PASSWORD_PARAM).isPresent() ?
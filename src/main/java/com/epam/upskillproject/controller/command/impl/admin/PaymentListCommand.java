@@ -10,6 +10,8 @@ import com.epam.upskillproject.model.dto.Payment;
 import com.epam.upskillproject.model.service.AdminService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -24,6 +26,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class PaymentListCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(PaymentListCommand.class.getName());
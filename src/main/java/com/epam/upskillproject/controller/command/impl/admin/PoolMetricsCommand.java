@@ -0,0 +1,63 @@
+package com.epam.upskillproject.controller.command.impl.admin;
+
+import com.epam.upskillproject.connect.customds.PoolMetrics;
+import com.epam.upskillproject.controller.servlet.util.LocaleDispatcher;
+import com.epam.upskillproject.controller.servlet.util.ParamReader;
+import com.epam.upskillproject.controller.command.CommandResult;
+import com.epam.upskillproject.controller.command.impl.AbstractCommand;
+import com.epam.upskillproject.model.service.SuperadminService;
+import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Optional;
+
+@Singleton
+@Lock(LockType.READ)
+public class PoolMetricsCommand extends AbstractCommand {
+
+    private static final Logger logger = LogManager.getLogger(PoolMetricsCommand.class.getName());
+
+    private static final String VIEW_PROP = "servlet.view.pool";
+    private static final String POOL_METRICS_ATTR = "metrics";
+    private static final String DEFAULT_VIEW = "/WEB-INF/view/en/admin/pool.jsp";
+
+    private static final RoleType[] roles = {RoleType.SUPERADMIN};
+
+    private final SuperadminService superadminService;
+
+    @Inject
+    public PoolMetricsCommand(LocaleDispatcher localeDispatcher, ParamReader paramReader,
+                              SuperadminService superadminService) {
+        super(localeDispatcher, paramReader);
+        this.superadminService = superadminService;
+    }
+
+    @Override
+    public CommandResult execute(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        try {
+            RequestDispatcher view = getView(req, VIEW_PROP, DEFAULT_VIEW);
+            Optional<PoolMetrics> metrics = superadminService.getPoolMetrics();
+            metrics.ifPresent(m -> req.setAttribute(POOL_METRICS_ATTR, m));
+            return new CommandResult(view);
+        } catch (SQLException e) {
+            logger.log(Level.ERROR, "Cannot get connection pool metrics", e);
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Connection pool metrics are not available");
+            return null;
+        }
+    }
+
+    @Override
+    public RoleType[] getRoles() {
+        return roles;
+    }
+}
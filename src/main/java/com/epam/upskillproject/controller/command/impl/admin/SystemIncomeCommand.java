@@ -6,6 +6,8 @@ import com.epam.upskillproject.controller.command.CommandResult;
 import com.epam.upskillproject.controller.command.impl.AbstractCommand;
 import com.epam.upskillproject.model.service.SuperadminService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.RequestDispatcher;
@@ -18,6 +20,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 
 @Singleton
+@Lock(LockType.READ)
 public class SystemIncomeCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(SystemIncomeCommand.class.getName());
@@ -11,6 +11,8 @@ import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import com.epam.upskillproject.view.tag.OperationType;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.identitystore.Pbkdf2PasswordHash;
@@ -28,6 +30,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Singleton
+@Lock(LockType.READ)
 public class SignUpCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(SignUpCommand.class.getName());
@@ -7,6 +7,8 @@ import com.epam.upskillproject.controller.command.impl.AbstractCommand;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.SystemService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -22,6 +24,7 @@ import java.security.Principal;
 import java.sql.SQLException;
 
 @Singleton
+@Lock(LockType.READ)
 public class UserProfileCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(UserProfileCommand.class.getName());
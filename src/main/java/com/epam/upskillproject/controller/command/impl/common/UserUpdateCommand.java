@@ -9,6 +9,8 @@ import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import com.epam.upskillproject.view.tag.OperationType;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -27,6 +29,7 @@ import java.util.Map;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class UserUpdateCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(UserUpdateCommand.class.getName());
@@ -9,6 +9,8 @@ import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -22,6 +24,7 @@ import java.security.Principal;
 import java.sql.SQLException;
 
 @Singleton
+@Lock(LockType.READ)
 public class AddUserAccountCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(AddUserAccountCommand.class.getName());
@@ -11,6 +11,8 @@ import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -20,12 +22,12 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class AddUserCardCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(AddUserCardCommand.class.getName());
@@ -57,7 +59,7 @@ public class AddUserCardCommand extends AbstractCommand {
             try {
                 Person user = customerService.getUserPerson(principal);
                 if (user != null) {
-                    Optional<BigInteger> accountId = paramReader.readBigInteger(req, ACCOUNT_ID_PARAM);
+                    Optional<Long> accountId = paramReader.readLong(req, ACCOUNT_ID_PARAM);
                     Optional<CardNetworkType> cardNet = paramReader.readCardNetworkType(req, CARD_NETWORK_PARAM);
                     if (accountId.isPresent() && cardNet.isPresent()) {
                         req.setAttribute(OPERATION_NAME_ATTR, OperationType.CREATE);
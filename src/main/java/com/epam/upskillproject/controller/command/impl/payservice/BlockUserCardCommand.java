@@ -8,6 +8,8 @@ import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -17,12 +19,12 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class BlockUserCardCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(BlockUserCardCommand.class.getName());
@@ -52,7 +54,7 @@ public class BlockUserCardCommand extends AbstractCommand {
             try {
                 Person user = customerService.getUserPerson(principal);
                 if (user != null) {
-                    Optional<BigInteger> cardId = paramReader.readBigInteger(req, CARD_ID_PARAM);
+                    Optional<Long> cardId = paramReader.readLong(req, CARD_ID_PARAM);
                     if (cardId.isPresent()) {
                         boolean blocked = customerService.blockUserCard(principal, cardId.get());
                         req.setAttribute(OPERATION_NAME_ATTR, OperationType.UPDATE.name());
@@ -9,6 +9,8 @@ import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.view.tag.OperationType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -18,12 +20,12 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class DeleteUserAccountCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(DeleteUserAccountCommand.class.getName());
@@ -53,7 +55,7 @@ public class DeleteUserAccountCommand extends AbstractCommand {
             try {
                 Person user = customerService.getUserPerson(principal);
                 if (user != null) {
-                    Optional<BigInteger> accountId = paramReader.readBigInteger(req, ACCOUNT_ID_PARAM);
+                    Optional<Long> accountId = paramReader.readLong(req, ACCOUNT_ID_PARAM);
                     if (accountId.isPresent()) {
                         boolean deleted = customerService.deleteUserAccount(principal, accountId.get());
                         req.setAttribute(OPERATION_NAME_ATTR, OperationType.DELETE.name());
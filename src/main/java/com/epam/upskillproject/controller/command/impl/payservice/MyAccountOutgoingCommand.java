@@ -10,6 +10,8 @@ import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -20,13 +22,13 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class MyAccountOutgoingCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(MyAccountOutgoingCommand.class.getName());
@@ -68,7 +70,7 @@ public class MyAccountOutgoingCommand extends AbstractCommand {
                     int pageSize = paramReader.readPageSize(req);
                     Optional<PaymentSortType> sortType = paramReader.readPaymentSort(req, SORT_PARAM);
                     try {
-                        BigInteger accountId = getIdFromRequestUri(req);
+                        Long accountId = getIdFromRequestUri(req);
                         Account account = customerService.getUserAccountById(principal, accountId);
                         req.setAttribute(FORMATTER_ATTR,
                                 DateTimeFormatter.ofPattern(propertiesKeeper.getString(DATE_TIME_PATTERN_PROP)));
@@ -106,16 +108,16 @@ public class MyAccountOutgoingCommand extends AbstractCommand {
         }
     }
 
-    private BigInteger getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
+    private Long getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
         String path = req.getRequestURI();
         String idFromUri = path.replace(BASE_PATH, "");
-        BigInteger id;
+        Long id;
         try {
-            id = new BigInteger(idFromUri);
+            id = Long.valueOf(idFromUri);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Incorrect account id");
         }
-        if (id.compareTo(BigInteger.ONE) < 0) {
+        if (id < 1) {
             throw new IllegalArgumentException("Account id may not be less than 1");
         }
         return id;
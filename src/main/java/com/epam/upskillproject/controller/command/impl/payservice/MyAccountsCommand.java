@@ -10,6 +10,8 @@ import com.epam.upskillproject.model.dto.Page;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -23,8 +25,10 @@ import java.io.IOException;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.UUID;
 
 @Singleton
+@Lock(LockType.READ)
 public class MyAccountsCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(MyAccountsCommand.class.getName());
@@ -32,6 +36,7 @@ public class MyAccountsCommand extends AbstractCommand {
     private static final String VIEW_PROP = "servlet.view.myAccounts";
     private static final String SORT_PARAM = "sort";
     private static final String PAGE_ATTR = "page";
+    private static final String IDEMPOTENCY_KEY_ATTR = "idempotencyKey";
     private static final String DEFAULT_VIEW = "/WEB-INF/view/en/payservice/myAccounts.jsp";
 
     private static final RoleType[] roles = {RoleType.CUSTOMER};
@@ -56,6 +61,8 @@ public class MyAccountsCommand extends AbstractCommand {
                 Person user = customerService.getUserPerson(principal);
                 if (user != null) {
                     req.setAttribute(PAGE_ATTR, buildAccountsPage(req, principal));
+                    // a new key for the top up form, a resubmitted form repeats the key of the first submission
+                    req.setAttribute(IDEMPOTENCY_KEY_ATTR, UUID.randomUUID().toString());
                     return new CommandResult(view);
                 } else {
                     logger.log(Level.ERROR, String.format("Cannot get principal person from database (principal: %s)",
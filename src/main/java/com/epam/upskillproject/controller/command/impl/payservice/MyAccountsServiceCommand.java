@@ -9,6 +9,8 @@ import com.epam.upskillproject.model.service.CustomerService;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.SecurityContext;
@@ -20,13 +22,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
 
 @Singleton
+@Lock(LockType.READ)
 public class MyAccountsServiceCommand extends AbstractCommand {
 
     private static final Logger logger = LogManager.getLogger(MyAccountsServiceCommand.class.getName());
@@ -37,6 +40,7 @@ public class MyAccountsServiceCommand extends AbstractCommand {
     private static final String CARDS_ATTR = "cards";
     private static final String CARD_NETWORKS_ATTR = "cardNetworks";
     private static final String COMMISSION_RATE_ATTR = "commissionRate";
+    private static final String IDEMPOTENCY_KEY_ATTR = "idempotencyKey";
     private static final String DEFAULT_VIEW = "/WEB-INF/view/en/payservice/myAccountService.jsp";
     private static final String BASE_PATH = "/controller/payservice/my_account_service/";
     private static final int DEFAULT_SCALE = 2;
@@ -75,6 +79,8 @@ public class MyAccountsServiceCommand extends AbstractCommand {
                         req.setAttribute(CARDS_ATTR, cards);
                         req.setAttribute(COMMISSION_RATE_ATTR, commissionRate);
                         req.setAttribute(CARD_NETWORKS_ATTR, CardNetworkType.values());
+                        // a new key for the payment form, a resubmitted form repeats the key of the first submission
+                        req.setAttribute(IDEMPOTENCY_KEY_ATTR, UUID.randomUUID().toString());
                     }
                     return new CommandResult(view);
                 } else {
@@ -101,16 +107,16 @@ public class MyAccountsServiceCommand extends AbstractCommand {
         }
     }
 
-    private BigInteger getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
+    private Long getIdFromRequestUri(HttpServletRequest req) throws IllegalArgumentException {
         String path = req.getRequestURI();
         String idFromUri = path.replace(BASE_PATH, "");
-        BigInteger id;
+        Long id;
         try {
-            id = new BigInteger(idFromUri);
+            id = Long.valueOf(idFromUri);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Incorrect account id");
         }
-        if (id.compareTo(BigInteger.ONE) < 0) {
+        if (id < 1) {
             throw new IllegalArgumentException("Account id may not be less than 1");
         }
         return id;
@@ -1,6 +1,8 @@
 package com.epam.upskillproject.controller.servlet.util;
 
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 @Singleton
+@Lock(LockType.READ)
 public class LocaleDispatcher {
 
     private static final Logger logger = LogManager.getLogger(LocaleDispatcher.class.getName());
@@ -17,19 +20,11 @@ public class LocaleDispatcher {
     private static final String SESSION_LOCALE_ATTR = "sessLoc";
     private static final LocaleType DEFAULT_LOCALE = LocaleType.EN;
 
-    private LocaleType locale = DEFAULT_LOCALE;
-
     @Inject
     private PropertiesKeeper propertiesKeeper;
 
     public String getLocalizedView(HttpServletRequest req, String VIEW_PROP) {
-        HttpSession session = req.getSession();
-        Object sessionLocale = session.getAttribute(SESSION_LOCALE_ATTR);
-        if (sessionLocale instanceof String && !((String) sessionLocale).equalsIgnoreCase(locale.name())) {
-            setLocale((String) sessionLocale);
-        } else if (sessionLocale != null && !(sessionLocale instanceof String) ) {
-            session.removeAttribute(SESSION_LOCALE_ATTR);
-        }
+        LocaleType locale = getLocale(req);
         String localizedView;
         try {
             localizedView = propertiesKeeper.getString(String.format("%s.%s", locale.name().toLowerCase(), VIEW_PROP));
@@ -40,18 +35,24 @@ public class LocaleDispatcher {
         return localizedView;
     }
 
-    public void setLocale(String localeParam) {
-        if (localeParam != null && localeParam.length() > 0) {
+    /**
+     * Resolves a locale of the request session. The locale is not stored in the dispatcher: the bean is shared by all
+     * the requests, so a stored value would leak from one user's session to another
+     * @param req a request
+     * @return a session locale or the default locale if the session has no (or an unknown) locale
+     */
+    public LocaleType getLocale(HttpServletRequest req) {
+        HttpSession session = req.getSession();
+        Object sessionLocale = session.getAttribute(SESSION_LOCALE_ATTR);
+        if (sessionLocale instanceof String && ((String) sessionLocale).length() > 0) {
             try {
-                this.locale = LocaleType.valueOf(localeParam.toUpperCase());
-                logger.log(Level.TRACE, "Set locale: " + locale.name());
+                return LocaleType.valueOf(((String) sessionLocale).toUpperCase());
             } catch (IllegalArgumentException e) {
-                logger.log(Level.WARN, "Unknown locale type: " + localeParam);
+                logger.log(Level.WARN, "Unknown locale type: " + sessionLocale);
             }
+        } else if (sessionLocale != null && !(sessionLocale instanceof String)) {
+            session.removeAttribute(SESSION_LOCALE_ATTR);
         }
-    }
-
-    public LocaleType getLocale() {
-        return locale;
+        return DEFAULT_LOCALE;
     }
 }
@@ -9,11 +9,12 @@ import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.AccountSortT
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.CardSortType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PaymentSortType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PersonSortType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
@@ -21,6 +22,7 @@ import java.util.Objects;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class ParamReader {
 
     private static final int DEFAULT_SCALE = 2;
@@ -71,12 +73,12 @@ public class ParamReader {
         return (paramValue == null || paramValue.length() == 0) ? Optional.empty() : Optional.of(paramValue);
     }
 
-    public Optional<BigInteger> readBigInteger(HttpServletRequest req, String paramName) {
+    public Optional<Long> readLong(HttpServletRequest req, String paramName) {
         Optional<String> paramStrValue = readString(req, paramName);
-        BigInteger paramValue = null;
+        Long paramValue = null;
         if (paramStrValue.isPresent()) {
             try {
-                paramValue = new BigInteger(paramStrValue.get());
+                paramValue = Long.valueOf(paramStrValue.get());
             } catch (NumberFormatException e) {
                 return Optional.empty();
             }
@@ -7,7 +7,8 @@ public enum TransactionExceptionType {
     ROLLBACK("Cannot rollback transaction. "),
     PERFORM("Transaction was rolled back because of error during execution. "),
     LOW_BALANCE("Transaction was rolled back because of lack of funds. "),
-    FORBIDDEN_STATUS("Receiver's status does not allow to perform transaction. ");
+    FORBIDDEN_STATUS("Receiver's status does not allow to perform transaction. "),
+    CONFLICT("Transaction was rolled back because of concurrent transactions, please try again later. ");
 
     private final String message;
 
@@ -0,0 +1,25 @@
+package com.epam.upskillproject.exception;
+
+import jakarta.ejb.ApplicationException;
+import java.sql.SQLException;
+
+/**
+ * Wraps an SQLException thrown where checked exceptions cannot be thrown (e.g. while a stream of query results is
+ * consumed)
+ */
+@ApplicationException
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -2,31 +2,40 @@ package com.epam.upskillproject.model.dao;
 
 import com.epam.upskillproject.exception.PaymentParamException;
 import com.epam.upskillproject.model.dto.Account;
+import com.epam.upskillproject.model.dto.Money;
 import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.AccountSortType;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountDao {
-    Optional<Account> getSingleAccountById(BigInteger id) throws SQLException;
-    Optional<Account> getSingleAccountByIdAndOwner(BigInteger accountId, BigInteger ownerId) throws SQLException;
+    Optional<Account> getSingleAccountById(Long id) throws SQLException;
+    Optional<Account> lockSingleAccountById(Connection conn, Long id) throws SQLException;
+    List<Account> lockAccountsByIds(Connection conn, Collection<Long> ids) throws SQLException;
+    List<Account> lockAccountsByOwner(Connection conn, Long ownerId) throws SQLException;
+    Optional<Account> getSingleAccountByIdAndOwner(Long accountId, Long ownerId) throws SQLException;
     List<Account> getAllAccounts(AccountSortType sortType) throws SQLException;
+    Stream<Account> streamAllAccounts(AccountSortType sortType) throws SQLException;
     List<Account> getAccountsPage(int limit, int offset, AccountSortType sortType) throws SQLException;
-    List<Account> getAccountsByOwner(BigInteger id) throws SQLException;
-    List<Account> getAccountsByOwnerPage(BigInteger id, int limit, int offset, AccountSortType sortType) throws SQLException;
+    List<Account> getAccountsByOwner(Long id) throws SQLException;
+    List<Account> getAccountsByOwnerPage(Long id, int limit, int offset, AccountSortType sortType) throws SQLException;
     int countAccounts() throws SQLException;
-    int countAccountsByOwner(BigInteger id) throws SQLException;
-    boolean updateAccountStatus(BigInteger id, StatusType statusType) throws SQLException;
-    Optional<StatusType> getAccountStatus(BigInteger id) throws SQLException;
-    Optional<BigDecimal> getBalance(BigInteger id) throws SQLException;
-    boolean increaseBalance(Connection conn, BigInteger id, BigDecimal amount) throws SQLException, PaymentParamException;
-    boolean decreaseBalance(Connection conn, BigInteger id, BigDecimal amount) throws SQLException, PaymentParamException;
+    int countAccountsByOwner(Long id) throws SQLException;
+    boolean updateAccountStatus(Long id, StatusType statusType) throws SQLException;
+    Optional<StatusType> getAccountStatus(Long id) throws SQLException;
+    Optional<BigDecimal> getBalance(Long id) throws SQLException;
+    boolean increaseBalance(Connection conn, Long id, Money amount) throws SQLException, PaymentParamException;
+    boolean decreaseBalance(Connection conn, Long id, Money amount) throws SQLException, PaymentParamException;
+    boolean increaseBalances(Connection conn, Map<Long, Money> amounts) throws SQLException, PaymentParamException;
+    boolean decreaseBalances(Connection conn, Map<Long, Money> amounts) throws SQLException, PaymentParamException;
     Account addAccount(Account account) throws SQLException;
-    boolean deleteSingleAccountById(Connection conn, BigInteger id) throws SQLException;
-    boolean deleteSingleAccountByIdAndOwner(Connection conn, BigInteger accountId, BigInteger ownerId) throws SQLException;
-    boolean deleteAccountsByOwner(Connection conn, BigInteger id) throws SQLException;
+    boolean deleteSingleAccountById(Connection conn, Long id) throws SQLException;
+    boolean deleteSingleAccountByIdAndOwner(Connection conn, Long accountId, Long ownerId) throws SQLException;
+    boolean deleteAccountsByOwner(Connection conn, Long id) throws SQLException;
 }
\ No newline at end of file
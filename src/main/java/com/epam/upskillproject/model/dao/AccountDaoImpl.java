@@ -3,28 +3,37 @@ package com.epam.upskillproject.model.dao;
 import com.epam.upskillproject.exception.CustomSQLCode;
 import com.epam.upskillproject.exception.PaymentParamException;
 import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.RowMapper;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
 import com.epam.upskillproject.model.dao.queryhandler.constructors.AccountQueryConstructor;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.OrderStrategy;
 import com.epam.upskillproject.model.dto.Account;
+import com.epam.upskillproject.model.dto.Money;
 import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.AccountSortType;
-import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Singleton
+@Lock(LockType.READ)
 public class AccountDaoImpl implements AccountDao {
 
     private static final Logger logger = LogManager.getLogger(AccountDaoImpl.class.getName());
@@ -35,32 +44,99 @@ public class AccountDaoImpl implements AccountDao {
     private static final String REGDATE_COLUMN_NAME = "REGDATE";
     private static final String STATUS_COLUMN_ALIAS = "statName";
     private static final String INVALID_PARAM_SQLSTATE = "22023";
+    private static final int LOCK_CHUNK_SIZE = 500;
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
     private final AccountQueryConstructor queryConstructor;
     private final QueryExecutor queryExecutor;
     private final OrderStrategy orderStrategy;
+    private final TransactionContext transactionContext;
+    private final RowMapper<Account> rowMapper = new RowMapper<>(this::buildInstance, ID_COLUMN_NAME,
+            OWNER_COLUMN_NAME, BALANCE_COLUMN_NAME, STATUS_COLUMN_ALIAS, REGDATE_COLUMN_NAME);
 
     @Inject
     public AccountDaoImpl(AccountQueryConstructor queryConstructor, QueryExecutor queryExecutor,
-                          @Named("accountOrder") OrderStrategy orderStrategy) {
+                          @Named("accountOrder") OrderStrategy orderStrategy,
+                          TransactionContext transactionContext) {
         this.queryConstructor = queryConstructor;
         this.queryExecutor = queryExecutor;
         this.orderStrategy = orderStrategy;
+        this.transactionContext = transactionContext;
     }
 
     @Override
-    public Optional<Account> getSingleAccountById(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Account> getSingleAccountById(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.singleById();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveAccount(conn, rs);
     }
 
+    /**
+     * Reads an account which has a specified id and locks its row until the end of the transaction (SELECT ... FOR
+     * UPDATE), so concurrent transactions changing the account wait for the current one. The method is intended for
+     * use as a part of a transaction. Notice that the passed connection will not be closed after execution of the method
+     * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
+     * @param id an account id (a positive value)
+     * @return an Optional containing the locked account or an empty Optional if the account does not exist
+     * @throws SQLException
+     */
     @Override
-    public Optional<Account> getSingleAccountByIdAndOwner(BigInteger accountId, BigInteger ownerId) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Account> lockSingleAccountById(Connection conn, Long id) throws SQLException {
+        String rawQuery = queryConstructor.lockSingleById();
+        ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
+        return rowMapper.mapFirst(rs);
+    }
+
+    /**
+     * Reads accounts which have specified ids and locks their rows until the end of the transaction with one set-based
+     * query (SELECT ... WHERE ID IN (...) ORDER BY ID FOR UPDATE). Rows are locked in ascending id order; a long list
+     * of ids is split into chunks which are locked in the same order. The method is intended for use as a part of
+     * a transaction. Notice that the passed connection will not be closed after execution of the method
+     * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
+     * @param ids account ids (positive values, duplicates are allowed)
+     * @return locked accounts in ascending id order (accounts which do not exist are absent)
+     * @throws SQLException
+     */
+    @Override
+    public List<Account> lockAccountsByIds(Connection conn, Collection<Long> ids) throws SQLException {
+        List<Account> accounts = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return accounts;
+        }
+        Long[] lockOrder = ids.stream()
+                .distinct()
+                .sorted()
+                .toArray(Long[]::new);
+        String rawQuery = queryConstructor.lockByIds();
+        for (int from = 0; from < lockOrder.length; from += LOCK_CHUNK_SIZE) {
+            Object[] chunk = Arrays.copyOfRange(lockOrder, from, Math.min(from + LOCK_CHUNK_SIZE, lockOrder.length),
+                    Object[].class);
+            String query = String.format(rawQuery, String.join(", ", Collections.nCopies(chunk.length, "?")));
+            ResultSet rs = queryExecutor.execute(conn, query, chunk);
+            accounts.addAll(rowMapper.mapAll(rs));
+        }
+        return accounts;
+    }
+
+    /**
+     * Reads accounts of a specified owner and locks their rows until the end of the transaction with one query. Rows
+     * are locked in ascending id order. The method is intended for use as a part of a transaction. Notice that the
+     * passed connection will not be closed after execution of the method
+     * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
+     * @param ownerId an owner's id
+     * @return locked accounts in ascending id order
+     * @throws SQLException
+     */
+    @Override
+    public List<Account> lockAccountsByOwner(Connection conn, Long ownerId) throws SQLException {
+        String rawQuery = queryConstructor.lockByOwner();
+        ResultSet rs = queryExecutor.execute(conn, rawQuery, ownerId);
+        return rowMapper.mapAll(rs);
+    }
+
+    @Override
+    public Optional<Account> getSingleAccountByIdAndOwner(Long accountId, Long ownerId) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.singleByIdAndOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, accountId, ownerId);
         return retrieveAccount(conn, rs);
@@ -68,19 +144,42 @@ public class AccountDaoImpl implements AccountDao {
 
     @Override
     public List<Account> getAllAccounts(AccountSortType sortType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.all();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrieveAccountList(conn, rs);
     }
 
+    /**
+     * Streams all the accounts row by row, so memory consumption does not depend on a number of rows (for
+     * exports, reconciliation and batch jobs). The stream holds a connection until it is closed, so it must be closed
+     * (e.g. with try-with-resources). No other query may run on the connection while the stream is open
+     * @param sortType a sort type
+     * @return a stream of accounts
+     * @throws SQLException
+     */
+    @Override
+    public Stream<Account> streamAllAccounts(AccountSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.all();
+        String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
+        ResultSet rs;
+        try {
+            rs = queryExecutor.executeStreaming(conn, query);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return rowMapper.stream(rs, conn);
+    }
+
     @Override
     public List<Account> getAccountsPage(int limit, int offset, AccountSortType sortType) throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.page();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, limit, offset);
@@ -88,20 +187,20 @@ public class AccountDaoImpl implements AccountDao {
     }
 
     @Override
-    public List<Account> getAccountsByOwner(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public List<Account> getAccountsByOwner(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveAccountList(conn, rs);
     }
 
     @Override
-    public List<Account> getAccountsByOwnerPage(BigInteger id, int limit, int offset, AccountSortType sortType)
+    public List<Account> getAccountsByOwnerPage(Long id, int limit, int offset, AccountSortType sortType)
             throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byOwnerPage();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, id, limit, offset);
@@ -110,23 +209,23 @@ public class AccountDaoImpl implements AccountDao {
 
     @Override
     public int countAccounts() throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = queryConstructor.countAll();
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrieveAccountsNumber(conn, rs);
     }
 
     @Override
-    public int countAccountsByOwner(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public int countAccountsByOwner(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.countByOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveAccountsNumber(conn, rs);
     }
 
     @Override
-    public boolean updateAccountStatus(BigInteger id, StatusType statusType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean updateAccountStatus(Long id, StatusType statusType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.updateStatus();
         int result = queryExecutor.executeUpdate(conn, rawQuery, statusType, id);
         conn.close();
@@ -135,8 +234,8 @@ public class AccountDaoImpl implements AccountDao {
     }
 
     @Override
-    public Optional<StatusType> getAccountStatus(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<StatusType> getAccountStatus(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.status();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         StatusType statusType = null;
@@ -149,7 +248,7 @@ public class AccountDaoImpl implements AccountDao {
                 logger.log(Level.INFO, "Cannot get status type: incompatible value retrieved: " + dbValue, e);
                 return Optional.empty();
             } finally {
-                rs.getStatement().close();
+                rs.close();
             }
         }
         conn.close();
@@ -157,14 +256,14 @@ public class AccountDaoImpl implements AccountDao {
     }
 
     @Override
-    public Optional<BigDecimal> getBalance(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<BigDecimal> getBalance(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.balance();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         BigDecimal balance = null;
         if (rs != null && rs.next()) {
             balance = rs.getBigDecimal(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return (balance != null) ? Optional.of(balance) : Optional.empty();
@@ -174,16 +273,16 @@ public class AccountDaoImpl implements AccountDao {
      * Adds a specified amount to an account balance. The method is intended for use as a part of a transaction.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an account id (a positive BigInteger value)
-     * @param amount a positive BigInteger value
+     * @param id an account id (a positive value)
+     * @param amount a positive amount
      * @return true in case of success, otherwise false
      * @throws SQLException
      * @throws PaymentParamException if amount has negative value or equals zero
      */
     @Override
-    public synchronized boolean increaseBalance(Connection conn, BigInteger id, BigDecimal amount) throws SQLException,
+    public boolean increaseBalance(Connection conn, Long id, Money amount) throws SQLException,
             PaymentParamException {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || !amount.isPositive()) {
             logger.log(Level.WARN, String.format("Incorrect amount value passed to %s (%s)",
                     Thread.currentThread().getStackTrace()[1].getMethodName(), amount));
             throw new PaymentParamException("Incorrect payment parameters (amount equals or less than zero)");
@@ -198,16 +297,16 @@ public class AccountDaoImpl implements AccountDao {
      * Possibility of subtracting an amount exceeding a balance value depends on database constraints.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an account id (positive BigInteger value)
-     * @param amount a positive BigInteger value
+     * @param id an account id (a positive value)
+     * @param amount a positive amount
      * @return true in case of success, otherwise false
      * @throws SQLException
      * @throws PaymentParamException if amount has negative value or equals zero
      */
     @Override
-    public synchronized boolean decreaseBalance(Connection conn, BigInteger id, BigDecimal amount) throws SQLException,
+    public boolean decreaseBalance(Connection conn, Long id, Money amount) throws SQLException,
             PaymentParamException {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || !amount.isPositive()) {
             logger.log(Level.WARN, String.format("Incorrect amount value passed to %s (%s)",
                     Thread.currentThread().getStackTrace()[1].getMethodName(), amount));
             throw new PaymentParamException("Incorrect payment parameters (amount equals or less than zero)");
@@ -217,12 +316,43 @@ public class AccountDaoImpl implements AccountDao {
         return (result != 0);
     }
 
+    /**
+     * Adds specified amounts to balances of accounts with one JDBC batch. The method is intended for use as a part of
+     * a transaction. Notice that the passed connection will not be closed after execution of the method
+     * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
+     * @param amounts positive amounts mapped by account ids
+     * @return true if balances of all the accounts were changed, otherwise false
+     * @throws SQLException
+     * @throws PaymentParamException if at least one amount has negative value or equals zero
+     */
+    @Override
+    public boolean increaseBalances(Connection conn, Map<Long, Money> amounts) throws SQLException,
+            PaymentParamException {
+        return changeBalances(conn, queryConstructor.increase(), amounts);
+    }
+
+    /**
+     * Subtracts specified amounts from balances of accounts with one JDBC batch. The method is intended for use as
+     * a part of a transaction. Possibility of subtracting an amount exceeding a balance value depends on database
+     * constraints. Notice that the passed connection will not be closed after execution of the method
+     * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
+     * @param amounts positive amounts mapped by account ids
+     * @return true if balances of all the accounts were changed, otherwise false
+     * @throws SQLException
+     * @throws PaymentParamException if at least one amount has negative value or equals zero
+     */
+    @Override
+    public boolean decreaseBalances(Connection conn, Map<Long, Money> amounts) throws SQLException,
+            PaymentParamException {
+        return changeBalances(conn, queryConstructor.decrease(), amounts);
+    }
+
     @Override
-    public synchronized Account addAccount(Account accountDto) throws SQLException {
+    public Account addAccount(Account accountDto) throws SQLException {
         if (accountDto == null) {
             return null;
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.add();
         Date now = new Date(System.currentTimeMillis());
         queryExecutor.executeUpdate(conn, rawQuery,
@@ -239,12 +369,12 @@ public class AccountDaoImpl implements AccountDao {
      * removing all the cards associated with the account to avoid database constraints.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an account id (a positive BigInteger)
+     * @param id an account id (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deleteSingleAccountById(Connection conn, BigInteger id) throws SQLException {
+    public boolean deleteSingleAccountById(Connection conn, Long id) throws SQLException {
         String rawQuery = queryConstructor.delSingleById();
         return (queryExecutor.executeUpdate(conn, rawQuery, id) != 0);
     }
@@ -254,14 +384,14 @@ public class AccountDaoImpl implements AccountDao {
      * a transaction after removing all the cards associated with the account to avoid database constraints.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param accountId an account id (a positive BigInteger)
-     * @param ownerId a person's id which owns an account (a positive BigInteger)
+     * @param accountId an account id (a positive value)
+     * @param ownerId a person's id which owns an account (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deleteSingleAccountByIdAndOwner(Connection conn, BigInteger accountId,
-                                                                BigInteger ownerId) throws SQLException {
+    public boolean deleteSingleAccountByIdAndOwner(Connection conn, Long accountId,
+                                                                Long ownerId) throws SQLException {
         String rawQuery = queryConstructor.delSingleByIdAndOwner();
         return (queryExecutor.executeUpdate(conn, rawQuery, accountId, ownerId) != 0);
     }
@@ -271,24 +401,44 @@ public class AccountDaoImpl implements AccountDao {
      * a transaction after removing all the cards associated with the owner to avoid database constraints.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an owner's id (a positive BigInteger)
+     * @param id an owner's id (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deleteAccountsByOwner(Connection conn, BigInteger id) throws SQLException {
+    public boolean deleteAccountsByOwner(Connection conn, Long id) throws SQLException {
         String rawQuery = queryConstructor.delByOwner();
         return (queryExecutor.executeUpdate(conn, rawQuery, id) != 0);
     }
 
-    private Account buildInstance(ResultSet rs) throws SQLException {
+    private boolean changeBalances(Connection conn, String rawQuery, Map<Long, Money> amounts)
+            throws SQLException {
+        if (amounts == null || amounts.values().stream().anyMatch(amount -> amount == null || !amount.isPositive())) {
+            logger.log(Level.WARN, String.format("Incorrect amount values passed to %s",
+                    Thread.currentThread().getStackTrace()[2].getMethodName()));
+            throw new PaymentParamException("Incorrect payment parameters (amount equals or less than zero)");
+        }
+        if (amounts.isEmpty()) {
+            return true;
+        }
+        List<Object[]> paramsList = amounts.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList());
+        int[] results = queryExecutor.executeBatch(conn, rawQuery, paramsList);
+        return results.length == amounts.size() && Arrays.stream(results).noneMatch(result -> result == 0);
+    }
+
+    /**
+     * @param columns indexes of the columns in the order of the row mapper columns
+     */
+    private Account buildInstance(ResultSet rs, int[] columns) throws SQLException {
         try {
             return new Account(
-                    new BigInteger(rs.getString(ID_COLUMN_NAME)),
-                    new BigInteger(rs.getString(OWNER_COLUMN_NAME)),
-                    rs.getBigDecimal(BALANCE_COLUMN_NAME),
-                    StatusType.valueOf(rs.getString(STATUS_COLUMN_ALIAS)),
-                    rs.getDate(REGDATE_COLUMN_NAME).toLocalDate()
+                    rs.getLong(columns[0]),
+                    rs.getLong(columns[1]),
+                    rs.getBigDecimal(columns[2]),
+                    StatusType.valueOf(rs.getString(columns[3])),
+                    rs.getDate(columns[4]).toLocalDate()
             );
         } catch (IllegalArgumentException e) {
             logger.log(Level.WARN, String.format("Invalid field values were obtained from database (method: %s)",
@@ -299,23 +449,13 @@ public class AccountDaoImpl implements AccountDao {
     }
 
     private Optional<Account> retrieveAccount(Connection conn, ResultSet rs) throws SQLException {
-        Account account = null;
-        if (rs != null && rs.next()) {
-            account = buildInstance(rs);
-            rs.getStatement().close();
-        }
+        Optional<Account> account = rowMapper.mapFirst(rs);
         conn.close();
-        return (account != null) ? Optional.of(account) : Optional.empty();
+        return account;
     }
 
     private List<Account> retrieveAccountList(Connection conn, ResultSet rs) throws SQLException {
-        List<Account> accounts = new ArrayList<>();
-        if (rs != null) {
-            while (rs.next()) {
-                accounts.add(buildInstance(rs));
-            }
-            rs.getStatement().close();
-        }
+        List<Account> accounts = rowMapper.mapAll(rs);
         conn.close();
         return accounts;
     }
@@ -324,7 +464,7 @@ public class AccountDaoImpl implements AccountDao {
         int amount = 0;
         if (rs != null && rs.next()) {
             amount = rs.getInt(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return amount;
@@ -3,6 +3,8 @@ package com.epam.upskillproject.model.dao;
 import com.epam.upskillproject.exception.CustomSQLCode;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.RowMapper;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
 import com.epam.upskillproject.model.dao.queryhandler.constructors.CardQueryConstructor;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.OrderStrategy;
 import com.epam.upskillproject.model.dto.Card;
@@ -10,7 +12,8 @@ import com.epam.upskillproject.model.dto.CardNetworkType;
 import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.CardSortType;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -19,14 +22,15 @@ import jakarta.servlet.ServletException;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
-import java.math.BigInteger;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 @Singleton
+@Lock(LockType.READ)
 public class CardDaoImpl implements CardDao {
 
     private static final Logger logger = LogManager.getLogger(CardDaoImpl.class.getName());
@@ -46,36 +50,38 @@ public class CardDaoImpl implements CardDao {
     private static final String PASSWORD_HASH_KEY_SIZE_PROP = "Pbkdf2PasswordHash.KeySizeBytes";
     private static final String PASSWORD_HASH_SALT_SIZE_PROP = "Pbkdf2PasswordHash.SaltSizeBytes";
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
     private final PropertiesKeeper propertiesKeeper;
     private final CardQueryConstructor queryConstructor;
     private final QueryExecutor queryExecutor;
     private final OrderStrategy orderStrategy;
     private final Pbkdf2PasswordHash passwordHash;
+    private final TransactionContext transactionContext;
+    private final RowMapper<Card> rowMapper = new RowMapper<>(this::buildInstance, ID_COLUMN_NAME, OWNER_COLUMN_NAME,
+            ACCOUNT_COLUMN_NAME, NETWORK_COLUMN_ALIAS, CVC_COLUMN_NAME, STATUS_COLUMN_ALIAS, EXPDATE_COLUMN_NAME);
 
     @Inject
     public CardDaoImpl(PropertiesKeeper propertiesKeeper, CardQueryConstructor queryConstructor,
                        QueryExecutor queryExecutor, @Named("cardOrder") OrderStrategy orderStrategy,
-                       Pbkdf2PasswordHash passwordHash) {
+                       Pbkdf2PasswordHash passwordHash, TransactionContext transactionContext) {
         this.propertiesKeeper = propertiesKeeper;
         this.queryConstructor = queryConstructor;
         this.queryExecutor = queryExecutor;
         this.orderStrategy = orderStrategy;
         this.passwordHash = passwordHash;
+        this.transactionContext = transactionContext;
     }
 
     @Override
-    public Optional<Card> getSingleCardById(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Card> getSingleCardById(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.singleById();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveCard(conn, rs);
     }
 
     @Override
-    public Optional<Card> getSingleCardByIdAndOwner(BigInteger cardId, BigInteger ownerId) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Card> getSingleCardByIdAndOwner(Long cardId, Long ownerId) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.singleByIdAndOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, cardId, ownerId);
         return retrieveCard(conn, rs);
@@ -83,19 +89,42 @@ public class CardDaoImpl implements CardDao {
 
     @Override
     public List<Card> getAllCards(CardSortType sortType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.all();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrieveCardList(conn, rs);
     }
 
+    /**
+     * Streams all the cards row by row, so memory consumption does not depend on a number of rows (for
+     * exports, reconciliation and batch jobs). The stream holds a connection until it is closed, so it must be closed
+     * (e.g. with try-with-resources). No other query may run on the connection while the stream is open
+     * @param sortType a sort type
+     * @return a stream of cards
+     * @throws SQLException
+     */
+    @Override
+    public Stream<Card> streamAllCards(CardSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.all();
+        String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
+        ResultSet rs;
+        try {
+            rs = queryExecutor.executeStreaming(conn, query);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return rowMapper.stream(rs, conn);
+    }
+
     @Override
     public List<Card> getCardsPage(int limit, int offset, CardSortType sortType) throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.page();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, limit, offset);
@@ -103,8 +132,8 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public List<Card> getCardsByOwner(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public List<Card> getCardsByOwner(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveCardList(conn, rs);
@@ -112,8 +141,8 @@ public class CardDaoImpl implements CardDao {
 
 
     @Override
-    public List<Card> getCardsByAccount(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public List<Card> getCardsByAccount(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byAccount();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveCardList(conn, rs);
@@ -121,31 +150,31 @@ public class CardDaoImpl implements CardDao {
 
     @Override
     public int countCards() throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = queryConstructor.countAll();
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrieveCardsNumber(conn, rs);
     }
 
     @Override
-    public int countCardsByOwner(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public int countCardsByOwner(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.countByOwner();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveCardsNumber(conn, rs);
     }
 
     @Override
-    public int countCardsByAccount(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public int countCardsByAccount(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.countByAccount();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrieveCardsNumber(conn, rs);
     }
 
     @Override
-    public boolean updateCardStatus(BigInteger id, StatusType statusType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean updateCardStatus(Long id, StatusType statusType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.updateStatus();
         int result = queryExecutor.executeUpdate(conn, rawQuery, statusType, id);
         conn.close();
@@ -154,8 +183,8 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public Optional<StatusType> getCardStatus(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<StatusType> getCardStatus(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.status();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         StatusType statusType = null;
@@ -168,7 +197,7 @@ public class CardDaoImpl implements CardDao {
                 logger.log(Level.INFO, "Cannot get status type: incompatible value retrieved: " + dbValue, e);
                 return Optional.empty();
             } finally {
-                rs.getStatement().close();
+                rs.close();
             }
         }
         conn.close();
@@ -176,22 +205,16 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public Optional<BigInteger> getCardAccountId(BigInteger cardId) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Long> getCardAccountId(Long cardId) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.accountId();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, cardId);
-        BigInteger accountId = null;
-        if (rs != null && rs.next()) {
-            String dbValue = null;
-            try {
-                dbValue = rs.getString(1);
-                accountId = new BigInteger(dbValue);
-            } catch (NumberFormatException e) {
-                logger.log(Level.INFO, "Cannot get account id: incompatible value retrieved: " + dbValue, e);
-                return Optional.empty();
-            } finally {
-                rs.getStatement().close();
+        Long accountId = null;
+        if (rs != null) {
+            if (rs.next()) {
+                accountId = rs.getLong(1);
             }
+            rs.close();
         }
         conn.close();
         return (accountId != null) ? Optional.of(accountId) : Optional.empty();
@@ -208,7 +231,7 @@ public class CardDaoImpl implements CardDao {
      * @throws SQLException
      */
     @Override
-    public synchronized String addCard(Connection conn, Card cardDto) throws SQLException {
+    public String addCard(Connection conn, Card cardDto) throws SQLException {
         if (cardDto == null) {
             return null;
         }
@@ -227,8 +250,8 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public synchronized boolean deleteCardById(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean deleteCardById(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.delSingleById();
         queryExecutor.executeUpdate(conn, rawQuery, id);
         conn.close();
@@ -236,8 +259,8 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public synchronized boolean deleteCardByIdAndOwner(BigInteger cardId, BigInteger ownerId) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean deleteCardByIdAndOwner(Long cardId, Long ownerId) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.delSingleByIdAndOwner();
         int result = queryExecutor.executeUpdate(conn, rawQuery, cardId, ownerId);
         conn.close();
@@ -245,8 +268,8 @@ public class CardDaoImpl implements CardDao {
     }
 
     @Override
-    public synchronized boolean deleteCardsByAccount(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean deleteCardsByAccount(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.delByAccount();
         int result = queryExecutor.executeUpdate(conn, rawQuery, id);
         conn.close();
@@ -258,20 +281,20 @@ public class CardDaoImpl implements CardDao {
      * before removal of an account.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an account id (a positive BigInteger)
+     * @param id an account id (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deleteCardsByAccount(Connection conn, BigInteger id) throws SQLException {
+    public boolean deleteCardsByAccount(Connection conn, Long id) throws SQLException {
         String rawQuery = queryConstructor.delByAccount();
         int result = queryExecutor.executeUpdate(conn, rawQuery, id);
         return (result != 0);
     }
 
     @Override
-    public synchronized boolean deleteCardsByOwner(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public boolean deleteCardsByOwner(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.delByOwner();
         int result = queryExecutor.executeUpdate(conn, rawQuery, id);
         conn.close();
@@ -283,27 +306,30 @@ public class CardDaoImpl implements CardDao {
      * before removal of person's accounts.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id an owner's id (a positive BigInteger)
+     * @param id an owner's id (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deleteCardsByOwner(Connection conn, BigInteger id) throws SQLException {
+    public boolean deleteCardsByOwner(Connection conn, Long id) throws SQLException {
         String rawQuery = queryConstructor.delByOwner();
         int result = queryExecutor.executeUpdate(conn, rawQuery, id);
         return (result != 0);
     }
 
-    private Card buildInstance(ResultSet rs) throws SQLException {
+    /**
+     * @param columns indexes of the columns in the order of the row mapper columns
+     */
+    private Card buildInstance(ResultSet rs, int[] columns) throws SQLException {
         try {
             return new Card(
-                    new BigInteger(rs.getString(ID_COLUMN_NAME)),
-                    new BigInteger(rs.getString(OWNER_COLUMN_NAME)),
-                    new BigInteger(rs.getString(ACCOUNT_COLUMN_NAME)),
-                    CardNetworkType.valueOf(rs.getString(NETWORK_COLUMN_ALIAS)),
-                    rs.getString(CVC_COLUMN_NAME),
-                    StatusType.valueOf(rs.getString(STATUS_COLUMN_ALIAS)),
-                    rs.getDate(EXPDATE_COLUMN_NAME).toLocalDate()
+                    rs.getLong(columns[0]),
+                    rs.getLong(columns[1]),
+                    rs.getLong(columns[2]),
+                    CardNetworkType.valueOf(rs.getString(columns[3])),
+                    rs.getString(columns[4]),
+                    StatusType.valueOf(rs.getString(columns[5])),
+                    rs.getDate(columns[6]).toLocalDate()
             );
         } catch (IllegalArgumentException e) {
             logger.log(Level.WARN, String.format("Invalid field values were obtained from database (method: %s)",
@@ -314,23 +340,13 @@ public class CardDaoImpl implements CardDao {
     }
 
     private Optional<Card> retrieveCard(Connection conn, ResultSet rs) throws SQLException {
-        Card card = null;
-        if (rs != null && rs.next()) {
-            card = buildInstance(rs);
-            rs.getStatement().close();
-        }
+        Optional<Card> card = rowMapper.mapFirst(rs);
         conn.close();
-        return (card != null) ? Optional.of(card) : Optional.empty();
+        return card;
     }
 
     private List<Card> retrieveCardList(Connection conn, ResultSet rs) throws SQLException {
-        List<Card> cards = new ArrayList<>();
-        if (rs != null) {
-            while (rs.next()) {
-                cards.add(buildInstance(rs));
-            }
-            rs.getStatement().close();
-        }
+        List<Card> cards = rowMapper.mapAll(rs);
         conn.close();
         return cards;
     }
@@ -339,14 +355,14 @@ public class CardDaoImpl implements CardDao {
         int amount = 0;
         if (rs != null && rs.next()) {
             amount = rs.getInt(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return amount;
     }
 
     private String generateCvc() {
-        int random = (int) (Math.random() * Math.pow(10, CVC_DIGITS));
+        int random = ThreadLocalRandom.current().nextInt((int) Math.pow(10, CVC_DIGITS));
         return String.format("%03d", random);
     }
 
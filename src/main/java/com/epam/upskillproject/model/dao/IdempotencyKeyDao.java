@@ -0,0 +1,14 @@
+package com.epam.upskillproject.model.dao;
+
+import com.epam.upskillproject.model.dto.IdempotencyRecord;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyKeyDao {
+    Optional<IdempotencyRecord> getSingleRecord(String owner, String key) throws SQLException;
+    boolean reserve(String owner, String key, String operation, String fingerprint) throws SQLException;
+    boolean complete(String owner, String key, int statusCode, String message) throws SQLException;
+    boolean delete(String owner, String key) throws SQLException;
+    int deleteExpired(LocalDateTime createdBefore) throws SQLException;
+}
@@ -0,0 +1,148 @@
+package com.epam.upskillproject.model.dao;
+
+import com.epam.upskillproject.exception.CustomSQLCode;
+import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.RowMapper;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
+import com.epam.upskillproject.model.dao.queryhandler.constructors.IdempotencyKeyQueryConstructor;
+import com.epam.upskillproject.model.dto.IdempotencyRecord;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Singleton
+@Lock(LockType.READ)
+public class IdempotencyKeyDaoImpl implements IdempotencyKeyDao {
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyKeyDaoImpl.class.getName());
+
+    private static final String OWNER_COLUMN_NAME = "OWNER";
+    private static final String KEY_COLUMN_NAME = "IKEY";
+    private static final String OPERATION_COLUMN_NAME = "OPERATION";
+    private static final String FINGERPRINT_COLUMN_NAME = "FINGERPRINT";
+    private static final String RESULT_COLUMN_NAME = "RESULT";
+    private static final String MESSAGE_COLUMN_NAME = "MESSAGE";
+    private static final String CREATED_COLUMN_NAME = "CREATED";
+    private static final String INVALID_PARAM_SQLSTATE = "22023";
+    private static final int MYSQL_DUPLICATE_KEY_ERROR = 1062;
+
+    private final IdempotencyKeyQueryConstructor queryConstructor;
+    private final QueryExecutor queryExecutor;
+    private final TransactionContext transactionContext;
+    private final RowMapper<IdempotencyRecord> rowMapper = new RowMapper<>(this::buildInstance, OWNER_COLUMN_NAME,
+            KEY_COLUMN_NAME, OPERATION_COLUMN_NAME, FINGERPRINT_COLUMN_NAME, RESULT_COLUMN_NAME, MESSAGE_COLUMN_NAME,
+            CREATED_COLUMN_NAME);
+
+    @Inject
+    public IdempotencyKeyDaoImpl(IdempotencyKeyQueryConstructor queryConstructor, QueryExecutor queryExecutor,
+                                 TransactionContext transactionContext) {
+        this.queryConstructor = queryConstructor;
+        this.queryExecutor = queryExecutor;
+        this.transactionContext = transactionContext;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> getSingleRecord(String owner, String key) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.singleByOwnerAndKey();
+        ResultSet rs = queryExecutor.execute(conn, rawQuery, owner, key);
+        Optional<IdempotencyRecord> record = rowMapper.mapFirst(rs);
+        conn.close();
+        return record;
+    }
+
+    /**
+     * Inserts a pending record of an idempotency key. The owner and the key make the primary key of the table, so only
+     * one of concurrent requests with the same key reserves it
+     * @return true if the key is reserved, false if the key is already used by the owner
+     * @throws SQLException
+     */
+    @Override
+    public boolean reserve(String owner, String key, String operation, String fingerprint) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.reserve();
+        try {
+            return queryExecutor.executeUpdate(conn, rawQuery, owner, key, operation, fingerprint,
+                    Timestamp.valueOf(LocalDateTime.now())) != 0;
+        } catch (SQLException e) {
+            if (e instanceof SQLIntegrityConstraintViolationException || e.getErrorCode() == MYSQL_DUPLICATE_KEY_ERROR) {
+                logger.log(Level.DEBUG, String.format("Idempotency key is already used (owner: %s, key: %s)", owner,
+                        key));
+                return false;
+            }
+            throw e;
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Records the result of a request which reserved the key
+     * @param message an error message or null
+     * @return true if a pending record was completed
+     * @throws SQLException
+     */
+    @Override
+    public boolean complete(String owner, String key, int statusCode, String message) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        int result = (message != null && message.trim().length() > 0) ?
+                queryExecutor.executeUpdate(conn, queryConstructor.completeWithMessage(), statusCode, message, owner,
+                        key) :
+                queryExecutor.executeUpdate(conn, queryConstructor.complete(), statusCode, owner, key);
+        conn.close();
+        return (result != 0);
+    }
+
+    @Override
+    public boolean delete(String owner, String key) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.delSingleByOwnerAndKey();
+        int result = queryExecutor.executeUpdate(conn, rawQuery, owner, key);
+        conn.close();
+        return (result != 0);
+    }
+
+    @Override
+    public int deleteExpired(LocalDateTime createdBefore) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.delExpired();
+        int result = queryExecutor.executeUpdate(conn, rawQuery, Timestamp.valueOf(createdBefore));
+        conn.close();
+        return result;
+    }
+
+    /**
+     * @param columns indexes of the columns in the order of the row mapper columns
+     */
+    private IdempotencyRecord buildInstance(ResultSet rs, int[] columns) throws SQLException {
+        try {
+            int statusCode = rs.getInt(columns[4]);
+            boolean pending = rs.wasNull();
+            return new IdempotencyRecord(
+                    rs.getString(columns[0]),
+                    rs.getString(columns[1]),
+                    rs.getString(columns[2]),
+                    rs.getString(columns[3]),
+                    (pending) ? null : statusCode,
+                    rs.getString(columns[5]),
+                    rs.getTimestamp(columns[6]).toLocalDateTime()
+            );
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.log(Level.WARN, String.format("Invalid field values were obtained from database (method: %s)",
+                    Thread.currentThread().getStackTrace()[1].getMethodName()), e);
+            throw new SQLException("Cannot create idempotency record instance (invalid field values were obtained " +
+                    "from database)", INVALID_PARAM_SQLSTATE, CustomSQLCode.INVALID_DB_PARAMETER.getCode(), e);
+        }
+    }
+}
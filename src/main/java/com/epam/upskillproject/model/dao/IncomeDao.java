@@ -1,12 +1,13 @@
 package com.epam.upskillproject.model.dao;
 
 import com.epam.upskillproject.exception.PaymentParamException;
+import com.epam.upskillproject.model.dto.Money;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 
 public interface IncomeDao {
-    boolean increaseBalance(Connection conn, BigDecimal amount) throws SQLException, PaymentParamException;
-    boolean decreaseBalance(Connection conn, BigDecimal amount) throws SQLException, PaymentParamException;
+    boolean increaseBalance(Connection conn, Money amount) throws SQLException, PaymentParamException;
+    boolean decreaseBalance(Connection conn, Money amount) throws SQLException, PaymentParamException;
     BigDecimal getBalance() throws SQLException;
 }
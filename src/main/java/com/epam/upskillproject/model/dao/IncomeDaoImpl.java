@@ -2,88 +2,185 @@ package com.epam.upskillproject.model.dao;
 
 import com.epam.upskillproject.exception.PaymentParamException;
 import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
 import com.epam.upskillproject.model.dao.queryhandler.constructors.IncomeQueryConstructor;
-import jakarta.annotation.Resource;
+import com.epam.upskillproject.model.dto.Money;
 import jakarta.inject.Inject;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
+@Lock(LockType.READ)
 public class IncomeDaoImpl implements IncomeDao {
 
     private static final Logger logger = LogManager.getLogger(IncomeDaoImpl.class.getName());
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
+    private static final String SLOT_COLUMN_NAME = "SLOT";
+    private static final String BALANCE_COLUMN_NAME = "BALANCE";
+    private static final String CHECK_VIOLATION_SQLSTATE = "HY000";
+    // MySQL error code of a violated check constraint, the same as INC_POSITIVE_BALANCE would raise
+    private static final int CHECK_CONSTRAINT_VIOLATED_ERROR = 3819;
+
+    // Read lazily: the schema may be not created yet when the bean is constructed
+    private volatile int slotCount;
     private final IncomeQueryConstructor queryConstructor;
     private final QueryExecutor queryExecutor;
+    private final TransactionContext transactionContext;
 
     @Inject
-    public IncomeDaoImpl(IncomeQueryConstructor queryConstructor, QueryExecutor queryExecutor) {
+    public IncomeDaoImpl(IncomeQueryConstructor queryConstructor, QueryExecutor queryExecutor,
+                         TransactionContext transactionContext) {
         this.queryConstructor = queryConstructor;
         this.queryExecutor = queryExecutor;
+        this.transactionContext = transactionContext;
     }
 
     /**
-     * Adds a specified amount to a system balance. The method is intended for use as a part of a transaction.
-     * Notice that the passed connection will not be closed after execution of the method
+     * Adds a specified amount to a system balance. The amount is added to one of the income slots chosen by the current
+     * thread, so concurrent transactions mostly update different rows. The method is intended for use as a part of a
+     * transaction. Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param amount a positive BigInteger value
+     * @param amount a positive amount
      * @return true in case of success, otherwise false
      * @throws SQLException
      * @throws PaymentParamException if amount has negative value or equals zero
      */
     @Override
-    public synchronized boolean increaseBalance(Connection conn, BigDecimal amount) throws SQLException,
+    public boolean increaseBalance(Connection conn, Money amount) throws SQLException,
             PaymentParamException {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount != null && !amount.isPositive()) {
             logger.log(Level.WARN, String.format("Incorrect amount value passed to %s (%s)",
                     Thread.currentThread().getStackTrace()[1].getMethodName(), amount));
             throw new PaymentParamException("Incorrect payment parameters (amount equals or less than zero)");
         }
         String rawQuery = queryConstructor.increase();
-        int result = queryExecutor.executeUpdate(conn, rawQuery, amount);
+        int result = queryExecutor.executeUpdate(conn, rawQuery, amount, homeSlot(conn));
         return (result != 0);
     }
 
     /**
-     * Subtract a specified amount from a system balance. The method is intended for use as a part of a transaction.
-     * Notice that the passed connection will not be closed after execution of the method
+     * Subtract a specified amount from a system balance. Balances of all the slots are locked and read with one query,
+     * then the amount is subtracted from the first slot (starting from the slot of the current thread) which balance
+     * covers it; if no slot covers the amount alone, the amount is collected from the slots in slot order. So the
+     * method makes two round trips whatever the number of slots (decreases are rare: only payments from the system
+     * income decrease it). The method is intended for use as a part of a transaction. Notice that the passed
+     * connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param amount a positive BigInteger value
+     * @param amount a positive amount
      * @return true in case of success, otherwise false
-     * @throws SQLException
+     * @throws SQLException with the check constraint violation code if the total system balance is less than amount
      * @throws PaymentParamException if amount has negative value or equals zero
      */
     @Override
-    public synchronized boolean decreaseBalance(Connection conn, BigDecimal amount) throws SQLException,
+    public boolean decreaseBalance(Connection conn, Money amount) throws SQLException,
             PaymentParamException {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount != null && !amount.isPositive()) {
             logger.log(Level.WARN, String.format("Incorrect amount value passed to %s (%s)",
                     Thread.currentThread().getStackTrace()[1].getMethodName(), amount));
             throw new PaymentParamException("Incorrect payment parameters (amount equals or less than zero)");
         }
-        String rawQuery = queryConstructor.decrease();
-        int result = queryExecutor.executeUpdate(conn, rawQuery, amount);
-        return (result != 0);
+        Map<Integer, Money> slotBalances = lockSlotBalances(conn);
+        if (slotBalances.isEmpty()) {
+            logger.log(Level.ERROR, "System income slots are not found");
+            throw new SQLException("System income slots are not found");
+        }
+        List<Integer> slots = new ArrayList<>(slotBalances.keySet());
+        int homeIndex = (int) Math.floorMod(Thread.currentThread().getId(), (long) slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get((homeIndex + i) % slots.size());
+            if (slotBalances.get(slot).compareTo(amount) >= 0) {
+                String rawQuery = queryConstructor.decrease();
+                return queryExecutor.executeUpdate(conn, rawQuery, amount, slot, amount) != 0;
+            }
+        }
+        return collectFromSlots(conn, amount, slotBalances);
     }
 
     @Override
     public BigDecimal getBalance() throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = queryConstructor.getBalance();
         ResultSet rs = queryExecutor.execute(conn, query);
         BigDecimal balance = BigDecimal.ZERO;
         if (rs != null && rs.next()) {
             balance = rs.getBigDecimal(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return balance;
     }
+
+    /**
+     * Locks all the income slots and reads their balances
+     * @return balances of the slots in slot order
+     */
+    private Map<Integer, Money> lockSlotBalances(Connection conn) throws SQLException {
+        Map<Integer, Money> slotBalances = new LinkedHashMap<>();
+        ResultSet rs = queryExecutor.execute(conn, queryConstructor.lockSlots());
+        if (rs != null) {
+            while (rs.next()) {
+                slotBalances.put(rs.getInt(SLOT_COLUMN_NAME), Money.of(rs.getBigDecimal(BALANCE_COLUMN_NAME)));
+            }
+            rs.close();
+        }
+        return slotBalances;
+    }
+
+    private boolean collectFromSlots(Connection conn, Money amount, Map<Integer, Money> slotBalances)
+            throws SQLException {
+        Money total = slotBalances.values().stream().reduce(Money.ZERO, Money::add);
+        if (total.compareTo(amount) < 0) {
+            logger.log(Level.INFO, String.format("System balance is not enough to subtract amount (balance: %s, " +
+                    "amount: %s)", total, amount));
+            throw new SQLException("System balance is less than the subtracted amount", CHECK_VIOLATION_SQLSTATE,
+                    CHECK_CONSTRAINT_VIOLATED_ERROR);
+        }
+        String rawQuery = queryConstructor.decrease();
+        Money remaining = amount;
+        for (Map.Entry<Integer, Money> slotBalance : slotBalances.entrySet()) {
+            Money part = (remaining.compareTo(slotBalance.getValue()) <= 0) ? remaining : slotBalance.getValue();
+            if (part.isPositive()) {
+                queryExecutor.executeUpdate(conn, rawQuery, part, slotBalance.getKey(), part);
+                remaining = remaining.subtract(part);
+            }
+            if (remaining.signum() == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private int homeSlot(Connection conn) throws SQLException {
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) getSlotCount(conn));
+    }
+
+    /**
+     * Returns the number of income slots. The number is read from the database once, slots are created with the schema
+     */
+    private int getSlotCount(Connection conn) throws SQLException {
+        int slots = slotCount;
+        if (slots == 0) {
+            ResultSet rs = queryExecutor.execute(conn, queryConstructor.countSlots());
+            if (rs != null && rs.next()) {
+                slots = rs.getInt(1);
+                rs.close();
+            }
+            if (slots == 0) {
+                logger.log(Level.ERROR, "System income slots are not found");
+                throw new SQLException("System income slots are not found");
+            }
+            slotCount = slots;
+        }
+        return slots;
+    }
 }
@@ -3,21 +3,22 @@ package com.epam.upskillproject.model.dao;
 import com.epam.upskillproject.model.dto.Payment;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PaymentSortType;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PaymentDao {
-    Optional<Payment> getSinglePaymentById(BigInteger id) throws SQLException;
+    Optional<Payment> getSinglePaymentById(Long id) throws SQLException;
     List<Payment> getAllPayments(PaymentSortType sortType) throws SQLException;
+    Stream<Payment> streamAllPayments(PaymentSortType sortType) throws SQLException;
     List<Payment> getPaymentsPage(int limit, int offset, PaymentSortType sortType) throws SQLException;
-    List<Payment> getPaymentsByPayer(BigInteger id, PaymentSortType sortType) throws SQLException;
-    List<Payment> getPaymentsByPayerPage(BigInteger id, int limit, int offset, PaymentSortType sortType) throws SQLException;
-    List<Payment> getPaymentsByReceiver(BigInteger id, PaymentSortType sortType) throws SQLException;
-    List<Payment> getPaymentsByReceiverPage(BigInteger id, int limit, int offset, PaymentSortType sortType) throws SQLException;
+    List<Payment> getPaymentsByPayer(Long id, PaymentSortType sortType) throws SQLException;
+    List<Payment> getPaymentsByPayerPage(Long id, int limit, int offset, PaymentSortType sortType) throws SQLException;
+    List<Payment> getPaymentsByReceiver(Long id, PaymentSortType sortType) throws SQLException;
+    List<Payment> getPaymentsByReceiverPage(Long id, int limit, int offset, PaymentSortType sortType) throws SQLException;
     int countPayments() throws SQLException;
-    int countPaymentsByPayer(BigInteger id) throws SQLException;
-    int countPaymentsByReceiver(BigInteger id) throws SQLException;
-    BigDecimal getTotalReceiverIncomeByPayer(BigInteger payerId, BigInteger receiverId, int days) throws SQLException;
+    int countPaymentsByPayer(Long id) throws SQLException;
+    int countPaymentsByReceiver(Long id) throws SQLException;
+    BigDecimal getTotalReceiverIncomeByPayer(Long payerId, Long receiverId, int days) throws SQLException;
 }
@@ -2,27 +2,30 @@ package com.epam.upskillproject.model.dao;
 
 import com.epam.upskillproject.exception.CustomSQLCode;
 import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.RowMapper;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
 import com.epam.upskillproject.model.dao.queryhandler.constructors.PaymentQueryConstructor;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.OrderStrategy;
 import com.epam.upskillproject.model.dto.Payment;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PaymentSortType;
-import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Singleton
+@Lock(LockType.READ)
 public class PaymentDaoImpl implements PaymentDao {
 
     private static final Logger logger = LogManager.getLogger(PaymentDaoImpl.class.getName());
@@ -34,49 +37,71 @@ public class PaymentDaoImpl implements PaymentDao {
     private static final String DATE_COLUMN_NAME = "DATE";
     private static final String INVALID_PARAM_SQLSTATE = "22023";
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
     private final PaymentQueryConstructor queryConstructor;
     private final QueryExecutor queryExecutor;
     private final OrderStrategy orderStrategy;
+    private final TransactionContext transactionContext;
+    private final RowMapper<Payment> rowMapper = new RowMapper<>(this::buildInstance, ID_COLUMN_NAME,
+            AMOUNT_COLUMN_NAME, PAYER_COLUMN_NAME, RECEIVER_COLUMN_NAME, DATE_COLUMN_NAME);
 
     @Inject
     public PaymentDaoImpl(PaymentQueryConstructor queryConstructor, QueryExecutor queryExecutor,
-                          @Named("paymentOrder") OrderStrategy orderStrategy) {
+                          @Named("paymentOrder") OrderStrategy orderStrategy,
+                          TransactionContext transactionContext) {
         this.queryExecutor = queryExecutor;
         this.queryConstructor = queryConstructor;
         this.orderStrategy = orderStrategy;
+        this.transactionContext = transactionContext;
     }
 
     @Override
-    public Optional<Payment> getSinglePaymentById(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public Optional<Payment> getSinglePaymentById(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.singleById();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
-        Payment payment = null;
-        if (rs != null && rs.next()) {
-            payment = buildInstance(rs);
-            rs.getStatement().close();
-        }
+        Optional<Payment> payment = rowMapper.mapFirst(rs);
         conn.close();
-        return (payment != null) ? Optional.of(payment) : Optional.empty();
+        return payment;
     }
 
     @Override
     public List<Payment> getAllPayments(PaymentSortType sortType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.all();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn,query);
         return retrievePayments(conn, rs);
     }
 
+    /**
+     * Streams all the payments row by row, so memory consumption does not depend on a number of rows (for
+     * exports, reconciliation and batch jobs). The stream holds a connection until it is closed, so it must be closed
+     * (e.g. with try-with-resources). No other query may run on the connection while the stream is open
+     * @param sortType a sort type
+     * @return a stream of payments
+     * @throws SQLException
+     */
+    @Override
+    public Stream<Payment> streamAllPayments(PaymentSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.all();
+        String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
+        ResultSet rs;
+        try {
+            rs = queryExecutor.executeStreaming(conn, query);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return rowMapper.stream(rs, conn);
+    }
+
     @Override
     public List<Payment> getPaymentsPage(int limit, int offset, PaymentSortType sortType) throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.page();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, limit, offset);
@@ -84,8 +109,8 @@ public class PaymentDaoImpl implements PaymentDao {
     }
 
     @Override
-    public List<Payment> getPaymentsByPayer(BigInteger id, PaymentSortType sortType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public List<Payment> getPaymentsByPayer(Long id, PaymentSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byPayer();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, id);
@@ -93,12 +118,12 @@ public class PaymentDaoImpl implements PaymentDao {
     }
 
     @Override
-    public List<Payment> getPaymentsByPayerPage(BigInteger id, int limit, int offset, PaymentSortType sortType)
+    public List<Payment> getPaymentsByPayerPage(Long id, int limit, int offset, PaymentSortType sortType)
             throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byPayerPage();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, id, limit, offset);
@@ -106,8 +131,8 @@ public class PaymentDaoImpl implements PaymentDao {
     }
 
     @Override
-    public List<Payment> getPaymentsByReceiver(BigInteger id, PaymentSortType sortType) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public List<Payment> getPaymentsByReceiver(Long id, PaymentSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byReceiver();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, id);
@@ -115,12 +140,12 @@ public class PaymentDaoImpl implements PaymentDao {
     }
 
     @Override
-    public List<Payment> getPaymentsByReceiverPage(BigInteger id, int limit, int offset,
+    public List<Payment> getPaymentsByReceiverPage(Long id, int limit, int offset,
                                                    PaymentSortType sortType) throws SQLException {
         if (limit < 1) {
             return new ArrayList<>();
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.byReceiverPage();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, id, limit, offset);
@@ -129,55 +154,58 @@ public class PaymentDaoImpl implements PaymentDao {
 
     @Override
     public int countPayments() throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = queryConstructor.countAll();
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrievePaymentsNumber(conn, rs);
     }
 
     @Override
-    public int countPaymentsByPayer(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public int countPaymentsByPayer(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.countByPayer();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrievePaymentsNumber(conn, rs);
     }
 
     @Override
-    public int countPaymentsByReceiver(BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    public int countPaymentsByReceiver(Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.countByReceiver();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrievePaymentsNumber(conn, rs);
     }
 
     @Override
-    public BigDecimal getTotalReceiverIncomeByPayer(BigInteger payerId, BigInteger receiverId, int days)
+    public BigDecimal getTotalReceiverIncomeByPayer(Long payerId, Long receiverId, int days)
             throws SQLException {
         if (days < 0) {
             return BigDecimal.ZERO;
         }
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.totalReceiverIncomeByPayer();
         Timestamp past = Timestamp.valueOf(LocalDateTime.now().minusDays(days));
         BigDecimal amount = BigDecimal.ZERO;
         ResultSet rs = queryExecutor.execute(conn, rawQuery, payerId, receiverId, past);
         if (rs != null && rs.next() && rs.getBigDecimal(1) != null) {
             amount = rs.getBigDecimal(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return amount;
     }
 
-    private Payment buildInstance(ResultSet rs) throws SQLException {
+    /**
+     * @param columns indexes of the columns in the order of the row mapper columns
+     */
+    private Payment buildInstance(ResultSet rs, int[] columns) throws SQLException {
         try {
             return new Payment(
-                    new BigInteger(rs.getString(ID_COLUMN_NAME)),
-                    rs.getBigDecimal(AMOUNT_COLUMN_NAME),
-                    new BigInteger(rs.getString(PAYER_COLUMN_NAME)),
-                    new BigInteger(rs.getString(RECEIVER_COLUMN_NAME)),
-                    rs.getTimestamp(DATE_COLUMN_NAME).toLocalDateTime()
+                    rs.getLong(columns[0]),
+                    rs.getBigDecimal(columns[1]),
+                    rs.getLong(columns[2]),
+                    rs.getLong(columns[3]),
+                    rs.getTimestamp(columns[4]).toLocalDateTime()
             );
         } catch (IllegalArgumentException e) {
             logger.log(Level.WARN, String.format("Invalid field values were obtained from database (method: %s)",
@@ -188,13 +216,7 @@ public class PaymentDaoImpl implements PaymentDao {
     }
 
     private List<Payment> retrievePayments(Connection conn, ResultSet rs) throws SQLException {
-        List<Payment> payments = new ArrayList<>();
-        if (rs != null) {
-            while (rs.next()) {
-                payments.add(buildInstance(rs));
-            }
-            rs.getStatement().close();
-        }
+        List<Payment> payments = rowMapper.mapAll(rs);
         conn.close();
         return payments;
     }
@@ -203,7 +225,7 @@ public class PaymentDaoImpl implements PaymentDao {
         int amount = 0;
         if (rs != null && rs.next()) {
             amount = rs.getInt(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return amount;
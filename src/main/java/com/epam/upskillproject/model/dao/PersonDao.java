@@ -4,19 +4,20 @@ import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PersonSortType;
-import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PersonDao {
-    Optional<Person> getSinglePersonById(BigInteger id) throws SQLException;
-    Optional<Person> getSinglePersonById(RoleType role, BigInteger id) throws SQLException;
+    Optional<Person> getSinglePersonById(Long id) throws SQLException;
+    Optional<Person> getSinglePersonById(RoleType role, Long id) throws SQLException;
     Optional<Person> getSinglePersonByEmail(String email) throws SQLException;
     Optional<Person> getSinglePersonByEmail(RoleType role, String email) throws SQLException;
     List<Person> getAllPersons(PersonSortType sortType) throws SQLException;
     List<Person> getAllPersons(RoleType role, PersonSortType sortType) throws SQLException;
+    Stream<Person> streamAllPersons(PersonSortType sortType) throws SQLException;
     List<Person> getPersonsPage(int limit, int offset, PersonSortType sortType) throws SQLException;
     List<Person> getPersonsPage(RoleType role, int limit, int offset, PersonSortType sortType)
             throws SQLException;
@@ -27,5 +28,5 @@ public interface PersonDao {
     boolean updatePerson(Person personDto) throws SQLException;
     boolean updatePerson(RoleType role, Person personDto) throws SQLException;
     Person addPerson(Person personDto) throws SQLException;
-    boolean deletePersonById(Connection conn, BigInteger id) throws SQLException;
+    boolean deletePersonById(Connection conn, Long id) throws SQLException;
 }
\ No newline at end of file
@@ -2,28 +2,31 @@ package com.epam.upskillproject.model.dao;
 
 import com.epam.upskillproject.exception.CustomSQLCode;
 import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.RowMapper;
+import com.epam.upskillproject.model.dao.queryhandler.TransactionContext;
 import com.epam.upskillproject.model.dao.queryhandler.constructors.PersonQueryConstructor;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.OrderStrategy;
 import com.epam.upskillproject.util.RoleType;
 import com.epam.upskillproject.model.dto.Person;
 import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PersonSortType;
-import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
-import java.math.BigInteger;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Singleton
+@Lock(LockType.READ)
 public class PersonDaoImpl implements PersonDao {
 
     private static final Logger logger = LogManager.getLogger(PersonDaoImpl.class.getName());
@@ -38,29 +41,37 @@ public class PersonDaoImpl implements PersonDao {
     private static final String STATUS_COLUMN_ALIAS = "statName";
     private static final String INVALID_PARAM_SQLSTATE = "22023";
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
     private final PersonQueryConstructor queryConstructor;
     private final QueryExecutor queryExecutor;
     private final OrderStrategy orderStrategy;
+    private final TransactionContext transactionContext;
+    private final RowMapper<Person> rowMapper = new RowMapper<>(this::buildInstance, ID_COLUMN_NAME,
+            ROLE_COLUMN_ALIAS, EMAIL_COLUMN_NAME, FIRSTNAME_COLUMN_NAME, LASTNAME_COLUMN_NAME, STATUS_COLUMN_ALIAS,
+            REGDATE_COLUMN_NAME, PASSWORD_COLUMN_NAME);
+    // List queries do not select passwords
+    private final RowMapper<Person> listRowMapper = new RowMapper<>(this::buildInstance, ID_COLUMN_NAME,
+            ROLE_COLUMN_ALIAS, EMAIL_COLUMN_NAME, FIRSTNAME_COLUMN_NAME, LASTNAME_COLUMN_NAME, STATUS_COLUMN_ALIAS,
+            REGDATE_COLUMN_NAME);
 
     @Inject
     public PersonDaoImpl(PersonQueryConstructor queryConstructor,
                          QueryExecutor queryExecutor,
-                         @Named("personOrder") OrderStrategy orderStrategy) {
+                         @Named("personOrder") OrderStrategy orderStrategy,
+                         TransactionContext transactionContext) {
         this.queryConstructor = queryConstructor;
         this.queryExecutor = queryExecutor;
         this.orderStrategy = orderStrategy;
+        this.transactionContext = transactionContext;
     }
 
     @Override
-    public Optional<Person> getSinglePersonById(BigInteger id) throws SQLException {
+    public Optional<Person> getSinglePersonById(Long id) throws SQLException {
         String rawQuery = queryConstructor.singleById();
         return findSingleById(rawQuery, id);
     }
 
     @Override
-    public Optional<Person> getSinglePersonById(RoleType role, BigInteger id) throws SQLException {
+    public Optional<Person> getSinglePersonById(RoleType role, Long id) throws SQLException {
         if (role == null) {
             return Optional.empty();
         }
@@ -98,6 +109,29 @@ public class PersonDaoImpl implements PersonDao {
         return findAll(String.format(rawQuery, orderStrategy.getOrder(sortType)));
     }
 
+    /**
+     * Streams all the persons (without passwords) row by row, so memory consumption does not depend on a number of
+     * rows (for exports, reconciliation and batch jobs). The stream holds a connection until it is closed, so it must
+     * be closed (e.g. with try-with-resources). No other query may run on the connection while the stream is open
+     * @param sortType a sort type
+     * @return a stream of persons
+     * @throws SQLException
+     */
+    @Override
+    public Stream<Person> streamAllPersons(PersonSortType sortType) throws SQLException {
+        Connection conn = transactionContext.getConnection();
+        String rawQuery = queryConstructor.all();
+        String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
+        ResultSet rs;
+        try {
+            rs = queryExecutor.executeStreaming(conn, query);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return listRowMapper.stream(rs, conn);
+    }
+
     @Override
     public List<Person> getPersonsPage(int limit, int offset, PersonSortType sortType) throws SQLException {
         if (limit < 1) {
@@ -134,7 +168,7 @@ public class PersonDaoImpl implements PersonDao {
 
     @Override
     public Optional<StatusType> getPersonStatus(String email) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String rawQuery = queryConstructor.status();
         String query = String.format(rawQuery, email);
         ResultSet rs = queryExecutor.execute(conn, query);
@@ -148,7 +182,7 @@ public class PersonDaoImpl implements PersonDao {
                 logger.log(Level.INFO, "Cannot get status type: incompatible value retrieved: " + dbValue, e);
                 return Optional.empty();
             } finally {
-                rs.getStatement().close();
+                rs.close();
             }
         }
         conn.close();
@@ -162,9 +196,9 @@ public class PersonDaoImpl implements PersonDao {
     }
 
     @Override
-    public synchronized boolean updatePerson(Person personDto) throws SQLException {
+    public boolean updatePerson(Person personDto) throws SQLException {
         String rawQuery = queryConstructor.update();
-        try (Connection conn = dataSource.getConnection()) {
+        try (Connection conn = transactionContext.getConnection()) {
             return executeUpdatePerson(personDto, conn, rawQuery);
         } catch (NullPointerException e) {
             logger.log(Level.WARN, String.format("Incorrect parameters passed to %s, cannot update person (id %s)",
@@ -175,7 +209,7 @@ public class PersonDaoImpl implements PersonDao {
     }
 
     @Override
-    public synchronized boolean updatePerson(RoleType role, Person personDto) throws SQLException {
+    public boolean updatePerson(RoleType role, Person personDto) throws SQLException {
         if (role == null) {
             logger.log(Level.WARN, String.format("Incorrect parameters passed to %s - role is null, cannot " +
                             "update person (id %s)",
@@ -184,7 +218,7 @@ public class PersonDaoImpl implements PersonDao {
             throw new SQLException("Cannot update person (role is not specified)", INVALID_PARAM_SQLSTATE,
                     CustomSQLCode.INVALID_STATEMENT_PARAMETER.getCode());
         }
-        try (Connection conn = dataSource.getConnection()) {
+        try (Connection conn = transactionContext.getConnection()) {
             String rawQuery = queryConstructor.update(role);
             return executeUpdatePerson(personDto, conn, rawQuery);
         } catch (NullPointerException e) {
@@ -196,7 +230,7 @@ public class PersonDaoImpl implements PersonDao {
     }
 
     @Override
-    public synchronized Person addPerson(Person personDto) throws SQLException {
+    public Person addPerson(Person personDto) throws SQLException {
         if (personDto == null) {
             logger.log(Level.WARN, String.format("Incorrect DTO passed to %s - personDto is null, cannot " +
                             "add person", Thread.currentThread().getStackTrace()[1].getMethodName()));
@@ -204,7 +238,7 @@ public class PersonDaoImpl implements PersonDao {
                     CustomSQLCode.INVALID_STATEMENT_PARAMETER.getCode());
         }
         String rawQuery = queryConstructor.add();
-        try (Connection conn = dataSource.getConnection()) {
+        try (Connection conn = transactionContext.getConnection()) {
             queryExecutor.executeUpdate(conn, rawQuery,
                     Objects.requireNonNull(personDto.getrole(), "role is null").getId(),
                     Objects.requireNonNull(personDto.getEmail(), "email is null").trim(),
@@ -228,89 +262,83 @@ public class PersonDaoImpl implements PersonDao {
      * removing all the cards and accounts associated with the person to avoid database constraints.
      * Notice that the passed connection will not be closed after execution of the method
      * @param conn a valid java.sql.Connection (auto-commit mode of passed connection must be set to false)
-     * @param id a person id (a positive BigInteger)
+     * @param id a person id (a positive value)
      * @return true in case of success, otherwise false
      * @throws SQLException
      */
     @Override
-    public synchronized boolean deletePersonById(Connection conn, BigInteger id) throws SQLException {
+    public boolean deletePersonById(Connection conn, Long id) throws SQLException {
         String rawQuery = queryConstructor.delSingleById();
         int result = queryExecutor.executeUpdate(conn, rawQuery, id);
         return (result != 0);
     }
 
-    private Optional<Person> findSingleById(String rawQuery, BigInteger id) throws SQLException {
-        Connection conn = dataSource.getConnection();
+    private Optional<Person> findSingleById(String rawQuery, Long id) throws SQLException {
+        Connection conn = transactionContext.getConnection();
         ResultSet rs = queryExecutor.execute(conn, rawQuery, id);
         return retrievePerson(conn, rs);
     }
 
     private Optional<Person> findSingleByEmail(String rawQuery, String email) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = String.format(rawQuery, email);
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrievePerson(conn, rs);
     }
 
     private Optional<Person> retrievePerson(Connection conn, ResultSet rs) throws SQLException {
-        Person person = null;
-        if (rs != null && rs.next()) {
-            person = buildInstance(rs);
-            rs.getStatement().close();
-        }
+        Optional<Person> person = rowMapper.mapFirst(rs);
         conn.close();
-        return (person != null) ? Optional.of(person) : Optional.empty();
+        return person;
     }
 
     private List<Person> findAll(String query) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         ResultSet rs = queryExecutor.execute(conn, query);
         return retrievePersonList(conn, rs);
     }
 
     private List<Person> findPage(String rawQuery, int limit, int offset, PersonSortType sortType)
             throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         String query = String.format(rawQuery, orderStrategy.getOrder(sortType));
         ResultSet rs = queryExecutor.execute(conn, query, limit, offset);
         return retrievePersonList(conn, rs);
     }
 
     private List<Person> retrievePersonList(Connection conn, ResultSet rs) throws SQLException {
-        List<Person> persons = new ArrayList<>();
-        if (rs != null) {
-            while (rs.next()) {
-                persons.add(buildInstance(rs));
-            }
-            rs.getStatement().close();
-        }
+        List<Person> persons = listRowMapper.mapAll(rs);
         conn.close();
         return persons;
     }
 
     private int retrievePersonsNumber(String query) throws SQLException {
-        Connection conn = dataSource.getConnection();
+        Connection conn = transactionContext.getConnection();
         ResultSet rs = queryExecutor.execute(conn, query);
         int amount = 0;
         if (rs != null && rs.next()) {
             amount = rs.getInt(1);
-            rs.getStatement().close();
+            rs.close();
         }
         conn.close();
         return amount;
     }
 
-    private Person buildInstance(ResultSet rs) throws SQLException {
+    /**
+     * @param columns indexes of the columns in the order of the row mapper columns (the password column is the last
+     * one and is absent from list queries)
+     */
+    private Person buildInstance(ResultSet rs, int[] columns) throws SQLException {
         try {
             return new Person(
-                    new BigInteger(rs.getString(ID_COLUMN_NAME)),
-                    RoleType.valueOf(rs.getString(ROLE_COLUMN_ALIAS)),
-                    rs.getString(EMAIL_COLUMN_NAME),
-                    rs.getString(PASSWORD_COLUMN_NAME),
-                    rs.getString(FIRSTNAME_COLUMN_NAME),
-                    rs.getString(LASTNAME_COLUMN_NAME),
-                    StatusType.valueOf(rs.getString(STATUS_COLUMN_ALIAS)),
-                    rs.getDate(REGDATE_COLUMN_NAME).toLocalDate()
+                    rs.getLong(columns[0]),
+                    RoleType.valueOf(rs.getString(columns[1])),
+                    rs.getString(columns[2]),
+                    (columns.length > 7) ? rs.getString(columns[7]) : null,
+                    rs.getString(columns[3]),
+                    rs.getString(columns[4]),
+                    StatusType.valueOf(rs.getString(columns[5])),
+                    rs.getDate(columns[6]).toLocalDate()
             );
         } catch (IllegalArgumentException e) {
             logger.log(Level.WARN, String.format("Invalid field values were obtained from database (method: %s)",
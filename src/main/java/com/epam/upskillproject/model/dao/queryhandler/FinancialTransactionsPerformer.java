@@ -1,5 +1,6 @@
 package com.epam.upskillproject.model.dao.queryhandler;
 
+import com.epam.upskillproject.exception.PaymentParamException;
 import com.epam.upskillproject.exception.TransactionException;
 import com.epam.upskillproject.exception.TransactionExceptionType;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
@@ -9,7 +10,9 @@ import com.epam.upskillproject.model.dao.IncomeDao;
 import com.epam.upskillproject.model.dao.PersonDao;
 import com.epam.upskillproject.model.dto.*;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.Resource;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import jakarta.servlet.ServletException;
@@ -17,83 +20,181 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.sql.DataSource;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+/**
+ * Performs financial transactions. Transactions run concurrently: the consistency of balances is provided by row locks
+ * of the database instead of JVM locks. Every transaction locks the accounts it changes (SELECT ... FOR UPDATE) in
+ * ascending id order before changing them, so two transactions sharing accounts cannot deadlock, and updates the system
+ * income balance last. The income is split into slot rows (see IncomeDaoImpl), so concurrent transactions mostly lock
+ * different income rows. Optionally payments run in the MAKE_PAYMENT stored procedure, which follows the same locking
+ * order on the database server and saves a network round trip per statement.
+ * Locks of other tables (cards, transactions) and gap locks still can make transactions deadlock or wait for locks too
+ * long. Such a transaction is rolled back and replayed as a whole (see TransactionRetryPolicy)
+ */
 @Singleton
+@Lock(LockType.READ)
 public class FinancialTransactionsPerformer {
 
     private static final Logger logger = LogManager.getLogger(FinancialTransactionsPerformer.class.getName());
 
     private static final int DEFAULT_SCALE = 2;
     private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
-    private static final BigInteger SYSTEM_INCOME_ID = BigInteger.ZERO;
+    // The commission rate is kept with DEFAULT_SCALE, so it is a number of hundredths
+    private static final long COMMISSION_RATE_DENOMINATOR = 100L;
+    private static final Long SYSTEM_INCOME_ID = 0L;
     private static final String COMMISSION_RATE_PROP = "system.payments.commissionRate";
     private static final int MYSQL_CONSTRAINT_VIOLATED_ERROR = 3819;
+    private static final String GROUP_COMMIT_ENABLED_PROP = "system.payments.groupCommit.enabled";
+    private static final String GROUP_COMMIT_MAX_BATCH_SIZE_PROP = "system.payments.groupCommit.maxBatchSize";
+    private static final String GROUP_COMMIT_MAX_DELAY_MS_PROP = "system.payments.groupCommit.maxDelayMillis";
+    private static final boolean DEFAULT_GROUP_COMMIT_ENABLED = false;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE = 32;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_DELAY_MS = 5;
+    private static final String GROUP_COMMIT_RESULT_TIMEOUT_MS_PROP = "system.payments.groupCommit.resultTimeoutMillis";
+    private static final int DEFAULT_GROUP_COMMIT_RESULT_TIMEOUT_MS = 10000;
+    private static final String STORED_PROCEDURE_ENABLED_PROP = "system.payments.storedProcedure.enabled";
+    private static final boolean DEFAULT_STORED_PROCEDURE_ENABLED = false;
+    // SQLSTATE values signalled by the MAKE_PAYMENT stored procedure
+    private static final String PROCEDURE_BAD_PARAM_SQLSTATE = "45001";
+    private static final String PROCEDURE_FORBIDDEN_STATUS_SQLSTATE = "45002";
+    private static final String RETRY_MAX_ATTEMPTS_PROP = "system.payments.retry.maxAttempts";
+    private static final String RETRY_BASE_DELAY_MS_PROP = "system.payments.retry.baseDelayMillis";
+    private static final String RETRY_MAX_DELAY_MS_PROP = "system.payments.retry.maxDelayMillis";
+    private static final String RETRY_BUDGET_PERCENT_PROP = "system.payments.retry.budgetPercent";
+    private static final int DEFAULT_RETRY_MAX_ATTEMPTS = 5;
+    private static final int DEFAULT_RETRY_BASE_DELAY_MS = 5;
+    private static final int DEFAULT_RETRY_MAX_DELAY_MS = 200;
+    private static final int DEFAULT_RETRY_BUDGET_PERCENT = 20;
+    private static final String BULK_MAX_ITEMS_PROP = "system.payments.bulk.maxItems";
+    private static final int DEFAULT_BULK_MAX_ITEMS = 1000;
 
-    @Resource(lookup = "java:global/customProjectDB")
-    private DataSource dataSource;
     private BigDecimal commissionRate;
+    private long commissionRateNumerator;
+    private boolean storedProcedureEnabled;
+    private int bulkMaxItems;
+    private TransactionRetryPolicy retryPolicy;
+    private final TransactionRetryMetrics retryMetrics = new TransactionRetryMetrics();
+    // Present only in the group commit mode
+    private PaymentGroupCommitter groupCommitter;
     private final IncomeDao incomeDao;
     private final AccountDao accountDao;
     private final CardDao cardDao;
     private final PersonDao personDao;
     private final PaymentTransactionsRecorder paymentTransactionsRecorder;
     private final PropertiesKeeper propertiesKeeper;
+    private final TransactionContext transactionContext;
 
     @Inject
     public FinancialTransactionsPerformer(IncomeDao incomeDao, AccountDao accountDao, CardDao cardDao,
                                           PersonDao personDao, PaymentTransactionsRecorder paymentTransactionsRecorder,
-                                          PropertiesKeeper propertiesKeeper) {
+                                          PropertiesKeeper propertiesKeeper, TransactionContext transactionContext) {
         this.incomeDao = incomeDao;
         this.accountDao = accountDao;
         this.cardDao = cardDao;
         this.personDao = personDao;
         this.paymentTransactionsRecorder = paymentTransactionsRecorder;
         this.propertiesKeeper = propertiesKeeper;
+        this.transactionContext = transactionContext;
     }
 
-    public synchronized void makePayment(BigDecimal amount, BigInteger payerId, BigInteger receiverId)
+    /**
+     * Performs a payment. A payment failed because of a deadlock or a lock wait timeout is replayed (see
+     * TransactionRetryPolicy)
+     * @throws TransactionException if the payment cannot be performed
+     */
+    public void makePayment(BigDecimal amount, Long payerId, Long receiverId)
             throws TransactionException {
+        retryPolicy.execute("Payment transaction", () -> {
+            performPayment(amount, payerId, receiverId);
+            return null;
+        });
+    }
+
+    /**
+     * Performs a bulk transfer in one transaction. Accounts of all the items are locked and read with one set-based
+     * query, then the items are checked in turn against the locked balances in memory (an accepted item changes the
+     * balances seen by the next ones). Net balance changes of the accepted items are applied with JDBC batches and all
+     * the payments (including commissions) are recorded with one batched insert. A rejected item cancels the whole
+     * transfer in the ALL_OR_NOTHING mode and is skipped in the PER_ITEM mode; a lack of funds of the system income
+     * fails the whole transfer in both modes
+     * @param transfers transfer items (not more than the system.payments.bulk.maxItems value)
+     * @param atomicity TransferAtomicity
+     * @return results of the items in the order of passed items
+     * @throws TransactionException if the transfer cannot be performed as a whole
+     */
+    public List<TransferResult> makeBulkTransfer(List<Transfer> transfers, TransferAtomicity atomicity)
+            throws TransactionException {
+        return retryPolicy.execute("Bulk transfer transaction", () -> performBulkTransfer(transfers, atomicity));
+    }
+
+    public String issueCard(Long ownerId, Long accountId, CardNetworkType cardNetworkType)
+            throws TransactionException {
+        return retryPolicy.execute("Card issue transaction", () -> performCardIssue(ownerId, accountId,
+                cardNetworkType));
+    }
+
+    public void deletePerson(Long id) throws TransactionException {
+        retryPolicy.execute("Person delete transaction", () -> {
+            performPersonDelete(id);
+            return null;
+        });
+    }
+
+    public boolean deleteAccount(Long id) throws TransactionException {
+        return retryPolicy.execute("Account delete transaction", () -> performAccountDelete(id));
+    }
+
+    private void performPayment(BigDecimal value, Long payerId, Long receiverId)
+            throws TransactionException {
+        Money amount = toMoney(value);
         if (checkPaymentParams(amount, payerId, receiverId)) {
-            amount = amount.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
-            BigDecimal commissionAmount = (payerId.equals(BigInteger.ZERO) || receiverId.equals(BigInteger.ZERO)) ?
-                    BigDecimal.ZERO : amount.multiply(commissionRate).setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
+            // payments from the system income take income slots in turn and stay on the JDBC path
+            if (storedProcedureEnabled && !payerId.equals(SYSTEM_INCOME_ID) && !transactionContext.isActive()) {
+                performStoredProcedurePayment(amount, payerId, receiverId);
+                return;
+            }
+            if (groupCommitter != null && !transactionContext.isActive()) {
+                groupCommitter.perform(amount, payerId, receiverId);
+                return;
+            }
             Connection conn = startTransaction();
             logger.log(Level.TRACE, String.format("Payment transaction started (amount: %s, payer's account: %s, " +
                     "receiver's account: %s)", amount, payerId, receiverId));
             if (conn != null) {
                 try {
-                    Optional<StatusType> receiverStatus = accountDao.getAccountStatus(receiverId);
-                    if (!receiverId.equals(SYSTEM_INCOME_ID) &&
-                            (receiverStatus.isEmpty() || receiverStatus.get().equals(StatusType.BLOCKED))
-                    ) {
-                        logger.log(Level.INFO, String.format("Payment transaction: receiver's account status is " +
-                                "'BLOCKED' or empty (id: %s)", receiverId));
-                        endTransaction(conn, false, new IllegalStateException("Receiver's status does not " +
-                                "allow to perform a payment"));
-                    }
-                    debit(conn, payerId, amount.add(commissionAmount));
-                    put(conn, receiverId, amount);
-                    paymentTransactionsRecorder.commit(conn, amount, payerId, receiverId);
-                    if (!commissionAmount.equals(BigDecimal.ZERO)) {
-                        incomeDao.increaseBalance(conn, commissionAmount);
-                        paymentTransactionsRecorder.commit(conn, commissionAmount, payerId, SYSTEM_INCOME_ID);
-                    }
+                    Map<Long, Account> accounts = lockAccounts(conn, payerId, receiverId);
+                    applyPayment(conn, accounts, amount, payerId, receiverId);
                     logger.log(Level.TRACE, String.format("Payment transaction successfully finished (amount: %s, " +
                             "payer's account: %s, receiver's account: %s)", amount, payerId, receiverId));
                     endTransaction(conn, true, null);
-                } catch (SQLException e) {
+                } catch (SQLException | PaymentParamException | IllegalStateException e) {
                     logger.log(Level.WARN, String.format("Cannot perform payment transaction: an exception was thrown" +
                             " during execution (amount: %s, payer's account: %s, receiver's account: %s)",
                             amount, payerId, receiverId), e);
                     endTransaction(conn, false, e);
+                } finally {
+                    closeTransaction(conn);
                 }
             } else {
                 logger.log(Level.WARN, String.format("Cannot perform payment transaction: passed connection is not " +
@@ -103,12 +204,124 @@ public class FinancialTransactionsPerformer {
             }
         } else {
             logger.log(Level.INFO, String.format("Payment cannot be implemented: bad parameters " +
-                    "(amount: %s, payer's account: %s, receiver's account: %s)", amount, payerId, receiverId));
+                    "(amount: %s, payer's account: %s, receiver's account: %s)", value, payerId, receiverId));
             throw new TransactionException(TransactionExceptionType.BAD_PARAM, HttpServletResponse.SC_BAD_REQUEST);
         }
     }
 
-    public synchronized String issueCard(BigInteger ownerId, BigInteger accountId, CardNetworkType cardNetworkType)
+    private List<TransferResult> performBulkTransfer(List<Transfer> transfers, TransferAtomicity atomicity)
+            throws TransactionException {
+        if (transfers == null || transfers.isEmpty() || transfers.size() > bulkMaxItems || atomicity == null) {
+            logger.log(Level.INFO, String.format("Bulk transfer cannot be implemented: bad parameters (items: %s, " +
+                    "max items: %d, atomicity: %s)", (transfers != null) ? transfers.size() : null, bulkMaxItems,
+                    atomicity));
+            throw new TransactionException(TransactionExceptionType.BAD_PARAM, HttpServletResponse.SC_BAD_REQUEST,
+                    String.format("A bulk transfer must contain from 1 to %d items", bulkMaxItems));
+        }
+        TransactionExceptionType[] rejections = new TransactionExceptionType[transfers.size()];
+        Money[] amounts = new Money[transfers.size()];
+        for (int i = 0; i < transfers.size(); i++) {
+            Transfer transfer = transfers.get(i);
+            amounts[i] = (transfer != null) ? toMoney(transfer.getAmount()) : null;
+            if (transfer == null ||
+                    !checkPaymentParams(amounts[i], transfer.getPayerId(), transfer.getReceiverId())) {
+                rejections[i] = TransactionExceptionType.BAD_PARAM;
+            }
+        }
+        boolean allOrNothing = atomicity == TransferAtomicity.ALL_OR_NOTHING;
+        if (allOrNothing && Arrays.stream(rejections).anyMatch(Objects::nonNull)) {
+            return buildTransferResults(transfers, rejections, false);
+        }
+        Connection conn = startTransaction();
+        if (conn == null) {
+            logger.log(Level.WARN, String.format("Cannot perform bulk transfer: passed connection is not valid " +
+                    "(items: %d)", transfers.size()));
+            throw new TransactionException(TransactionExceptionType.CONNECTION,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        logger.log(Level.TRACE, String.format("Bulk transfer transaction started (items: %d, atomicity: %s)",
+                transfers.size(), atomicity));
+        try {
+            Map<Long, Account> accounts = lockAccounts(conn, IntStream.range(0, transfers.size())
+                    .filter(i -> rejections[i] == null)
+                    .mapToObj(transfers::get)
+                    .flatMap(transfer -> Stream.of(transfer.getPayerId(), transfer.getReceiverId()))
+                    .toArray(Long[]::new));
+            Map<Long, Money> balances = new HashMap<>();
+            accounts.forEach((id, account) -> balances.put(id, Money.of(account.getBalance())));
+            Map<Long, Money> balanceChanges = new TreeMap<>();
+            Money incomeChange = Money.ZERO;
+            List<Transfer> payments = new ArrayList<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                if (rejections[i] != null) {
+                    continue;
+                }
+                Transfer transfer = transfers.get(i);
+                Money amount = amounts[i];
+                Long payerId = transfer.getPayerId();
+                Long receiverId = transfer.getReceiverId();
+                Money commissionAmount = calculateCommission(amount, payerId, receiverId);
+                rejections[i] = checkTransfer(accounts, balances, transfer, amount.add(commissionAmount));
+                if (rejections[i] != null) {
+                    logger.log(Level.INFO, String.format("Item rejected within bulk transfer (%s): %s", transfer,
+                            rejections[i]));
+                    if (allOrNothing) {
+                        break;
+                    }
+                    continue;
+                }
+                if (payerId.equals(SYSTEM_INCOME_ID)) {
+                    incomeChange = incomeChange.subtract(amount);
+                } else {
+                    balances.merge(payerId, amount.add(commissionAmount).negate(), Money::add);
+                    balanceChanges.merge(payerId, amount.add(commissionAmount).negate(), Money::add);
+                }
+                if (receiverId.equals(SYSTEM_INCOME_ID)) {
+                    incomeChange = incomeChange.add(amount);
+                } else {
+                    balances.merge(receiverId, amount, Money::add);
+                    balanceChanges.merge(receiverId, amount, Money::add);
+                }
+                payments.add(new Transfer(payerId, receiverId, amount.toBigDecimal()));
+                if (commissionAmount.isPositive()) {
+                    incomeChange = incomeChange.add(commissionAmount);
+                    payments.add(new Transfer(payerId, SYSTEM_INCOME_ID, commissionAmount.toBigDecimal()));
+                }
+            }
+            if (allOrNothing && Arrays.stream(rejections).anyMatch(Objects::nonNull)) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+                logger.log(Level.INFO, String.format("Bulk transfer transaction cancelled: at least one item was " +
+                        "rejected (items: %d)", transfers.size()));
+                return buildTransferResults(transfers, rejections, false);
+            }
+            applyBalanceChanges(conn, balanceChanges, incomeChange);
+            paymentTransactionsRecorder.commitAll(conn, payments);
+            conn.commit();
+            conn.setAutoCommit(true);
+            logger.log(Level.TRACE, String.format("Bulk transfer transaction successfully finished (items: %d, " +
+                    "performed: %d)", transfers.size(), Arrays.stream(rejections).filter(Objects::isNull).count()));
+            return buildTransferResults(transfers, rejections, true);
+        } catch (SQLException | PaymentParamException e) {
+            logger.log(Level.WARN, String.format("Cannot perform bulk transfer transaction: an exception was thrown " +
+                    "during execution (items: %d)", transfers.size()), e);
+            TransactionException failure = mapFailure(e);
+            try {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            } catch (SQLException rollbackEx) {
+                logger.log(Level.ERROR, "Cannot rollback transaction properly because of throwing exception",
+                        rollbackEx);
+                failure = new TransactionException(TransactionExceptionType.ROLLBACK,
+                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rollbackEx.getMessage());
+            }
+            throw failure;
+        } finally {
+            closeTransaction(conn);
+        }
+    }
+
+    private String performCardIssue(Long ownerId, Long accountId, CardNetworkType cardNetworkType)
             throws TransactionException {
         String cvc = "";
         if (ownerId != null && accountId != null && cardNetworkType != null) {
@@ -118,7 +331,7 @@ public class FinancialTransactionsPerformer {
             if (conn != null) {
                 try {
                     Optional<Person> owner = personDao.getSinglePersonById(ownerId);
-                    Optional<Account> account = accountDao.getSingleAccountById(accountId);
+                    Optional<Account> account = accountDao.lockSingleAccountById(conn, accountId);
                     if (owner.isEmpty() || owner.get().getStatus().equals(StatusType.BLOCKED) ||
                             account.isEmpty() || account.get().getStatus().equals(StatusType.BLOCKED)) {
                         logger.log(Level.INFO, String.format("Card issue transaction cannot be implemented: customer " +
@@ -130,7 +343,7 @@ public class FinancialTransactionsPerformer {
                     Card cardDto = new Card(ownerId, accountId, cardNetworkType, StatusType.ACTIVE);
                     cvc = cardDao.addCard(conn, cardDto);
                     if (cvc != null) {
-                        BigDecimal amount = cardNetworkType.getCost();
+                        Money amount = cardNetworkType.getCost();
                         debit(conn, accountId, amount);
                         put(conn, SYSTEM_INCOME_ID, amount);
                         paymentTransactionsRecorder.commit(conn, amount, accountId, SYSTEM_INCOME_ID);
@@ -143,11 +356,13 @@ public class FinancialTransactionsPerformer {
                                 cardNetworkType));
                         endTransaction(conn, false, null);
                     }
-                } catch (SQLException e) {
+                } catch (SQLException | PaymentParamException e) {
                     logger.log(Level.WARN, String.format("Cannot perform card issue transaction: an exception was " +
                                     "thrown during execution (owner: %s, account: %s, card network: %s)",
                             ownerId, accountId, cardNetworkType), e);
                     endTransaction(conn, false, e);
+                } finally {
+                    closeTransaction(conn);
                 }
             } else {
                 logger.log(Level.WARN, String.format("Cannot perform card issue transaction: passed connection is not" +
@@ -159,7 +374,7 @@ public class FinancialTransactionsPerformer {
         return cvc;
     }
 
-    public synchronized void deletePerson(BigInteger id) throws TransactionException {
+    private void performPersonDelete(Long id) throws TransactionException {
         if (id != null) {
             Connection conn = startTransaction();
             logger.log(Level.TRACE, String.format("Person delete transaction started (id: %s)", id));
@@ -171,23 +386,27 @@ public class FinancialTransactionsPerformer {
                         endTransaction(conn, false, new IllegalArgumentException("Person with specified id is " +
                                 "not exists"));
                     }
-                    List<Account> accounts = accountDao.getAccountsByOwner(id);
-                    for (Account acc : accounts) {
-                        cardDao.deleteCardsByAccount(conn, acc.getId());
-                        if (acc.getBalance().compareTo(BigDecimal.ZERO) > 0) {
-                            accountDao.updateAccountStatus(acc.getId(), StatusType.ACTIVE);
-                            makePayment(acc.getBalance(), acc.getId(), SYSTEM_INCOME_ID);
-                        }
-                        accountDao.deleteSingleAccountById(conn, acc.getId());
+                    // set-based removal: a constant number of statements whatever the number of accounts and cards
+                    Money total = accountDao.lockAccountsByOwner(conn, id).stream()
+                            .map(account -> Money.of(account.getBalance()))
+                            .filter(Money::isPositive)
+                            .reduce(Money.ZERO, Money::add);
+                    cardDao.deleteCardsByOwner(conn, id);
+                    if (total.isPositive()) {
+                        paymentTransactionsRecorder.commitOwnerBalances(conn, id, SYSTEM_INCOME_ID);
+                        put(conn, SYSTEM_INCOME_ID, total);
                     }
+                    accountDao.deleteAccountsByOwner(conn, id);
                     personDao.deletePersonById(conn, id);
                     logger.log(Level.TRACE, String.format("Person delete transaction successfully finished (id: %s)",
                             id));
                     endTransaction(conn, true, null);
-                } catch (SQLException e) {
+                } catch (SQLException | PaymentParamException e) {
                     logger.log(Level.WARN, String.format("Cannot perform person delete transaction: an exception was " +
                             "thrown during execution (id: %s)", id), e);
                     endTransaction(conn, false, e);
+                } finally {
+                    closeTransaction(conn);
                 }
             } else {
                 logger.log(Level.WARN, String.format("Cannot perform person delete transaction: passed connection is " +
@@ -203,32 +422,32 @@ public class FinancialTransactionsPerformer {
         }
     }
 
-    public synchronized boolean deleteAccount(BigInteger id) throws TransactionException {
+    private boolean performAccountDelete(Long id) throws TransactionException {
         if (id != null) {
             Connection conn = startTransaction();
             logger.log(Level.TRACE, String.format("Account delete transaction started (id: %s)", id));
             if (conn != null) {
                 try {
-                    if (accountDao.getSingleAccountById(id).isEmpty()) {
+                    Optional<Account> account = accountDao.lockSingleAccountById(conn, id);
+                    if (account.isEmpty()) {
                         logger.log(Level.INFO, String.format("Account delete transaction cannot be implemented: " +
                                 "cannot find account (id: %s)", id));
                         endTransaction(conn, false, new IllegalArgumentException("Account with specified id " +
                                 "is not exists"));
                     }
                     cardDao.deleteCardsByAccount(conn, id);
-                    Optional<BigDecimal> balance = accountDao.getBalance(id);
-                    if (balance.isPresent() && balance.get().compareTo(BigDecimal.ZERO) > 0) {
-                        makePayment(balance.get(), id, SYSTEM_INCOME_ID);
-                    }
-                    accountDao.deleteSingleAccountById(conn, id);
+                    sweepToIncome(conn, id, Money.of(account.get().getBalance()));
+                    boolean deleted = accountDao.deleteSingleAccountById(conn, id);
                     logger.log(Level.TRACE, String.format("Account delete transaction successfully finished (id: %s)",
                             id));
                     endTransaction(conn, true, null);
-                    return accountDao.getSingleAccountById(id).isEmpty();
-                } catch (SQLException e) {
+                    return deleted;
+                } catch (SQLException | PaymentParamException e) {
                     logger.log(Level.WARN, String.format("Cannot perform account delete transaction: an exception was" +
                             " thrown during execution (id: %s)", id), e);
                     endTransaction(conn, false, e);
+                } finally {
+                    closeTransaction(conn);
                 }
             } else {
                 logger.log(Level.WARN, String.format("Cannot perform account delete transaction: passed connection is" +
@@ -247,11 +466,8 @@ public class FinancialTransactionsPerformer {
 
     private Connection startTransaction()  {
         try {
-            Connection conn = dataSource.getConnection();
-            conn.setAutoCommit(false);
-            conn.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
-            return conn;
-        } catch (SQLException e) {
+            return transactionContext.begin(Connection.TRANSACTION_READ_COMMITTED);
+        } catch (SQLException | IllegalStateException e) {
             logger.log(Level.WARN, "Cannot create connection for transaction", e);
             return null;
         }
@@ -268,47 +484,279 @@ public class FinancialTransactionsPerformer {
             try {
                 conn.commit();
                 conn.setAutoCommit(true);
+                return;
             } catch (SQLException commitEx) {
-                success = false;
                 logger.log(Level.WARN, "Cannot end transaction properly because of throwing exception " +
                         "during commit", commitEx);
             }
         }
-        // Rollback and close-connection section
+        // Rollback section (the connection is closed by closeTransaction() in a finally block of the caller)
         try {
-            if (!success) {
-                conn.rollback();
-                logger.log(Level.WARN, "Rollback transaction");
-                if (throwable instanceof SQLException &&
-                        ((SQLException) throwable).getErrorCode() == MYSQL_CONSTRAINT_VIOLATED_ERROR) {
-                    throw new TransactionException(TransactionExceptionType.LOW_BALANCE,
-                            HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
-                } else if (throwable instanceof IllegalStateException) {
-                    throw new TransactionException(TransactionExceptionType.FORBIDDEN_STATUS,
-                            HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
-                } else if (throwable != null) {
-                    throw new TransactionException(TransactionExceptionType.PERFORM,
-                            HttpServletResponse.SC_INTERNAL_SERVER_ERROR, throwable.getMessage());
-                } else {
-                    throw new TransactionException(TransactionExceptionType.PERFORM,
-                            HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                }
-            }
+            conn.rollback();
+            conn.setAutoCommit(true);
+            logger.log(Level.WARN, "Rollback transaction");
         } catch (SQLException rollbackEx) {
             logger.log(Level.ERROR, "Cannot rollback transaction properly because of throwing exception", rollbackEx);
             throw new TransactionException(TransactionExceptionType.ROLLBACK,
                     HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rollbackEx.getMessage());
-        } finally {
+        }
+        throw mapFailure(throwable);
+    }
+
+    /**
+     * Unbinds a transaction connection from the current thread, rolls back a transaction left open and closes the
+     * connection. Called in finally blocks, so a runtime exception thrown within a transaction cannot leave the thread
+     * bound to the transaction
+     */
+    private void closeTransaction(Connection conn) {
+        try {
+            transactionContext.end(conn);
+        } catch (SQLException closeEx) {
+            logger.log(Level.ERROR, "Cannot close connection properly because of throwing exception", closeEx);
+        }
+    }
+
+    /**
+     * Performs a payment with the MAKE_PAYMENT stored procedure: the database server locks and checks the accounts,
+     * changes the balances, charges the commission and records the payments in one round trip and one transaction
+     */
+    private void performStoredProcedurePayment(Money amount, Long payerId, Long receiverId)
+            throws TransactionException {
+        logger.log(Level.TRACE, String.format("Stored procedure payment started (amount: %s, payer's account: %s, " +
+                "receiver's account: %s)", amount, payerId, receiverId));
+        try (Connection conn = transactionContext.getConnection()) {
+            paymentTransactionsRecorder.performPayment(conn, amount, payerId, receiverId, commissionRate);
+            logger.log(Level.TRACE, String.format("Stored procedure payment successfully finished (amount: %s, " +
+                    "payer's account: %s, receiver's account: %s)", amount, payerId, receiverId));
+        } catch (SQLException e) {
+            logger.log(Level.WARN, String.format("Cannot perform stored procedure payment: an exception was thrown " +
+                    "during execution (amount: %s, payer's account: %s, receiver's account: %s)", amount, payerId,
+                    receiverId), e);
+            throw mapFailure(e);
+        }
+    }
+
+    private TransactionException mapFailure(Throwable throwable) {
+        if (throwable instanceof PaymentParamException || (throwable instanceof SQLException &&
+                PROCEDURE_BAD_PARAM_SQLSTATE.equals(((SQLException) throwable).getSQLState()))) {
+            return new TransactionException(TransactionExceptionType.BAD_PARAM,
+                    HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
+        } else if (throwable instanceof SQLException &&
+                PROCEDURE_FORBIDDEN_STATUS_SQLSTATE.equals(((SQLException) throwable).getSQLState())) {
+            return new TransactionException(TransactionExceptionType.FORBIDDEN_STATUS,
+                    HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
+        } else if (throwable instanceof SQLException && TransactionRetryPolicy.isTransient((SQLException) throwable)) {
+            return new TransactionException(TransactionExceptionType.CONFLICT,
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE, throwable.getMessage(), throwable);
+        } else if (throwable instanceof SQLException &&
+                ((SQLException) throwable).getErrorCode() == MYSQL_CONSTRAINT_VIOLATED_ERROR) {
+            return new TransactionException(TransactionExceptionType.LOW_BALANCE,
+                    HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
+        } else if (throwable instanceof IllegalStateException) {
+            return new TransactionException(TransactionExceptionType.FORBIDDEN_STATUS,
+                    HttpServletResponse.SC_BAD_REQUEST, throwable.getMessage());
+        } else if (throwable != null) {
+            return new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR, throwable.getMessage());
+        } else {
+            return new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Applies a batch of payments collected by the group committer in one transaction. Accounts of the whole batch are
+     * locked at once in ascending id order; every payment runs within its own savepoint, so a rejected payment is rolled
+     * back alone and the others are committed together
+     */
+    private void performPaymentBatch(List<PaymentGroupCommitter.PaymentRequest> batch) {
+        Connection conn = startTransaction();
+        if (conn == null) {
+            logger.log(Level.WARN, String.format("Cannot perform payment batch: passed connection is not valid " +
+                    "(payments: %d)", batch.size()));
+            batch.forEach(request -> request.fail(new TransactionException(TransactionExceptionType.CONNECTION,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR)));
+            return;
+        }
+        logger.log(Level.TRACE, String.format("Payment batch transaction started (payments: %d)", batch.size()));
+        List<PaymentGroupCommitter.PaymentRequest> applied = new ArrayList<>(batch.size());
+        try {
+            Map<Long, Account> accounts = lockAccounts(conn, batch.stream()
+                    .flatMap(request -> Stream.of(request.getPayerId(), request.getReceiverId()))
+                    .toArray(Long[]::new));
+            for (PaymentGroupCommitter.PaymentRequest request : batch) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    applyPayment(conn, accounts, request.getAmount(), request.getPayerId(), request.getReceiverId());
+                    conn.releaseSavepoint(savepoint);
+                    applied.add(request);
+                } catch (SQLException | PaymentParamException | IllegalStateException e) {
+                    if (e instanceof SQLException && TransactionRetryPolicy.isTransient((SQLException) e)) {
+                        // a deadlock rolls back the whole transaction, the savepoint is lost with it
+                        throw (SQLException) e;
+                    }
+                    logger.log(Level.INFO, String.format("Payment rejected within batch (amount: %s, payer's " +
+                            "account: %s, receiver's account: %s): %s", request.getAmount(), request.getPayerId(),
+                            request.getReceiverId(), e.getMessage()));
+                    conn.rollback(savepoint);
+                    request.fail(mapFailure(e));
+                }
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            applied.forEach(PaymentGroupCommitter.PaymentRequest::succeed);
+            logger.log(Level.TRACE, String.format("Payment batch transaction successfully finished (payments: %d, " +
+                    "committed: %d)", batch.size(), applied.size()));
+        } catch (SQLException e) {
+            logger.log(Level.WARN, String.format("Cannot perform payment batch transaction: an exception was thrown " +
+                    "during execution (payments: %d)", batch.size()), e);
+            TransactionException failure = mapFailure(e);
             try {
+                conn.rollback();
                 conn.setAutoCommit(true);
-                conn.close();
-            } catch (SQLException closeEx) {
-                logger.log(Level.ERROR, "Cannot close connection properly because of throwing exception", closeEx);
+            } catch (SQLException rollbackEx) {
+                logger.log(Level.ERROR, "Cannot rollback transaction properly because of throwing exception",
+                        rollbackEx);
+                failure = new TransactionException(TransactionExceptionType.ROLLBACK,
+                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rollbackEx.getMessage());
+            }
+            // payments rejected before keep their own results
+            for (PaymentGroupCommitter.PaymentRequest request : batch) {
+                request.fail(failure);
             }
+        } finally {
+            closeTransaction(conn);
         }
     }
 
-    private synchronized void debit(Connection conn, BigInteger payerId, BigDecimal amount) throws SQLException {
+    /**
+     * Moves an amount (and a commission if neither party is the system income) between locked accounts
+     * @param conn a connection of the transaction
+     * @param accounts accounts locked by the transaction
+     * @throws PaymentParamException if the payer's or the receiver's account does not exist
+     * @throws IllegalStateException if the receiver's account is blocked
+     * @throws SQLException
+     */
+    private void applyPayment(Connection conn, Map<Long, Account> accounts, Money amount,
+                              Long payerId, Long receiverId) throws SQLException {
+        Account receiver = accounts.get(receiverId);
+        if ((!payerId.equals(SYSTEM_INCOME_ID) && !accounts.containsKey(payerId)) ||
+                (!receiverId.equals(SYSTEM_INCOME_ID) && receiver == null)) {
+            logger.log(Level.INFO, String.format("Payment transaction: payer's or receiver's account not found " +
+                    "(payer's account: %s, receiver's account: %s)", payerId, receiverId));
+            throw new PaymentParamException("Payer's or receiver's account not found");
+        }
+        if (!receiverId.equals(SYSTEM_INCOME_ID) && receiver.getStatus().equals(StatusType.BLOCKED)) {
+            logger.log(Level.INFO, String.format("Payment transaction: receiver's account status is 'BLOCKED' " +
+                    "(id: %s)", receiverId));
+            throw new IllegalStateException("Receiver's status does not allow to perform a payment");
+        }
+        Money commissionAmount = calculateCommission(amount, payerId, receiverId);
+        debit(conn, payerId, amount.add(commissionAmount));
+        put(conn, receiverId, amount);
+        paymentTransactionsRecorder.commit(conn, amount, payerId, receiverId);
+        if (commissionAmount.isPositive()) {
+            incomeDao.increaseBalance(conn, commissionAmount);
+            paymentTransactionsRecorder.commit(conn, commissionAmount, payerId, SYSTEM_INCOME_ID);
+        }
+    }
+
+    private Money calculateCommission(Money amount, Long payerId, Long receiverId) {
+        return (payerId.equals(SYSTEM_INCOME_ID) || receiverId.equals(SYSTEM_INCOME_ID)) ?
+                Money.ZERO : amount.multiplyHalfUp(commissionRateNumerator, COMMISSION_RATE_DENOMINATOR);
+    }
+
+    /**
+     * Checks a bulk transfer item against the locked accounts and their balances changed by the preceding items
+     * @param charge the amount debited from the payer (the item amount and the commission)
+     * @return a reason of rejection or null if the item can be performed
+     */
+    private TransactionExceptionType checkTransfer(Map<Long, Account> accounts,
+                                                   Map<Long, Money> balances, Transfer transfer,
+                                                   Money charge) {
+        Long payerId = transfer.getPayerId();
+        Long receiverId = transfer.getReceiverId();
+        if ((!payerId.equals(SYSTEM_INCOME_ID) && !accounts.containsKey(payerId)) ||
+                (!receiverId.equals(SYSTEM_INCOME_ID) && !accounts.containsKey(receiverId))) {
+            return TransactionExceptionType.BAD_PARAM;
+        }
+        if (!receiverId.equals(SYSTEM_INCOME_ID) && accounts.get(receiverId).getStatus().equals(StatusType.BLOCKED)) {
+            return TransactionExceptionType.FORBIDDEN_STATUS;
+        }
+        if (!payerId.equals(SYSTEM_INCOME_ID) && balances.get(payerId).compareTo(charge) < 0) {
+            return TransactionExceptionType.LOW_BALANCE;
+        }
+        return null;
+    }
+
+    /**
+     * Applies net balance changes of a bulk transfer: decreases and increases of account balances are sent as two JDBC
+     * batches, the system income balance is changed last
+     * @throws SQLException
+     */
+    private void applyBalanceChanges(Connection conn, Map<Long, Money> balanceChanges,
+                                     Money incomeChange) throws SQLException {
+        Map<Long, Money> decreases = new TreeMap<>();
+        Map<Long, Money> increases = new TreeMap<>();
+        balanceChanges.forEach((id, change) -> {
+            if (change.signum() < 0) {
+                decreases.put(id, change.negate());
+            } else if (change.signum() > 0) {
+                increases.put(id, change);
+            }
+        });
+        if (!accountDao.decreaseBalances(conn, decreases) || !accountDao.increaseBalances(conn, increases)) {
+            throw new SQLException("Cannot change balances of locked accounts");
+        }
+        if (incomeChange.signum() > 0) {
+            incomeDao.increaseBalance(conn, incomeChange);
+        } else if (incomeChange.signum() < 0) {
+            incomeDao.decreaseBalance(conn, incomeChange.negate());
+        }
+    }
+
+    private List<TransferResult> buildTransferResults(List<Transfer> transfers, TransactionExceptionType[] rejections,
+                                                      boolean performed) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            results.add(new TransferResult(transfers.get(i), performed && rejections[i] == null, rejections[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Locks accounts participating in a transaction in ascending id order with one set-based query and reads their
+     * current state. The system income id is skipped: an income slot is locked by its update at the end of the
+     * transaction
+     * @param conn a connection of the transaction
+     * @param ids account ids (duplicates are allowed)
+     * @return locked accounts mapped by id in ascending id order (an account that does not exist is absent from the
+     * map)
+     * @throws SQLException
+     */
+    private Map<Long, Account> lockAccounts(Connection conn, Long... ids) throws SQLException {
+        Map<Long, Account> accounts = new LinkedHashMap<>();
+        List<Long> accountIds = Stream.of(ids)
+                .filter(id -> !id.equals(SYSTEM_INCOME_ID))
+                .collect(Collectors.toList());
+        for (Account account : accountDao.lockAccountsByIds(conn, accountIds)) {
+            accounts.put(account.getId(), account);
+        }
+        return accounts;
+    }
+
+    /**
+     * Moves the balance of an account being deleted to the system income. The account balance is not decreased: the
+     * account row is deleted in the same transaction
+     */
+    private void sweepToIncome(Connection conn, Long accountId, Money balance) throws SQLException {
+        if (balance != null && balance.isPositive()) {
+            put(conn, SYSTEM_INCOME_ID, balance);
+            paymentTransactionsRecorder.commit(conn, balance, accountId, SYSTEM_INCOME_ID);
+        }
+    }
+
+    private void debit(Connection conn, Long payerId, Money amount) throws SQLException {
         if (payerId.equals(SYSTEM_INCOME_ID)) {
             incomeDao.decreaseBalance(conn, amount);
         } else {
@@ -316,7 +764,7 @@ public class FinancialTransactionsPerformer {
         }
     }
 
-    private synchronized void put(Connection conn, BigInteger receiverId, BigDecimal amount) throws SQLException {
+    private void put(Connection conn, Long receiverId, Money amount) throws SQLException {
         if (receiverId.equals(SYSTEM_INCOME_ID)) {
             incomeDao.increaseBalance(conn, amount);
         } else {
@@ -324,28 +772,26 @@ public class FinancialTransactionsPerformer {
         }
     }
 
-    private boolean checkPaymentParams(BigDecimal amount, BigInteger payerId, BigInteger receiverId) {
+    /**
+     * Converts a passed amount to Money once at the entry of a transaction
+     * @return an amount rounded to cents or null if the amount is null or too large
+     */
+    private Money toMoney(BigDecimal amount) {
+        try {
+            return (amount != null) ? Money.of(amount) : null;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private boolean checkPaymentParams(Money amount, Long payerId, Long receiverId) {
         if (
-                amount.compareTo(BigDecimal.ZERO) > 0 &&
+                amount != null && amount.isPositive() &&
                 payerId != null && receiverId != null &&
-                payerId.compareTo(BigInteger.ZERO) >= 0 &&
-                receiverId.compareTo(BigInteger.ZERO) >= 0 &&
+                payerId >= 0 &&
+                receiverId >= 0 &&
                 !payerId.equals(receiverId)
         ) {
-            try {
-                if (
-                        (!payerId.equals(SYSTEM_INCOME_ID) && accountDao.getSingleAccountById(payerId).isEmpty()) ||
-                        (!receiverId.equals(SYSTEM_INCOME_ID) && accountDao.getSingleAccountById(receiverId).isEmpty())
-                ) {
-                    logger.log(Level.INFO, "Incorrect payment parameters passed: payer's or receiver's " +
-                            "account not found");
-                    return false;
-                }
-            } catch (SQLException e) {
-                logger.log(Level.WARN, "Cannot check payment parameters: an exception was thrown during " +
-                        "payer's and receiver's accounts checking", e);
-                return false;
-            }
             return true;
         }
         logger.log(Level.INFO, "Incorrect payment parameters passed");
@@ -357,6 +803,60 @@ public class FinancialTransactionsPerformer {
         commissionRate = propertiesKeeper
                 .getBigDecimal(COMMISSION_RATE_PROP)
                 .setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
+        commissionRateNumerator = commissionRate.unscaledValue().longValueExact();
+        bulkMaxItems = propertiesKeeper.getIntOrDefault(BULK_MAX_ITEMS_PROP, DEFAULT_BULK_MAX_ITEMS);
+        retryPolicy = new TransactionRetryPolicy(retryMetrics,
+                propertiesKeeper.getIntOrDefault(RETRY_MAX_ATTEMPTS_PROP, DEFAULT_RETRY_MAX_ATTEMPTS),
+                propertiesKeeper.getIntOrDefault(RETRY_BASE_DELAY_MS_PROP, DEFAULT_RETRY_BASE_DELAY_MS),
+                propertiesKeeper.getIntOrDefault(RETRY_MAX_DELAY_MS_PROP, DEFAULT_RETRY_MAX_DELAY_MS),
+                propertiesKeeper.getIntOrDefault(RETRY_BUDGET_PERCENT_PROP, DEFAULT_RETRY_BUDGET_PERCENT));
+        registerRetryMetrics();
+        storedProcedureEnabled = propertiesKeeper.getBooleanOrDefault(STORED_PROCEDURE_ENABLED_PROP,
+                DEFAULT_STORED_PROCEDURE_ENABLED);
+        if (storedProcedureEnabled) {
+            logger.log(Level.INFO, "Payments are performed by the MAKE_PAYMENT stored procedure");
+        }
+        if (propertiesKeeper.getBooleanOrDefault(GROUP_COMMIT_ENABLED_PROP, DEFAULT_GROUP_COMMIT_ENABLED)) {
+            groupCommitter = new PaymentGroupCommitter(this::performPaymentBatch,
+                    propertiesKeeper.getIntOrDefault(GROUP_COMMIT_MAX_BATCH_SIZE_PROP,
+                            DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE),
+                    propertiesKeeper.getIntOrDefault(GROUP_COMMIT_MAX_DELAY_MS_PROP, DEFAULT_GROUP_COMMIT_MAX_DELAY_MS),
+                    propertiesKeeper.getIntOrDefault(GROUP_COMMIT_RESULT_TIMEOUT_MS_PROP,
+                            DEFAULT_GROUP_COMMIT_RESULT_TIMEOUT_MS));
+            groupCommitter.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (groupCommitter != null) {
+            groupCommitter.stop();
+        }
+        unregisterRetryMetrics();
+    }
+
+    private void registerRetryMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(TransactionRetryMetrics.OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(retryMetrics, objectName);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARN, "Cannot register transaction retry metrics MBean", e);
+        }
+    }
+
+    private void unregisterRetryMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(TransactionRetryMetrics.OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARN, "Cannot unregister transaction retry metrics MBean", e);
+        }
     }
 
 }
@@ -0,0 +1,133 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.model.dto.Money;
+import com.epam.upskillproject.model.dto.StatusType;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typed setters of prepared statement parameters. A binder both checks a parameter value and binds it with the setter
+ * of its type, so a statement is bound by a loop over binders resolved once for its query (see QueryExecutor)
+ */
+enum ParameterBinder {
+
+    STRING(String.class) {
+        @Override
+        boolean isValid(Object value) {
+            return ((String) value).trim().length() > 0;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setString(index, (String) value);
+        }
+    },
+    INTEGER(Integer.class) {
+        @Override
+        boolean isValid(Object value) {
+            return (Integer) value >= 0;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setInt(index, (Integer) value);
+        }
+    },
+    LONG(Long.class) {
+        @Override
+        boolean isValid(Object value) {
+            return (Long) value >= 0;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setLong(index, (Long) value);
+        }
+    },
+    BIG_DECIMAL(BigDecimal.class) {
+        @Override
+        boolean isValid(Object value) {
+            return ((BigDecimal) value).signum() >= 0;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setBigDecimal(index, (BigDecimal) value);
+        }
+    },
+    MONEY(Money.class) {
+        @Override
+        boolean isValid(Object value) {
+            return ((Money) value).signum() >= 0;
+        }
+
+        // bound as cents, queries scale the parameter (?/100)
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setLong(index, ((Money) value).getCents());
+        }
+    },
+    STATUS_TYPE(StatusType.class) {
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setInt(index, ((StatusType) value).getId());
+        }
+    },
+    TIMESTAMP(Timestamp.class) {
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setTimestamp(index, (Timestamp) value);
+        }
+    },
+    DATE(Date.class) {
+        @Override
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            statement.setDate(index, (Date) value);
+        }
+    };
+
+    private static final Map<Class<?>, ParameterBinder> binders = new ConcurrentHashMap<>();
+
+    private final Class<?> type;
+
+    ParameterBinder(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * @param value a non-null value of the binder type
+     * @return true if the value may be passed to a query
+     */
+    boolean isValid(Object value) {
+        return true;
+    }
+
+    abstract void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+
+    boolean accepts(Object value) {
+        return type.isInstance(value);
+    }
+
+    /**
+     * @param type a class of a parameter value
+     * @return a binder of the type or null if parameters of the type are not supported
+     */
+    static ParameterBinder of(Class<?> type) {
+        ParameterBinder binder = binders.get(type);
+        if (binder == null) {
+            for (ParameterBinder candidate : values()) {
+                if (candidate.type.isAssignableFrom(type)) {
+                    binder = candidate;
+                    binders.put(type, binder);
+                    break;
+                }
+            }
+        }
+        return binder;
+    }
+}
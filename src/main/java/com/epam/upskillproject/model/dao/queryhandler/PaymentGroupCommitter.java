@@ -0,0 +1,208 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.exception.TransactionException;
+import com.epam.upskillproject.exception.TransactionExceptionType;
+import com.epam.upskillproject.model.dto.Money;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Group commit of payments. Payment requests of concurrent callers are queued and a single worker thread collects them
+ * into batches (until the batch is full or the oldest request has waited for the maximum delay) and passes every
+ * batch to the batch performer, which applies all the payments of the batch in one database transaction. Callers
+ * block until the batch with their payment is committed and get an individual result, but not longer than the result
+ * timeout: a caller which has not got its result in time fails its payment and restarts the worker if it has died
+ */
+class PaymentGroupCommitter {
+
+    private static final Logger logger = LogManager.getLogger(PaymentGroupCommitter.class.getName());
+
+    private static final String WORKER_THREAD_NAME = "payments-group-commit";
+
+    private final BlockingQueue<PaymentRequest> queue = new LinkedBlockingQueue<>();
+    private final Consumer<List<PaymentRequest>> batchPerformer;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long resultTimeoutNanos;
+    private volatile Thread worker;
+    private volatile boolean active = true;
+
+    /**
+     * @param batchPerformer applies a batch of payments and completes the result of every request of the batch
+     * @param maxBatchSize the maximum number of payments committed at once
+     * @param maxDelayMillis the maximum time a payment waits for other payments to join its batch
+     * @param resultTimeoutMillis the maximum time a caller waits for the result of its payment
+     */
+    PaymentGroupCommitter(Consumer<List<PaymentRequest>> batchPerformer, int maxBatchSize, long maxDelayMillis,
+                          long resultTimeoutMillis) {
+        this.batchPerformer = batchPerformer;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxDelayMillis, 0));
+        this.resultTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(resultTimeoutMillis, 1));
+        this.worker = createWorker();
+    }
+
+    void start() {
+        worker.start();
+        logger.log(Level.INFO, String.format("Payment group commit started (max batch size: %d, max delay: %d ms, " +
+                "result timeout: %d ms)", maxBatchSize, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos),
+                TimeUnit.NANOSECONDS.toMillis(resultTimeoutNanos)));
+    }
+
+    private Thread createWorker() {
+        Thread thread = new Thread(this::collectBatches, WORKER_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Starts a new worker if the current one has died (e.g. because of an Error thrown by the batch performer).
+     * Requests of the batch performed by the dead worker are failed by the result timeout of their callers
+     */
+    private synchronized void checkWorker() {
+        if (active && !worker.isAlive()) {
+            logger.log(Level.ERROR, "Payment group commit worker is not alive, starting a new one");
+            worker = createWorker();
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops the worker. Payments of the batch being performed are finished, queued payments are failed
+     */
+    void stop() {
+        active = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PaymentRequest> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(request -> request.fail(new TransactionException(TransactionExceptionType.PERFORM,
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Payment service is shutting down")));
+    }
+
+    /**
+     * Queues a payment and waits until it is committed or rejected
+     * @throws TransactionException if the payment is rejected or cannot be performed
+     */
+    void perform(Money amount, Long payerId, Long receiverId) throws TransactionException {
+        if (!active) {
+            throw new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Payment service is shutting down");
+        }
+        checkWorker();
+        PaymentRequest request = new PaymentRequest(amount, payerId, receiverId);
+        queue.add(request);
+        try {
+            request.result.get(resultTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            checkWorker();
+            if (queue.remove(request)) {
+                // the payment was not taken by the worker, so it will never be performed
+                logger.log(Level.ERROR, String.format("Payment was not taken by group commit worker within %d ms " +
+                        "(worker state: %s)", TimeUnit.NANOSECONDS.toMillis(resultTimeoutNanos), worker.getState()));
+                throw new TransactionException(TransactionExceptionType.CONNECTION,
+                        HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Payment was not performed in time");
+            }
+            logger.log(Level.ERROR, String.format("Payment batch was not finished within %d ms, the payment result " +
+                    "is unknown (amount: %s, payer's account: %s, receiver's account: %s, worker state: %s)",
+                    TimeUnit.NANOSECONDS.toMillis(resultTimeoutNanos), amount, payerId, receiverId,
+                    worker.getState()));
+            throw new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Payment result was not obtained in time");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TransactionException) {
+                throw (TransactionException) e.getCause();
+            }
+            throw new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getCause());
+        } catch (InterruptedException e) {
+            // the payment may still be committed by the worker, the caller only stops waiting for its result
+            Thread.currentThread().interrupt();
+            throw new TransactionException(TransactionExceptionType.PERFORM,
+                    HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Interrupted while waiting for payment result");
+        }
+    }
+
+    private void collectBatches() {
+        while (active) {
+            List<PaymentRequest> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PaymentRequest next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            try {
+                batchPerformer.accept(batch);
+            } catch (RuntimeException e) {
+                logger.log(Level.ERROR, "Unexpected exception thrown during payment batch performing", e);
+                batch.forEach(request -> request.fail(new TransactionException(TransactionExceptionType.PERFORM,
+                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e)));
+            }
+        }
+    }
+
+    /**
+     * A queued payment and its result
+     */
+    static class PaymentRequest {
+
+        private final Money amount;
+        private final Long payerId;
+        private final Long receiverId;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PaymentRequest(Money amount, Long payerId, Long receiverId) {
+            this.amount = amount;
+            this.payerId = payerId;
+            this.receiverId = receiverId;
+        }
+
+        Money getAmount() {
+            return amount;
+        }
+
+        Long getPayerId() {
+            return payerId;
+        }
+
+        Long getReceiverId() {
+            return receiverId;
+        }
+
+        void succeed() {
+            result.complete(null);
+        }
+
+        /**
+         * Completes the request exceptionally unless it is already completed
+         */
+        void fail(TransactionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
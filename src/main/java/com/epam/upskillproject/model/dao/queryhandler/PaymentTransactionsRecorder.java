@@ -1,18 +1,23 @@
 package com.epam.upskillproject.model.dao.queryhandler;
 
+import com.epam.upskillproject.model.dto.Money;
+import com.epam.upskillproject.model.dto.Transfer;
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.sql.*;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Singleton
+@Lock(LockType.READ)
 public class PaymentTransactionsRecorder {
-    private static final int DEFAULT_SCALE = 2;
-    private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
     private static final String COMMIT_TRANSACTION_PROP = "query.transact.commit";
+    private static final String COMMIT_OWNER_BALANCES_PROP = "query.transact.commitOwnerBalances";
+    private static final String MAKE_PAYMENT_PROP = "query.transact.makePayment";
 
     private final PropertiesKeeper propertiesKeeper;
     private final QueryExecutor queryExecutor;
@@ -23,10 +28,9 @@ public class PaymentTransactionsRecorder {
         this.queryExecutor = queryExecutor;
     }
 
-    public void commit(Connection conn, BigDecimal amount, BigInteger payerId, BigInteger receiverId)
+    public void commit(Connection conn, Money amount, Long payerId, Long receiverId)
             throws SQLException {
         if (amount != null) {
-            amount = amount.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
             String query = propertiesKeeper.getString(COMMIT_TRANSACTION_PROP);
             Timestamp now = new Timestamp(System.currentTimeMillis());
             queryExecutor.executeUpdate(conn, query, amount, payerId, receiverId, now);
@@ -34,4 +38,59 @@ public class PaymentTransactionsRecorder {
             throw new SQLException("Cannot commit payment info: bad parameter (amount is null)");
         }
     }
+
+    /**
+     * Records payments of the whole positive balances of all accounts of an owner to a receiver with one
+     * INSERT ... SELECT statement. Balances are not changed, the accounts must be locked by the transaction
+     * @param conn a connection of the transaction
+     * @param ownerId an owner of payer accounts
+     * @param receiverId a receiver of the payments
+     * @return the number of recorded payments
+     * @throws SQLException
+     */
+    public int commitOwnerBalances(Connection conn, Long ownerId, Long receiverId) throws SQLException {
+        String query = propertiesKeeper.getString(COMMIT_OWNER_BALANCES_PROP);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return queryExecutor.executeUpdate(conn, query, receiverId, now, ownerId);
+    }
+
+    /**
+     * Performs a whole payment (locks and checks of the accounts, balance changes, the commission and payment records)
+     * with the MAKE_PAYMENT stored procedure in one round trip. The procedure runs its own transaction, so the passed
+     * connection must be in auto-commit mode and must not take part in another transaction
+     * @param conn a valid java.sql.Connection
+     * @param commissionRate a commission rate (the commission is not charged if the receiver is the system income)
+     * @throws SQLException with SQLSTATE 45001 if an account is not found, 45002 if the receiver's account is blocked or
+     * with the check constraint violation code if the payer's balance is too low
+     */
+    public void performPayment(Connection conn, Money amount, Long payerId, Long receiverId,
+                               BigDecimal commissionRate) throws SQLException {
+        if (amount != null && commissionRate != null) {
+            String query = propertiesKeeper.getString(MAKE_PAYMENT_PROP);
+            queryExecutor.executeUpdate(conn, query, amount, payerId, receiverId, commissionRate);
+        } else {
+            throw new SQLException("Cannot perform payment: bad parameter (amount or commission rate is null)");
+        }
+    }
+
+    /**
+     * Records payments with one batched insert. All the payments get the same date
+     * @param conn a connection of the transaction
+     * @param payments performed payments
+     * @throws SQLException
+     */
+    public void commitAll(Connection conn, List<Transfer> payments) throws SQLException {
+        if (payments == null || payments.stream().anyMatch(payment -> payment == null || payment.getAmount() == null)) {
+            throw new SQLException("Cannot commit payments info: bad parameter (payment or amount is null)");
+        }
+        if (!payments.isEmpty()) {
+            String query = propertiesKeeper.getString(COMMIT_TRANSACTION_PROP);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<Object[]> paramsList = payments.stream()
+                    .map(payment -> new Object[]{Money.of(payment.getAmount()),
+                            payment.getPayerId(), payment.getReceiverId(), now})
+                    .collect(Collectors.toList());
+            queryExecutor.executeBatch(conn, query, paramsList);
+        }
+    }
 }
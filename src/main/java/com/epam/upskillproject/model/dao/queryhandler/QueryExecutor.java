@@ -1,20 +1,28 @@
 package com.epam.upskillproject.model.dao.queryhandler;
 
-import com.epam.upskillproject.model.dto.StatusType;
 import jakarta.ejb.Stateless;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Executes queries. Parameters of a query are bound by typed binders (see ParameterBinder) resolved on the first
+ * execution of the query text and reused by next executions, so binding does not search for a setter of every value
+ */
 @Stateless
 public class QueryExecutor {
 
     private static final Logger logger = LogManager.getLogger(QueryExecutor.class.getName());
 
-    private static final int VALIDATION_TIMEOUT_VALUE_SEC = 3;
+    // Queries with generated placeholder lists have many texts, plans of the rest of them are not kept
+    static final int MAX_BINDER_PLANS = 1024;
+    static final ConcurrentMap<String, ParameterBinder[]> binderPlans = new ConcurrentHashMap<>();
+    // The MySQL driver streams rows of a forward-only read-only result set one by one with this fetch size
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
 
     /**
      * Creates a statement and executes passed query.
@@ -25,7 +33,7 @@ public class QueryExecutor {
      * @throws SQLException
      */
     public ResultSet execute(Connection conn, String query) throws SQLException {
-        if (checkConnection(conn) && checkParams(query)) {
+        if (checkConnection(conn) && checkQuery(query)) {
             Statement statement = conn.createStatement();
             return statement.executeQuery(query);
         } else {
@@ -35,7 +43,9 @@ public class QueryExecutor {
 
     /**
      * Creates a prepared statement and executes passed query with substitution of passed parameters.
-     * Notice that the method will not close an obtained statement and a passed connection independently
+     * Notice that the method will not close an obtained statement and a passed connection independently. It is enough
+     * to close the returned ResultSet: pooled connections close (or return to the statement cache) all their
+     * statements on release
      * @param conn a valid java.sql.Connection
      * @param rawQuery a String representing raw sql-query with placeholders (ready to prepare)
      * @param params parameters for preparing a sql-statement
@@ -43,13 +53,43 @@ public class QueryExecutor {
      * @throws SQLException
      */
     public ResultSet execute(Connection conn, String rawQuery, Object... params) throws SQLException {
-        if (checkConnection(conn) && checkParams(rawQuery) && checkParams(params)) {
-            PreparedStatement statement = conn.prepareStatement(rawQuery);
-            putParams(statement, params);
-            return statement.executeQuery();
-        } else {
-            return null;
+        if (checkConnection(conn) && checkQuery(rawQuery)) {
+            ParameterBinder[] binders = resolveBinders(rawQuery, params);
+            if (binders != null) {
+                PreparedStatement statement = conn.prepareStatement(rawQuery);
+                putParams(statement, binders, params);
+                return statement.executeQuery();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a forward-only read-only prepared statement which streams rows and executes passed query with
+     * substitution of passed parameters. The MySQL driver reads rows of such a statement from the network one by one
+     * instead of loading the whole result into memory (no connection URL option is needed, so other statements are not
+     * affected). The statement is not taken from the statement cache.
+     * Notice that no other statement may be executed on the connection until the returned ResultSet is closed. The
+     * method will not close an obtained statement and a passed connection independently: the caller closes the
+     * statement of the returned ResultSet and the connection when all the rows are read
+     * @param conn a valid java.sql.Connection
+     * @param rawQuery a String representing raw sql-query with placeholders (ready to prepare)
+     * @param params parameters for preparing a sql-statement
+     * @return ResultSet
+     * @throws SQLException
+     */
+    public ResultSet executeStreaming(Connection conn, String rawQuery, Object... params) throws SQLException {
+        if (checkConnection(conn) && checkQuery(rawQuery)) {
+            ParameterBinder[] binders = resolveBinders(rawQuery, params);
+            if (binders != null) {
+                PreparedStatement statement = conn.prepareStatement(rawQuery, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(STREAMING_FETCH_SIZE);
+                putParams(statement, binders, params);
+                return statement.executeQuery();
+            }
         }
+        return null;
     }
 
     /**
@@ -63,65 +103,123 @@ public class QueryExecutor {
      * @return ResultSet
      * @throws SQLException
      */
-    public synchronized int executeUpdate(Connection conn, String rawQuery, Object... params) throws SQLException {
+    public int executeUpdate(Connection conn, String rawQuery, Object... params) throws SQLException {
         int result = 0;
-        if (checkConnection(conn) && checkParams(rawQuery) && checkParams(params)) {
-            PreparedStatement statement = conn.prepareStatement(rawQuery);
-            putParams(statement, params);
-            result = statement.executeUpdate();
-            statement.close();
+        if (checkConnection(conn) && checkQuery(rawQuery)) {
+            ParameterBinder[] binders = resolveBinders(rawQuery, params);
+            if (binders != null) {
+                PreparedStatement statement = conn.prepareStatement(rawQuery);
+                putParams(statement, binders, params);
+                result = statement.executeUpdate();
+                statement.close();
+            }
         }
         return result;
     }
 
-    private void putParams(PreparedStatement statement, Object[] params) throws SQLException {
-        for (int i = 0; i < params.length; i++) {
-            if (params[i] instanceof String) {
-                statement.setString(i + 1, (String) params[i]);
-            } else if (params[i] instanceof Integer) {
-                statement.setInt(i + 1, (Integer) params[i]);
-            } else if (params[i] instanceof BigInteger) {
-                statement.setString(i + 1, params[i].toString());
-            } else if (params[i] instanceof BigDecimal) {
-                statement.setBigDecimal(i + 1, (BigDecimal) params[i]);
-            } else if (params[i] instanceof StatusType) {
-                statement.setInt(i + 1, ((StatusType) params[i]).getId());
-            } else if (params[i] instanceof Timestamp) {
-                statement.setTimestamp(i + 1, (Timestamp) params[i]);
-            } else if (params[i] instanceof Date) {
-                statement.setDate(i + 1, (Date) params[i]);
-            }  else {
-                logger.log(Level.WARN, "Illegal type of passed parameter: " + params[i].getClass());
-                throw new SQLException("Illegal SQL parameter passed");
+    /**
+     * Creates a prepared statement based on passed query and executes it as a JDBC batch, once for every array of
+     * parameters. The driver sends the whole batch in a few round trips (the MySQL driver rewrites a batch of inserts
+     * into a multi-row insert when rewriteBatchedStatements is enabled)
+     * Notice that the method will close an obtained statement after execution but a passed connection still will not be
+     * closed
+     * @param conn a valid java.sql.Connection
+     * @param rawQuery a String representing raw sql-query with placeholders (ready to prepare)
+     * @param paramsList parameters for every execution of the sql-statement
+     * @return update counts in the order of passed parameters (Statement.SUCCESS_NO_INFO if the driver does not know
+     * the count of a rewritten statement) or an empty array if parameters are not valid
+     * @throws SQLException
+     */
+    public int[] executeBatch(Connection conn, String rawQuery, List<Object[]> paramsList) throws SQLException {
+        if (checkConnection(conn) && checkQuery(rawQuery) && paramsList != null && !paramsList.isEmpty()) {
+            ParameterBinder[][] bindersList = new ParameterBinder[paramsList.size()][];
+            for (int i = 0; i < bindersList.length; i++) {
+                bindersList[i] = resolveBinders(rawQuery, paramsList.get(i));
+                if (bindersList[i] == null) {
+                    return new int[0];
+                }
+            }
+            try (PreparedStatement statement = conn.prepareStatement(rawQuery)) {
+                for (int i = 0; i < bindersList.length; i++) {
+                    putParams(statement, bindersList[i], paramsList.get(i));
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
             }
         }
+        return new int[0];
+    }
+
+    private void putParams(PreparedStatement statement, ParameterBinder[] binders, Object[] params)
+            throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            binders[i].bind(statement, i + 1, params[i]);
+        }
     }
 
-    private boolean checkParams(Object... params) throws SQLException {
+    /**
+     * Resolves binders of passed parameters and checks the parameters. Binders of a query are taken from its plan
+     * built by the first execution; a parameter of another type than the plan expects is resolved separately
+     * @param rawQuery a query the parameters are passed for
+     * @param params parameters for preparing a sql-statement
+     * @return binders in the order of parameters or null if the parameters are not valid
+     * @throws SQLException if a parameter of an unsupported type is passed
+     */
+    ParameterBinder[] resolveBinders(String rawQuery, Object[] params) throws SQLException {
         if (params == null) {
-            logger.log(Level.INFO, String.format("Parameters array passed to %s is null",
-                    Thread.currentThread().getStackTrace()[1].getMethodName()));
-            return false;
+            logger.log(Level.INFO, String.format("Parameters array passed for query is null (query: %s)", rawQuery));
+            return null;
         }
-        for (Object p : params) {
-            if (
-                    p == null ||
-                            (p instanceof Connection && !((Connection) p).isValid(5)) ||
-                            (p instanceof String && ((String) p).trim().length() == 0) ||
-                            (p instanceof Integer && ((Integer) p) < 0) ||
-                            (p instanceof BigDecimal && ((BigDecimal) p).compareTo(BigDecimal.ZERO) < 0) ||
-                            (p instanceof BigInteger && ((BigInteger) p).compareTo(BigInteger.ZERO) < 0)
-            ) {
-                logger.log(Level.INFO, String.format("At least one of the passed parameters to %s is not valid",
-                        Thread.currentThread().getStackTrace()[1].getMethodName()));
-                return false;
+        ParameterBinder[] plan = binderPlans.get(rawQuery);
+        ParameterBinder[] binders = (plan != null && plan.length == params.length) ? plan : null;
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param == null) {
+                logger.log(Level.INFO, String.format("At least one of the parameters passed for query is null " +
+                        "(query: %s)", rawQuery));
+                return null;
+            }
+            ParameterBinder binder = (binders != null) ? binders[i] : null;
+            if (binder == null || !binder.accepts(param)) {
+                binder = ParameterBinder.of(param.getClass());
+                if (binder == null) {
+                    logger.log(Level.WARN, "Illegal type of passed parameter: " + param.getClass());
+                    throw new SQLException("Illegal SQL parameter passed");
+                }
+                if (binders == null || binders == plan) {
+                    binders = (binders != null) ? binders.clone() : new ParameterBinder[params.length];
+                }
+                binders[i] = binder;
+            }
+            if (!binder.isValid(param)) {
+                logger.log(Level.INFO, String.format("At least one of the parameters passed for query is not valid " +
+                        "(query: %s)", rawQuery));
+                return null;
             }
         }
+        if (plan == null && binders != null && binderPlans.size() < MAX_BINDER_PLANS) {
+            binderPlans.putIfAbsent(rawQuery, binders);
+        }
+        return (binders != null) ? binders : new ParameterBinder[0];
+    }
+
+    private boolean checkQuery(String query) {
+        if (query == null || query.trim().length() == 0) {
+            logger.log(Level.INFO, "Passed query is null or empty");
+            return false;
+        }
         return true;
     }
 
+    /**
+     * Checks a passed connection without a server round trip. Connections obtained from the connection pool are
+     * validated by the pool itself (on borrow and in background), so only the local state is checked here
+     * @param conn a java.sql.Connection
+     * @return true if the connection is not null and is not closed
+     * @throws SQLException
+     */
     private boolean checkConnection(Connection conn) throws SQLException {
-        boolean isValid = (conn != null && conn.isValid(VALIDATION_TIMEOUT_VALUE_SEC));
+        boolean isValid = (conn != null && !conn.isClosed());
         if (!isValid) {
             logger.log(Level.INFO, "Passed connection is not valid");
         }
@@ -0,0 +1,152 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.exception.UncheckedSQLException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Maps rows of a result set to DTOs. Indexes of the mapped columns are resolved by names once per result set, then
+ * every row is read by column indexes, so the driver does not look up a column name for every column of every row
+ * @param <T> a DTO type
+ */
+public class RowMapper<T> {
+
+    private final String[] columnNames;
+    private final RowBuilder<T> builder;
+
+    /**
+     * @param builder a builder of a DTO from the current row
+     * @param columnNames names (or aliases) of mapped columns, the builder gets their indexes in the same order
+     */
+    public RowMapper(RowBuilder<T> builder, String... columnNames) {
+        this.builder = builder;
+        this.columnNames = columnNames.clone();
+    }
+
+    /**
+     * Maps the first row of a result set and closes the result set
+     * @param rs a ResultSet (may be null)
+     * @return a DTO or an empty Optional if the result set is null or empty
+     * @throws SQLException
+     */
+    public Optional<T> mapFirst(ResultSet rs) throws SQLException {
+        if (rs == null) {
+            return Optional.empty();
+        }
+        try {
+            return (rs.next()) ? Optional.of(builder.build(rs, resolveColumns(rs))) : Optional.empty();
+        } finally {
+            rs.close();
+        }
+    }
+
+    /**
+     * Maps all the rows of a result set and closes the result set
+     * @param rs a ResultSet (may be null)
+     * @return DTOs in the order of rows (an empty list if the result set is null)
+     * @throws SQLException
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        if (rs == null) {
+            return rows;
+        }
+        try {
+            int[] columns = resolveColumns(rs);
+            while (rs.next()) {
+                rows.add(builder.build(rs, columns));
+            }
+        } finally {
+            rs.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Maps rows of a result set lazily: a row is read when the stream consumer requests it, so only the rows fetched by
+     * the driver are kept in memory. The stream must be closed (e.g. with try-with-resources): closing releases the
+     * result set, its statement and the connection
+     * @param rs a ResultSet (may be null)
+     * @param conn a connection of the result set
+     * @return a sequential ordered stream of DTOs
+     * @throws SQLException
+     */
+    public Stream<T> stream(ResultSet rs, Connection conn) throws SQLException {
+        if (rs == null) {
+            conn.close();
+            return Stream.empty();
+        }
+        int[] columns;
+        try {
+            columns = resolveColumns(rs);
+        } catch (SQLException e) {
+            release(rs, conn);
+            throw e;
+        }
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(builder.build(rs, columns));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException("Cannot read next row of streamed result", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                release(rs, conn);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Cannot release streamed result", e);
+            }
+        });
+    }
+
+    private void release(ResultSet rs, Connection conn) throws SQLException {
+        try {
+            Statement statement = rs.getStatement();
+            rs.close();
+            if (statement != null) {
+                statement.close();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    private int[] resolveColumns(ResultSet rs) throws SQLException {
+        int[] columns = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = rs.findColumn(columnNames[i]);
+        }
+        return columns;
+    }
+
+    /**
+     * Building of a DTO from the current row of a result set
+     * @param <T> a DTO type
+     */
+    @FunctionalInterface
+    public interface RowBuilder<T> {
+        /**
+         * @param rs a ResultSet positioned on a row
+         * @param columns indexes of the mapped columns in the order of their names passed to the mapper
+         */
+        T build(ResultSet rs, int[] columns) throws SQLException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Binds a transaction connection to the thread performing the transaction. DAO methods obtain connections from the
+ * context: inside a transaction they get the transaction connection (so they see its changes and locks and do not
+ * borrow one more pool connection), otherwise a new connection is borrowed from the pool. A connection returned inside
+ * a transaction ignores close(), the transaction owner closes it in end()
+ */
+@Singleton
+@Lock(LockType.READ)
+public class TransactionContext {
+
+    private static final Logger logger = LogManager.getLogger(TransactionContext.class.getName());
+
+    @Resource(lookup = "java:global/customProjectDB")
+    private DataSource dataSource;
+    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private final ThreadLocal<Connection> participantConnection = new ThreadLocal<>();
+
+    /**
+     * Borrows a connection, starts a transaction on it and binds the connection to the current thread
+     * @param isolationLevel a transaction isolation level (one of java.sql.Connection constants)
+     * @return the transaction connection
+     * @throws SQLException if a connection cannot be obtained or configured
+     * @throws IllegalStateException if the current thread already performs a transaction
+     */
+    public Connection begin(int isolationLevel) throws SQLException {
+        if (transactionConnection.get() != null) {
+            logger.log(Level.WARN, "Cannot begin transaction: the current thread already performs a transaction");
+            throw new IllegalStateException("Nested transactions are not supported");
+        }
+        Connection conn = dataSource.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(isolationLevel);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        transactionConnection.set(conn);
+        return conn;
+    }
+
+    /**
+     * Unbinds and closes a transaction connection. The method must be called in a finally block of the transaction:
+     * the connection is always unbound from the current thread and closed, a transaction which is still open (it was
+     * neither committed nor rolled back, e.g. because of an unexpected runtime exception) is rolled back
+     * @param conn a connection obtained from begin()
+     * @throws SQLException if the open transaction cannot be rolled back or the connection cannot be closed
+     */
+    public void end(Connection conn) throws SQLException {
+        if (transactionConnection.get() == conn) {
+            transactionConnection.remove();
+            participantConnection.remove();
+        }
+        try {
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                logger.log(Level.WARN, "Transaction was not finished before the end, rolling back");
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * @return true if the current thread performs a transaction
+     */
+    public boolean isActive() {
+        return transactionConnection.get() != null;
+    }
+
+    /**
+     * Returns the connection of the current transaction (wrapped to ignore close()) if the current thread performs a
+     * transaction or a new pool connection otherwise. In both cases the caller closes the connection after use
+     * @return a java.sql.Connection
+     * @throws SQLException
+     */
+    public Connection getConnection() throws SQLException {
+        Connection conn = transactionConnection.get();
+        if (conn == null) {
+            return dataSource.getConnection();
+        }
+        Connection participant = participantConnection.get();
+        if (participant == null) {
+            participant = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                            return null;
+                        }
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            participantConnection.set(participant);
+        }
+        return participant;
+    }
+}
@@ -0,0 +1,75 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of financial transaction retries: transient failures by kind (deadlocks and lock wait timeouts),
+ * replayed units of work, units of work recovered by a retry and units of work given up because the attempts or the
+ * retry budget were exhausted. Counters are updated by transaction threads without locks and exposed over JMX
+ */
+public class TransactionRetryMetrics implements TransactionRetryMetricsMXBean {
+
+    public static final String OBJECT_NAME =
+            "com.epam.upskillproject:type=FinancialTransactionsPerformer,name=transactionRetries";
+
+    private final LongAdder deadlockCount = new LongAdder();
+    private final LongAdder lockWaitTimeoutCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder recoveredCount = new LongAdder();
+    private final LongAdder exhaustedCount = new LongAdder();
+    private final LongAdder budgetRejectionCount = new LongAdder();
+
+    void recordDeadlock() {
+        deadlockCount.increment();
+    }
+
+    void recordLockWaitTimeout() {
+        lockWaitTimeoutCount.increment();
+    }
+
+    void recordRetry() {
+        retryCount.increment();
+    }
+
+    void recordRecovery() {
+        recoveredCount.increment();
+    }
+
+    void recordExhausted() {
+        exhaustedCount.increment();
+    }
+
+    void recordBudgetRejection() {
+        budgetRejectionCount.increment();
+    }
+
+    @Override
+    public long getDeadlockCount() {
+        return deadlockCount.sum();
+    }
+
+    @Override
+    public long getLockWaitTimeoutCount() {
+        return lockWaitTimeoutCount.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    @Override
+    public long getRecoveredCount() {
+        return recoveredCount.sum();
+    }
+
+    @Override
+    public long getExhaustedCount() {
+        return exhaustedCount.sum();
+    }
+
+    @Override
+    public long getBudgetRejectionCount() {
+        return budgetRejectionCount.sum();
+    }
+}
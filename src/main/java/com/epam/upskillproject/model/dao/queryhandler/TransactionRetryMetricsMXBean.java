@@ -0,0 +1,20 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+/**
+ * Management interface of financial transaction retry metrics. Registered in the platform MBean server under
+ * TransactionRetryMetrics.OBJECT_NAME
+ */
+public interface TransactionRetryMetricsMXBean {
+
+    long getDeadlockCount();
+
+    long getLockWaitTimeoutCount();
+
+    long getRetryCount();
+
+    long getRecoveredCount();
+
+    long getExhaustedCount();
+
+    long getBudgetRejectionCount();
+}
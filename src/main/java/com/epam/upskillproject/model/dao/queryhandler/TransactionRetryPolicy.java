@@ -0,0 +1,150 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.exception.TransactionException;
+import com.epam.upskillproject.exception.TransactionExceptionType;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Replays units of work failed because of transient concurrency errors (deadlocks and lock wait timeouts). A unit of
+ * work is a whole transaction, so it is replayed from the beginning after the rolled back attempt. Attempts are
+ * separated by a capped exponential backoff with full jitter (a random delay from zero to the current cap), so the
+ * transactions which collided do not collide again at once.
+ * Retries are limited by a retry budget: every unit of work earns a share of a retry and every retry spends a whole
+ * one, so under a persistent overload retries add not more than the budget share to the load. The budget is capped to
+ * allow bursts of retries after a quiet period
+ */
+class TransactionRetryPolicy {
+
+    private static final Logger logger = LogManager.getLogger(TransactionRetryPolicy.class.getName());
+
+    private static final int MYSQL_DEADLOCK_ERROR = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT_ERROR = 1205;
+    private static final String SERIALIZATION_FAILURE_SQLSTATE = "40001";
+    // Budget tokens are counted in hundredths of a retry
+    private static final long TOKENS_PER_RETRY = 100;
+    private static final long MAX_BUDGET_RETRIES = 100;
+
+    private final TransactionRetryMetrics metrics;
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long tokensPerUnit;
+    private final AtomicLong budgetTokens = new AtomicLong(MAX_BUDGET_RETRIES * TOKENS_PER_RETRY);
+
+    /**
+     * @param metrics retry metrics
+     * @param maxAttempts the maximum number of attempts of a unit of work (1 disables retries)
+     * @param baseDelayMillis the backoff cap before the first retry, doubled for every next retry
+     * @param maxDelayMillis the maximum backoff cap
+     * @param budgetPercent retries allowed per hundred units of work
+     */
+    TransactionRetryPolicy(TransactionRetryMetrics metrics, int maxAttempts, long baseDelayMillis,
+                           long maxDelayMillis, int budgetPercent) {
+        this.metrics = metrics;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(baseDelayMillis, 1));
+        this.maxDelayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(maxDelayMillis), baseDelayNanos);
+        this.tokensPerUnit = Math.max(budgetPercent, 0);
+    }
+
+    /**
+     * Performs a unit of work, replaying it while it fails with a transient error and attempts and budget remain
+     * @param operation an operation name for logging
+     * @param unitOfWork a whole transaction
+     * @return the result of the unit of work
+     * @throws TransactionException of the last attempt if the unit of work cannot be performed
+     */
+    <T> T execute(String operation, Supplier<T> unitOfWork) throws TransactionException {
+        budgetTokens.accumulateAndGet(tokensPerUnit,
+                (tokens, earned) -> Math.min(tokens + earned, MAX_BUDGET_RETRIES * TOKENS_PER_RETRY));
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = unitOfWork.get();
+                if (attempt > 1) {
+                    metrics.recordRecovery();
+                    logger.log(Level.DEBUG, String.format("%s succeeded after %d attempts", operation, attempt));
+                }
+                return result;
+            } catch (TransactionException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    metrics.recordExhausted();
+                    logger.log(Level.WARN, String.format("%s failed because of concurrent transactions, attempts " +
+                            "exhausted (attempts: %d)", operation, attempt));
+                    throw e;
+                }
+                if (!spendRetry()) {
+                    metrics.recordBudgetRejection();
+                    logger.log(Level.WARN, String.format("%s failed because of concurrent transactions, retry budget " +
+                            "exhausted (attempts: %d)", operation, attempt));
+                    throw e;
+                }
+                metrics.recordRetry();
+                long delayNanos = backoff(attempt);
+                logger.log(Level.DEBUG, String.format("%s failed because of concurrent transactions, retry in %d " +
+                        "µs (attempt: %d)", operation, TimeUnit.NANOSECONDS.toMicros(delayNanos), attempt));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a failure was caused by a transient concurrency error and counts the error
+     */
+    private boolean isTransient(TransactionException e) {
+        if (e.getType() != TransactionExceptionType.CONFLICT) {
+            return false;
+        }
+        if (e.getCause() instanceof SQLException &&
+                ((SQLException) e.getCause()).getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT_ERROR) {
+            metrics.recordLockWaitTimeout();
+        } else {
+            metrics.recordDeadlock();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if an SQLException reports a deadlock, a lock wait timeout or another serialization failure
+     */
+    static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransactionRollbackException ||
+                e.getErrorCode() == MYSQL_DEADLOCK_ERROR ||
+                e.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT_ERROR ||
+                SERIALIZATION_FAILURE_SQLSTATE.equals(e.getSQLState());
+    }
+
+    private boolean spendRetry() {
+        long tokens = budgetTokens.get();
+        while (tokens >= TOKENS_PER_RETRY) {
+            if (budgetTokens.compareAndSet(tokens, tokens - TOKENS_PER_RETRY)) {
+                return true;
+            }
+            tokens = budgetTokens.get();
+        }
+        return false;
+    }
+
+    long backoff(int attempt) {
+        long cap = baseDelayNanos << Math.min(attempt - 1, 30);
+        cap = (cap <= 0 || cap > maxDelayNanos) ? maxDelayNanos : cap;
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -1,13 +1,19 @@
 package com.epam.upskillproject.model.dao.queryhandler.constructors;
 
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 
 @Singleton
+@Lock(LockType.READ)
 public class AccountQueryConstructor {
 
     private final String SINGLE_BY_ID_PROP = "query.account.getSingleById";
+    private final String LOCK_SINGLE_BY_ID_PROP = "query.account.lockSingleById";
+    private final String LOCK_BY_IDS_PROP = "query.account.lockByIds";
+    private final String LOCK_BY_OWNER_PROP = "query.account.lockByOwner";
     private final String SINGLE_BY_ID_AND_OWNER_PROP = "query.account.getSingleByIdAndOwner";
     private final String ALL_PROP = "query.account.getAll";
     private final String PAGE_PROP = "query.account.getPage";
@@ -36,6 +42,18 @@ public class AccountQueryConstructor {
         return propertiesKeeper.getString(SINGLE_BY_ID_PROP);
     }
 
+    public String lockSingleById() {
+        return propertiesKeeper.getString(LOCK_SINGLE_BY_ID_PROP);
+    }
+
+    public String lockByIds() {
+        return propertiesKeeper.getString(LOCK_BY_IDS_PROP);
+    }
+
+    public String lockByOwner() {
+        return propertiesKeeper.getString(LOCK_BY_OWNER_PROP);
+    }
+
     public String singleByIdAndOwner() {
         return propertiesKeeper.getString(SINGLE_BY_ID_AND_OWNER_PROP);
     }
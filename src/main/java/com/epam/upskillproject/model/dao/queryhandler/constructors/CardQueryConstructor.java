@@ -1,10 +1,13 @@
 package com.epam.upskillproject.model.dao.queryhandler.constructors;
 
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 
 @Singleton
+@Lock(LockType.READ)
 public class CardQueryConstructor {
 
     private final String SINGLE_BY_ID_PROP = "query.card.getSingleById";
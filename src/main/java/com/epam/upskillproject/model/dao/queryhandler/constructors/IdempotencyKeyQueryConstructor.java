@@ -0,0 +1,51 @@
+package com.epam.upskillproject.model.dao.queryhandler.constructors;
+
+import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+
+@Singleton
+@Lock(LockType.READ)
+public class IdempotencyKeyQueryConstructor {
+
+    private static final String IDEMPOTENCY_GET_SINGLE_PROP = "query.idempotency.getSingle";
+    private static final String IDEMPOTENCY_RESERVE_PROP = "query.idempotency.reserve";
+    private static final String IDEMPOTENCY_COMPLETE_PROP = "query.idempotency.complete";
+    private static final String IDEMPOTENCY_COMPLETE_WITH_MESSAGE_PROP = "query.idempotency.completeWithMessage";
+    private static final String IDEMPOTENCY_DELETE_SINGLE_PROP = "query.idempotency.deleteSingle";
+    private static final String IDEMPOTENCY_DELETE_EXPIRED_PROP = "query.idempotency.deleteExpired";
+
+    private final PropertiesKeeper propertiesKeeper;
+
+    @Inject
+    public IdempotencyKeyQueryConstructor(PropertiesKeeper propertiesKeeper) {
+        this.propertiesKeeper = propertiesKeeper;
+    }
+
+    public String singleByOwnerAndKey() {
+        return propertiesKeeper.getString(IDEMPOTENCY_GET_SINGLE_PROP);
+    }
+
+    public String reserve() {
+        return propertiesKeeper.getString(IDEMPOTENCY_RESERVE_PROP);
+    }
+
+    public String complete() {
+        return propertiesKeeper.getString(IDEMPOTENCY_COMPLETE_PROP);
+    }
+
+    public String completeWithMessage() {
+        return propertiesKeeper.getString(IDEMPOTENCY_COMPLETE_WITH_MESSAGE_PROP);
+    }
+
+    public String delSingleByOwnerAndKey() {
+        return propertiesKeeper.getString(IDEMPOTENCY_DELETE_SINGLE_PROP);
+    }
+
+    public String delExpired() {
+        return propertiesKeeper.getString(IDEMPOTENCY_DELETE_EXPIRED_PROP);
+    }
+
+}
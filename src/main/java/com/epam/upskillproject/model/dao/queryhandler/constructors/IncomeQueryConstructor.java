@@ -1,13 +1,18 @@
 package com.epam.upskillproject.model.dao.queryhandler.constructors;
 
 import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 
 @Singleton
+@Lock(LockType.READ)
 public class IncomeQueryConstructor {
 
     private static final String INCOME_GET_PROP = "query.income.get";
+    private static final String INCOME_COUNT_SLOTS_PROP = "query.income.countSlots";
+    private static final String INCOME_LOCK_SLOTS_PROP = "query.income.lockSlots";
     private static final String INCOME_INCREASE_PROP = "query.income.increase";
     private static final String INCOME_DECREASE_PROP = "query.income.decrease";
 
@@ -22,6 +27,14 @@ public class IncomeQueryConstructor {
         return propertiesKeeper.getString(INCOME_GET_PROP);
     }
 
+    public String countSlots() {
+        return propertiesKeeper.getString(INCOME_COUNT_SLOTS_PROP);
+    }
+
+    public String lockSlots() {
+        return propertiesKeeper.getString(INCOME_LOCK_SLOTS_PROP);
+    }
+
     public String increase() {
         return propertiesKeeper.getString(INCOME_INCREASE_PROP);
     }
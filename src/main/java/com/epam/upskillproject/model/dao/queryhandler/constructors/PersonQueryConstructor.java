@@ -2,10 +2,13 @@ package com.epam.upskillproject.model.dao.queryhandler.constructors;
 
 import com.epam.upskillproject.util.init.PropertiesKeeper;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 
 @Singleton
+@Lock(LockType.READ)
 public class PersonQueryConstructor {
 
     private final String SINGLE_PROP_PATTERN = "query.%s.getSingleBy%s";
@@ -2,9 +2,12 @@ package com.epam.upskillproject.model.dao.queryhandler.sqlorder;
 
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Named;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 
 @Singleton
+@Lock(LockType.READ)
 public class OrderStrategyFactory {
 
     @Produces @Named("accountOrder")
@@ -1,7 +1,6 @@
 package com.epam.upskillproject.model.dto;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -10,14 +9,14 @@ public class Account {
     private static final int DEFAULT_SCALE = 2;
     private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
 
-    private final BigInteger id;
-    private final BigInteger ownerId;
+    private final Long id;
+    private final Long ownerId;
     private final BigDecimal balance;
     private final StatusType status;
     private final LocalDate regDate;
     private final int hash;
 
-    public Account(BigInteger id, BigInteger ownerId, BigDecimal balance, StatusType status, LocalDate regDate) {
+    public Account(Long id, Long ownerId, BigDecimal balance, StatusType status, LocalDate regDate) {
         this.id = id;
         this.ownerId = ownerId;
         this.balance = balance.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
@@ -26,7 +25,7 @@ public class Account {
         this.hash = hashCode();
     }
 
-    public Account(BigInteger ownerId, BigDecimal balance, StatusType status) {
+    public Account(Long ownerId, BigDecimal balance, StatusType status) {
         this.id = null;
         this.ownerId = ownerId;
         this.balance = balance.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
@@ -35,11 +34,11 @@ public class Account {
         this.hash = hashCode();
     }
 
-    public BigInteger getId() {
+    public Long getId() {
         return id;
     }
 
-    public BigInteger getOwnerId() {
+    public Long getOwnerId() {
         return ownerId;
     }
 
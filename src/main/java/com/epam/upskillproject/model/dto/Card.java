@@ -1,21 +1,20 @@
 package com.epam.upskillproject.model.dto;
 
-import java.math.BigInteger;
 import java.time.LocalDate;
 import java.util.Objects;
 
 public class Card {
 
-    private final BigInteger id;
-    private final BigInteger ownerId;
-    private final BigInteger accountId;
+    private final Long id;
+    private final Long ownerId;
+    private final Long accountId;
     private final CardNetworkType network;
     private final String cvc;
     private final StatusType status;
     private final LocalDate expDate;
     private final int hash;
 
-    public Card(BigInteger id, BigInteger ownerId, BigInteger accountId, CardNetworkType network, String cvc,
+    public Card(Long id, Long ownerId, Long accountId, CardNetworkType network, String cvc,
                 StatusType status, LocalDate expDate) {
         this.id = id;
         this.ownerId = ownerId;
@@ -27,7 +26,7 @@ public class Card {
         this.hash = hashCode();
     }
 
-    public Card(BigInteger ownerId, BigInteger accountId, CardNetworkType network, StatusType status) {
+    public Card(Long ownerId, Long accountId, CardNetworkType network, StatusType status) {
         this.id = null;
         this.ownerId = ownerId;
         this.accountId = accountId;
@@ -38,15 +37,15 @@ public class Card {
         this.hash = hashCode();
     }
 
-    public BigInteger getId() {
+    public Long getId() {
         return id;
     }
 
-    public BigInteger getOwnerId() {
+    public Long getOwnerId() {
         return ownerId;
     }
 
-    public BigInteger getAccountId() {
+    public Long getAccountId() {
         return accountId;
     }
 
@@ -1,7 +1,5 @@
 package com.epam.upskillproject.model.dto;
 
-import java.math.BigDecimal;
-
 public enum CardNetworkType {
 
     VISA_CLASSIC(1, "VISA Classic","10.00"),
@@ -13,12 +11,12 @@ public enum CardNetworkType {
 
     private int id;
     private String name;
-    private String cost;
+    private Money cost;
 
     CardNetworkType(int id, String name, String cost) {
         this.id = id;
         this.name = name;
-        this.cost = cost;
+        this.cost = Money.parse(cost);
     }
 
     public int getId() {
@@ -29,7 +27,7 @@ public enum CardNetworkType {
         return name;
     }
 
-    public BigDecimal getCost() {
-        return new BigDecimal(cost);
+    public Money getCost() {
+        return cost;
     }
 }
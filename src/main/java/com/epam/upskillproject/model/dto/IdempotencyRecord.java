@@ -0,0 +1,99 @@
+package com.epam.upskillproject.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A request performed with an idempotency key. A record without a status code is pending: the request which reserved
+ * the key is still being performed
+ */
+public class IdempotencyRecord {
+
+    private final String owner;
+    private final String key;
+    private final String operation;
+    private final String fingerprint;
+    private final Integer statusCode;
+    private final String message;
+    private final LocalDateTime created;
+
+    public IdempotencyRecord(String owner, String key, String operation, String fingerprint, Integer statusCode,
+                             String message, LocalDateTime created) {
+        this.owner = owner;
+        this.key = key;
+        this.operation = operation;
+        this.fingerprint = fingerprint;
+        this.statusCode = statusCode;
+        this.message = message;
+        this.created = created;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+
+    /**
+     * @return true if the record belongs to the same operation with the same parameters
+     */
+    public boolean matches(String operation, String fingerprint) {
+        return Objects.equals(this.operation, operation) && Objects.equals(this.fingerprint, fingerprint);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return Objects.equals(owner, that.owner) &&
+                Objects.equals(key, that.key) &&
+                Objects.equals(operation, that.operation) &&
+                Objects.equals(fingerprint, that.fingerprint) &&
+                Objects.equals(statusCode, that.statusCode) &&
+                Objects.equals(message, that.message) &&
+                Objects.equals(created, that.created);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(owner, key, operation, fingerprint, statusCode, message, created);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "owner='" + owner + '\'' +
+                ", key='" + key + '\'' +
+                ", operation='" + operation + '\'' +
+                ", statusCode=" + statusCode +
+                ", created=" + created +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package com.epam.upskillproject.model.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An immutable amount of money kept as a long number of cents (minor units), the scale of DECIMAL(20,2) columns.
+ * Arithmetic is exact: sums and products which do not fit into long throw ArithmeticException instead of overflowing,
+ * multiplication by a rate rounds half up to a cent. The type is intended for payment processing where BigDecimal
+ * arithmetic would allocate several objects per operation
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0L);
+
+    private static final long CENTS_PER_UNIT = 100L;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return (cents == 0L) ? ZERO : new Money(cents);
+    }
+
+    /**
+     * @param amount an amount (rounded half up to cents)
+     * @throws ArithmeticException if the amount does not fit into long cents
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * @param amount a string representation of a decimal amount
+     * @throws NumberFormatException if the string is not a decimal number
+     * @throws ArithmeticException if the amount does not fit into long cents
+     */
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money add(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money subtract(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    /**
+     * Multiplies the amount by a rate given as a fraction (e.g. a rate of 0.01 is 1 / 100) and rounds the product half
+     * up (away from zero) to a cent
+     * @param numerator a rate numerator
+     * @param denominator a rate denominator (a positive value)
+     * @throws ArithmeticException if the product does not fit into long
+     */
+    public Money multiplyHalfUp(long numerator, long denominator) {
+        if (denominator <= 0L) {
+            throw new ArithmeticException("Rate denominator must be positive");
+        }
+        long product = Math.multiplyExact(cents, numerator);
+        long quotient = product / denominator;
+        long remainder = Math.abs(product % denominator);
+        if (remainder >= denominator - remainder) {
+            quotient += (product < 0L) ? -1L : 1L;
+        }
+        return ofCents(quotient);
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isPositive() {
+        return cents > 0L;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return cents == money.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * @return a plain decimal representation with two fraction digits (e.g. "-0.05", "10.00")
+     */
+    @Override
+    public String toString() {
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long fraction = Math.abs(cents % CENTS_PER_UNIT);
+        return ((cents < 0L) ? "-" : "") + units + ((fraction < 10L) ? ".0" : ".") + fraction;
+    }
+}
@@ -1,7 +1,6 @@
 package com.epam.upskillproject.model.dto;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -11,13 +10,13 @@ public class Payment {
     private static final int DEFAULT_SCALE = 2;
     private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
 
-    private final BigInteger id;
+    private final Long id;
     private final BigDecimal amount;
-    private final BigInteger payerId;
-    private final BigInteger receiverId;
+    private final Long payerId;
+    private final Long receiverId;
     private final LocalDateTime dateTime;
 
-    public Payment(BigInteger id, BigDecimal amount, BigInteger payerId, BigInteger receiverId, LocalDateTime dateTime) {
+    public Payment(Long id, BigDecimal amount, Long payerId, Long receiverId, LocalDateTime dateTime) {
         this.id = id;
         this.amount = amount.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
         this.payerId = payerId;
@@ -25,7 +24,7 @@ public class Payment {
         this.dateTime = dateTime;
     }
 
-    public BigInteger getId() {
+    public Long getId() {
         return id;
     }
 
@@ -33,11 +32,11 @@ public class Payment {
         return amount;
     }
 
-    public BigInteger getPayerId() {
+    public Long getPayerId() {
         return payerId;
     }
 
-    public BigInteger getReceiverId() {
+    public Long getReceiverId() {
         return receiverId;
     }
 
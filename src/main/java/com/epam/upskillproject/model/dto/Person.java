@@ -1,12 +1,11 @@
 package com.epam.upskillproject.model.dto;
 
 import com.epam.upskillproject.util.RoleType;
-import java.math.BigInteger;
 import java.time.LocalDate;
 import java.util.Objects;
 
 public class Person {
-    private final BigInteger id;
+    private final Long id;
     private final RoleType role;
     private final String email;
     private final String password;
@@ -16,7 +15,7 @@ public class Person {
     private final LocalDate regDate;
     private final int hash;
 
-    public Person(BigInteger id, RoleType role, String email, String password, String firstName,
+    public Person(Long id, RoleType role, String email, String password, String firstName,
                   String lastName, StatusType statusType, LocalDate regDate) {
         this.id = id;
         this.role = role;
@@ -29,7 +28,7 @@ public class Person {
         this.hash = hashCode();
     }
 
-    public Person(BigInteger id, RoleType role, String email, String firstName, String lastName,
+    public Person(Long id, RoleType role, String email, String firstName, String lastName,
                   StatusType statusType, LocalDate regDate) {
         this.id = id;
         this.role = role;
@@ -55,7 +54,7 @@ public class Person {
         this.hash = hashCode();
     }
 
-    public BigInteger getId() {
+    public Long getId() {
         return id;
     }
 
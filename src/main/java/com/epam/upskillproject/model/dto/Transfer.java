@@ -0,0 +1,60 @@
+package com.epam.upskillproject.model.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * An item of a bulk transfer: an amount to move from the payer's account to the receiver's account
+ */
+public class Transfer {
+
+    private static final int DEFAULT_SCALE = 2;
+    private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
+
+    private final Long payerId;
+    private final Long receiverId;
+    private final BigDecimal amount;
+
+    public Transfer(Long payerId, Long receiverId, BigDecimal amount) {
+        this.payerId = payerId;
+        this.receiverId = receiverId;
+        this.amount = (amount != null) ? amount.setScale(DEFAULT_SCALE, DEFAULT_ROUNDING_MODE) : null;
+    }
+
+    public Long getPayerId() {
+        return payerId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Transfer transfer = (Transfer) o;
+        return Objects.equals(payerId, transfer.payerId) &&
+                Objects.equals(receiverId, transfer.receiverId) &&
+                Objects.equals(amount, transfer.amount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(payerId, receiverId, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "Transfer{" +
+                "payerId=" + payerId +
+                ", receiverId=" + receiverId +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.epam.upskillproject.model.dto;
+
+/**
+ * Atomicity of a bulk transfer
+ */
+public enum TransferAtomicity {
+    // a rejected item cancels the whole transfer
+    ALL_OR_NOTHING,
+    // rejected items are skipped, the others are performed
+    PER_ITEM
+}
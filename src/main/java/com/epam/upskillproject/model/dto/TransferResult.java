@@ -0,0 +1,57 @@
+package com.epam.upskillproject.model.dto;
+
+import com.epam.upskillproject.exception.TransactionExceptionType;
+import java.util.Objects;
+
+/**
+ * A result of a bulk transfer item. A rejected item has the reason of rejection; an item of an all-or-nothing transfer
+ * cancelled because of another item is not performed and has no reason
+ */
+public class TransferResult {
+
+    private final Transfer transfer;
+    private final boolean performed;
+    private final TransactionExceptionType reason;
+
+    public TransferResult(Transfer transfer, boolean performed, TransactionExceptionType reason) {
+        this.transfer = transfer;
+        this.performed = performed;
+        this.reason = reason;
+    }
+
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public boolean isPerformed() {
+        return performed;
+    }
+
+    public TransactionExceptionType getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransferResult that = (TransferResult) o;
+        return performed == that.performed &&
+                Objects.equals(transfer, that.transfer) &&
+                reason == that.reason;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(transfer, performed, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResult{" +
+                "transfer=" + transfer +
+                ", performed=" + performed +
+                ", reason=" + reason +
+                '}';
+    }
+}
@@ -8,12 +8,13 @@ import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PersonSortTy
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PaymentSortType;
 import com.epam.upskillproject.util.ParamsValidator;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class AdminService {
 
     private static final Logger logger = LogManager.getLogger(AdminService.class.getName());
@@ -87,11 +89,11 @@ public class AdminService {
 
     /**
      * Finds and returns an instance of a customer by id or null when there are no related records
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return a Person (customer's instance) | null - if it is not present or id is not valid
      * @throws SQLException
      */
-    public Person getCustomer(BigInteger id) throws SQLException {
+    public Person getCustomer(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get customer (invalid id parameter - %s)", id));
             return null;
@@ -102,7 +104,7 @@ public class AdminService {
 
     /**
      * Updates customer's profile
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @param newRoleType might be null (in this case will be used old person's role type)
      * @param email an unique valid email
      * @param newPassword might be null (in this case will be used old person's password)
@@ -113,14 +115,14 @@ public class AdminService {
      * @return true if the specified customer's record was changed or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean updateCustomer(BigInteger id,
-                                               RoleType newRoleType,
-                                               String email,
-                                               String newPassword,
-                                               String newFirstName,
-                                               String newLastName,
-                                               StatusType statusType,
-                                               LocalDate newRegDate) throws SQLException {
+    public boolean updateCustomer(Long id,
+                                  RoleType newRoleType,
+                                  String email,
+                                  String newPassword,
+                                  String newFirstName,
+                                  String newLastName,
+                                  StatusType statusType,
+                                  LocalDate newRegDate) throws SQLException {
         if (!paramsValidator.validatePersonUpdateParams(id, email, newPassword, newFirstName, newLastName, statusType,
                 newRegDate)) {
             logger.log(Level.WARN, String.format("Cannot update customer (bad parameters passed) [id: %s]", id));
@@ -168,11 +170,11 @@ public class AdminService {
 
     /**
      * Collects and returns a list of customer's accounts
-     * @param id a positive BigInteger (id of a customer)
+     * @param id a positive value (id of a customer)
      * @return a List of accounts or an empty List if specified customer or accounts are not found
      * @throws SQLException
      */
-    public List<Account> getAccountsByOwner(BigInteger id) throws SQLException {
+    public List<Account> getAccountsByOwner(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get accounts by owner (invalid id parameter - %s)", id));
             return new ArrayList<>();
@@ -182,27 +184,27 @@ public class AdminService {
 
     /**
      * Finds and returns id of an account by id of a card which related to this account
-     * @param cardId a positive BigInteger
+     * @param cardId a positive value
      * @return an account id if the specified account and the card are present or null in other cases
      * @throws SQLException
      */
-    public BigInteger getAccountIdByCardId(BigInteger cardId) throws SQLException {
+    public Long getAccountIdByCardId(Long cardId) throws SQLException {
         if (!paramsValidator.validateId(cardId)) {
             logger.log(Level.WARN, String.format("Cannot get account id by card id (invalid cardId parameter - %s)",
                     cardId));
             return null;
         }
-        Optional<BigInteger> accountId = cardDao.getCardAccountId(cardId);
+        Optional<Long> accountId = cardDao.getCardAccountId(cardId);
         return accountId.orElse(null);
     }
 
     /**
      * Finds and returns an account status
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return an account status type if the specified account is present or null in other cases
      * @throws SQLException
      */
-    public StatusType getAccountStatus(BigInteger id) throws SQLException {
+    public StatusType getAccountStatus(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get account status by id (invalid id parameter - %s)", id));
             return null;
@@ -213,12 +215,12 @@ public class AdminService {
 
     /**
      * Updates an account status
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @param statusType not null StatusType value
      * @return true if the specified account record was changed or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean updateAccountStatus(BigInteger id, StatusType statusType) throws SQLException {
+    public boolean updateAccountStatus(Long id, StatusType statusType) throws SQLException {
         if (statusType == null || !paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot update account status (invalid parameters passed) " +
                     "[target status: %s, id: %s]", statusType, id));
@@ -258,11 +260,11 @@ public class AdminService {
 
     /**
      * Collects and returns a list of customer's cards
-     * @param id a positive BigInteger (an id of a customer)
+     * @param id a positive value (an id of a customer)
      * @return a List of cards or an empty List if specified customer or cards are not found
      * @throws SQLException
      */
-    public List<Card> getCardsByOwner(BigInteger id) throws SQLException {
+    public List<Card> getCardsByOwner(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get cards by owner (invalid owner's id parameter - %s)", id));
             return new ArrayList<>();
@@ -272,11 +274,11 @@ public class AdminService {
 
     /**
      * Collects and returns an account card list
-     * @param id a positive BigInteger (an id of an account)
+     * @param id a positive value (an id of an account)
      * @return a List of cards or an empty List if specified account or cards are not found
      * @throws SQLException
      */
-    public List<Card> getCardsByAccount(BigInteger id) throws SQLException {
+    public List<Card> getCardsByAccount(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get cards by account (invalid account id parameter - %s)", id));
             return new ArrayList<>();
@@ -286,11 +288,11 @@ public class AdminService {
 
     /**
      * Finds and returns a card status
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return a card status type if the specified card is present or null in other cases
      * @throws SQLException
      */
-    public StatusType getCardStatus(BigInteger id) throws SQLException {
+    public StatusType getCardStatus(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get card status by id (invalid id parameter - %s)", id));
             return null;
@@ -301,12 +303,12 @@ public class AdminService {
 
     /**
      * Updates a card status
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @param statusType not null StatusType value
      * @return true if the specified card record was changed or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean updateCardStatus(BigInteger id, StatusType statusType) throws SQLException {
+    public boolean updateCardStatus(Long id, StatusType statusType) throws SQLException {
         if (statusType == null || !paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot update card status (invalid parameters passed) " +
                     "[target status: %s, id: %s]", statusType, id));
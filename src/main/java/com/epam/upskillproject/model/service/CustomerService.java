@@ -9,32 +9,37 @@ import com.epam.upskillproject.model.dto.*;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.AccountSortType;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PaymentSortType;
 import com.epam.upskillproject.util.ParamsValidator;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.security.Principal;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Singleton
+@Lock(LockType.READ)
 public class CustomerService {
 
     private static final Logger logger = LogManager.getLogger(CustomerService.class.getName());
 
     private static final AccountSortType DEFAULT_ACCOUNT_SORT_TYPE = AccountSortType.ID;
     private static final PaymentSortType DEFAULT_PAYMENT_SORT_TYPE = PaymentSortType.ID_DESC;
-    private static final BigInteger SYSTEM_INCOME_ID = BigInteger.ZERO;
+    private static final Long SYSTEM_INCOME_ID = 0L;
     private static final int MAX_ACCOUNTS_PER_CUSTOMER = 5;
     private static final int MAX_CARDS_PER_ACCOUNT = 3;
     private static final BigDecimal MAX_TOP_UP_AMOUNT_PER_PERIOD = new BigDecimal("100.00");
     private static final int TOP_UP_PERIOD_DAYS = 1;
+    private static final int CUSTOMER_LOCK_STRIPES = 64;
 
     private final PersonDao personDao;
     private final AccountDao accountDao;
@@ -43,6 +48,11 @@ public class CustomerService {
     private final FinancialTransactionsPerformer financialTransactionsPerformer;
     private final ParamsValidator paramsValidator;
     private final CardValidator cardValidator;
+    // Serialize check-then-act operations of a customer (top up, account and card limits); operations of customers
+    // mapped to different stripes run in parallel
+    private final ReentrantLock[] customerLocks = Stream.generate(ReentrantLock::new)
+            .limit(CUSTOMER_LOCK_STRIPES)
+            .toArray(ReentrantLock[]::new);
 
     @Inject
     public CustomerService(PersonDao personDao, AccountDao accountDao, CardDao cardDao, PaymentDao paymentDao,
@@ -78,7 +88,7 @@ public class CustomerService {
      * @return an Account if present, otherwise null
      * @throws SQLException
      */
-    public Account getUserAccountById(Principal principal, BigInteger accountId) throws SQLException {
+    public Account getUserAccountById(Principal principal, Long accountId) throws SQLException {
        if (principal == null || !paramsValidator.validateId(accountId)) {
            logger.log(Level.WARN, String.format("Cannot get user's account (invalid principal %s or account id: %s)",
                    principal, accountId));
@@ -130,11 +140,11 @@ public class CustomerService {
     /**
      * Collects and returns a list of user's cards by account id
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @return a List of cards or an empty List if specified cards are not found
      * @throws SQLException
      */
-    public List<Card> getUserCardsByAccount(Principal principal, BigInteger accountId) throws SQLException {
+    public List<Card> getUserCardsByAccount(Principal principal, Long accountId) throws SQLException {
         if (principal == null || !paramsValidator.validateId(accountId)) {
             logger.log(Level.WARN, String.format("Cannot get user's cards (invalid principal %s or account id: %s)",
                     principal, accountId));
@@ -154,14 +164,14 @@ public class CustomerService {
     /**
      * Creates a Page of incoming payments by user's account
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @param amount a number of payments in a returning Page (a positive integer)
      * @param pageNumber a positive integer
      * @param sortType TransactionSortType. If a passed value is null, will be used a default sort type
      * @return a Page of user's accounts or null if parameters are invalid
      * @throws SQLException
      */
-    public Page<Payment> getUserIncomingPaymentsByAccount(Principal principal, BigInteger accountId, int amount,
+    public Page<Payment> getUserIncomingPaymentsByAccount(Principal principal, Long accountId, int amount,
                                                           int pageNumber, PaymentSortType sortType) throws SQLException {
         if (principal == null || !paramsValidator.validateId(accountId) ||
                 !paramsValidator.validatePageParams(amount, pageNumber)) {
@@ -174,7 +184,7 @@ public class CustomerService {
         }
         Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
         Optional<Account> account = accountDao.getSingleAccountByIdAndOwner(accountId, (person.isPresent()) ?
-                person.get().getId() : BigInteger.valueOf(-1L));
+                person.get().getId() : -1L);
         if (person.isPresent() && account.isPresent()) {
             int offset = amount * (pageNumber - 1);
             List<Payment> entries = paymentDao.getPaymentsByReceiverPage(account.get().getId(), amount, offset, sortType);
@@ -190,14 +200,14 @@ public class CustomerService {
     /**
      * Creates a Page of outgoing payments by user's account
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @param amount a number of payments in a returning Page (a positive integer)
      * @param pageNumber a positive integer
      * @param sortType TransactionSortType. If a passed value is null, will be used a default sort type
      * @return a Page of user's accounts or null if parameters are invalid
      * @throws SQLException
      */
-    public Page<Payment> getUserOutgoingPaymentsByAccount(Principal principal, BigInteger accountId, int amount,
+    public Page<Payment> getUserOutgoingPaymentsByAccount(Principal principal, Long accountId, int amount,
                                                           int pageNumber, PaymentSortType sortType) throws SQLException {
         if (principal == null || !paramsValidator.validateId(accountId) ||
                 !paramsValidator.validatePageParams(amount, pageNumber)) {
@@ -210,7 +220,7 @@ public class CustomerService {
         }
         Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
         Optional<Account> account = accountDao.getSingleAccountByIdAndOwner(accountId, (person.isPresent()) ?
-                person.get().getId() : BigInteger.valueOf(-1L));
+                person.get().getId() : -1L);
         if (person.isPresent() && account.isPresent()) {
             int offset = amount * (pageNumber - 1);
             List<Payment> entries = paymentDao.getPaymentsByPayerPage(account.get().getId(), amount, offset, sortType);
@@ -226,11 +236,11 @@ public class CustomerService {
     /**
      * Blocks a user's account
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @return true if an account was blocked, otherwise false
      * @throws SQLException
      */
-    public synchronized boolean blockUserAccount(Principal principal, BigInteger accountId) throws SQLException {
+    public boolean blockUserAccount(Principal principal, Long accountId) throws SQLException {
         if (principal == null || !paramsValidator.validateId(accountId)) {
             logger.log(Level.WARN, String.format("Cannot block user's account (invalid principal %s or account id: %s)",
                     principal, accountId));
@@ -257,11 +267,11 @@ public class CustomerService {
     /**
      * Blocks a user's card
      * @param principal java.security.Principal (from security context)
-     * @param cardId a positive BigInteger
+     * @param cardId a positive value
      * @return true if a card was blocked, otherwise false
      * @throws SQLException
      */
-    public boolean blockUserCard(Principal principal, BigInteger cardId) throws SQLException {
+    public boolean blockUserCard(Principal principal, Long cardId) throws SQLException {
         if (principal == null || !paramsValidator.validateId(cardId)) {
             logger.log(Level.WARN, String.format("Cannot block user's card (invalid principal %s or card id: %s)",
                     principal, cardId));
@@ -285,7 +295,7 @@ public class CustomerService {
      * Allows to top up an account by id (within the established limit). Performs a payment from the system account to
      * a customer's account
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger (a receiver)
+     * @param accountId a positive value (a receiver)
      * @param amount a positive BigDecimal
      * @return true if the specified top up limit will not be reached as a result of operation and payment
      * successfully finished or false in other cases
@@ -293,35 +303,41 @@ public class CustomerService {
      * @throws AccountLimitException if expected that the specified top up limit will be reached as an operation result
      * @throws PaymentParamException if invalid payment parameters passed
      */
-    public synchronized boolean topUpAccount(Principal principal, BigInteger accountId, BigDecimal amount) throws
+    public boolean topUpAccount(Principal principal, Long accountId, BigDecimal amount) throws
             SQLException, AccountLimitException, PaymentParamException, TransactionException {
         if (principal == null || !paramsValidator.validateId(accountId) || !paramsValidator.validatePaymentAmount(amount)) {
             logger.log(Level.WARN, String.format("Cannot top up account: incorrect payment parameters (principal %s, " +
                     "accountId: %s, amount: %s)", principal, accountId, amount));
             throw new PaymentParamException("Cannot top up account: incorrect payment parameters");
         }
-        Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
-        if (person.isPresent()) {
-            Optional<Account> account = accountDao.getSingleAccountByIdAndOwner(accountId, person.get().getId());
-            if (account.isPresent()) {
-                BigDecimal totalPerPeriod = paymentDao.getTotalReceiverIncomeByPayer(SYSTEM_INCOME_ID,
-                        account.get().getId(), TOP_UP_PERIOD_DAYS);
-                if (totalPerPeriod.add(amount).compareTo(MAX_TOP_UP_AMOUNT_PER_PERIOD) > 0) {
-                    logger.log(Level.INFO, String.format("Cannot top up account: entered amount exceeds allowable " +
-                            "limit [limit: %s, accrued: %s] (principal name: %s, accountId: %s, amount: %s)",
-                            MAX_TOP_UP_AMOUNT_PER_PERIOD, totalPerPeriod, principal.getName(), accountId, amount));
-                    throw new AccountLimitException("Entered amount exceeds allowable limit");
-                } else {
-                    logger.log(Level.TRACE, String.format("Try to top up user's account (principal name: %s, " +
-                                    "accountId: %s, amount: %s)", principal.getName(), accountId, amount));
-                    financialTransactionsPerformer.makePayment(amount, SYSTEM_INCOME_ID, account.get().getId());
-                    return true;
+        ReentrantLock customerLock = getCustomerLock(principal);
+        customerLock.lock();
+        try {
+            Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
+            if (person.isPresent()) {
+                Optional<Account> account = accountDao.getSingleAccountByIdAndOwner(accountId, person.get().getId());
+                if (account.isPresent()) {
+                    BigDecimal totalPerPeriod = paymentDao.getTotalReceiverIncomeByPayer(SYSTEM_INCOME_ID,
+                            account.get().getId(), TOP_UP_PERIOD_DAYS);
+                    if (totalPerPeriod.add(amount).compareTo(MAX_TOP_UP_AMOUNT_PER_PERIOD) > 0) {
+                        logger.log(Level.INFO, String.format("Cannot top up account: entered amount exceeds " +
+                                "allowable limit [limit: %s, accrued: %s] (principal name: %s, accountId: %s, amount: %s)",
+                                MAX_TOP_UP_AMOUNT_PER_PERIOD, totalPerPeriod, principal.getName(), accountId, amount));
+                        throw new AccountLimitException("Entered amount exceeds allowable limit");
+                    } else {
+                        logger.log(Level.TRACE, String.format("Try to top up user's account (principal name: %s, " +
+                                        "accountId: %s, amount: %s)", principal.getName(), accountId, amount));
+                        financialTransactionsPerformer.makePayment(amount, SYSTEM_INCOME_ID, account.get().getId());
+                        return true;
+                    }
                 }
             }
+            logger.log(Level.WARN, String.format("Cannot top up account: person or account are not found (principal " +
+                    "name: %s, accountId: %s, amount: %s)", principal.getName(), accountId, amount));
+            return false;
+        } finally {
+            customerLock.unlock();
         }
-        logger.log(Level.WARN, String.format("Cannot top up account: person or account are not found (principal " +
-                "name: %s, accountId: %s, amount: %s)", principal.getName(), accountId, amount));
-        return false;
     }
 
     /**
@@ -331,38 +347,46 @@ public class CustomerService {
      * @throws SQLException
      * @throws AccountLimitException if the maximum number of customer's accounts exceeded
      */
-    public synchronized boolean addUserAccount(Principal principal) throws SQLException, AccountLimitException {
+    public boolean addUserAccount(Principal principal) throws SQLException, AccountLimitException {
         if (principal == null) {
             logger.log(Level.WARN, "Cannot add user's account (invalid principal)");
             return false;
         }
-        Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
-        if (person.isPresent()) {
-            if (accountDao.countAccountsByOwner(person.get().getId()) < MAX_ACCOUNTS_PER_CUSTOMER) {
-                logger.log(Level.TRACE, String.format("Try to create a new user's account (user id: %s)",
-                        person.get().getId()));
-                Account accountDto = new Account(person.get().getId(), BigDecimal.ZERO, StatusType.ACTIVE);
-                return (accountDao.addAccount(accountDto) != null);
+        ReentrantLock customerLock = getCustomerLock(principal);
+        customerLock.lock();
+        try {
+            Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
+            if (person.isPresent()) {
+                if (accountDao.countAccountsByOwner(person.get().getId()) < MAX_ACCOUNTS_PER_CUSTOMER) {
+                    logger.log(Level.TRACE, String.format("Try to create a new user's account (user id: %s)",
+                            person.get().getId()));
+                    Account accountDto = new Account(person.get().getId(), BigDecimal.ZERO, StatusType.ACTIVE);
+                    return (accountDao.addAccount(accountDto) != null);
+                } else {
+                    logger.log(Level.INFO, String.format("Cannot create a new user's account (user id: %s): the " +
+                            "maximum number of customer's accounts (%s) exceeded", person.get().getId(),
+                            MAX_ACCOUNTS_PER_CUSTOMER));
+                    throw new AccountLimitException("The maximum number of customer's accounts exceeded");
+                }
             } else {
-                logger.log(Level.INFO, String.format("Cannot create a new user's account (user id: %s): the maximum " +
-                        "number of customer's accounts (%s) exceeded", person.get().getId(), MAX_ACCOUNTS_PER_CUSTOMER));
-                throw new AccountLimitException("The maximum number of customer's accounts exceeded");
+                logger.log(Level.WARN, String.format("Cannot add a new user's account (principal person is not " +
+                        "found: %s)",
+                        principal.getName()));
+                return false;
             }
-        } else {
-            logger.log(Level.WARN, String.format("Cannot add a new user's account (principal person is not found: %s)",
-                    principal.getName()));
-            return false;
+        } finally {
+            customerLock.unlock();
         }
     }
 
     /**
      * Removes a user's account. When removing transfers entire amount from the account to the system income
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @return true if a user's account was deleted or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean deleteUserAccount(Principal principal, BigInteger accountId) throws SQLException,
+    public boolean deleteUserAccount(Principal principal, Long accountId) throws SQLException,
             TransactionException {
         if (principal == null || !paramsValidator.validateId(accountId)) {
             logger.log(Level.WARN, String.format("Cannot delete a user's account: incorrect parameters (principal " +
@@ -383,46 +407,53 @@ public class CustomerService {
     /**
      * Adds a new user's card
      * @param principal java.security.Principal (from security context)
-     * @param accountId a positive BigInteger
+     * @param accountId a positive value
      * @param cardNetworkType not null CardNetworkType
      * @return true if a new card was added, otherwise false
      * @throws SQLException
      * @throws AccountLimitException if the maximum account cards number exceeded
      */
-    public synchronized String addUserCard(Principal principal, BigInteger accountId, CardNetworkType cardNetworkType)
+    public String addUserCard(Principal principal, Long accountId, CardNetworkType cardNetworkType)
             throws SQLException, AccountLimitException, TransactionException {
         if (principal == null || cardNetworkType == null || !paramsValidator.validateId(accountId)) {
             logger.log(Level.WARN, String.format("Cannot add user's card - incorrect parameters (principal %s, " +
                     "cardNetworkType: %s, accountId: %s)", principal, cardNetworkType, accountId));
             return "";
         }
-        Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
-        if (person.isPresent() && accountDao.getSingleAccountByIdAndOwner(accountId, person.get().getId()).isPresent()) {
-            String cvc = "";
-            if (cardDao.countCardsByAccount(accountId) < MAX_CARDS_PER_ACCOUNT) {
-                logger.log(Level.TRACE, String.format("Try to create a new user's card (account id: %s)", accountId));
-                cvc = financialTransactionsPerformer.issueCard(person.get().getId(), accountId, cardNetworkType);
+        ReentrantLock customerLock = getCustomerLock(principal);
+        customerLock.lock();
+        try {
+            Optional<Person> person = personDao.getSinglePersonByEmail(principal.getName());
+            if (person.isPresent() &&
+                    accountDao.getSingleAccountByIdAndOwner(accountId, person.get().getId()).isPresent()) {
+                String cvc = "";
+                if (cardDao.countCardsByAccount(accountId) < MAX_CARDS_PER_ACCOUNT) {
+                    logger.log(Level.TRACE, String.format("Try to create a new user's card (account id: %s)", accountId));
+                    cvc = financialTransactionsPerformer.issueCard(person.get().getId(), accountId, cardNetworkType);
+                } else {
+                    logger.log(Level.INFO, String.format("Cannot create a new user's card (user id: %s): the maximum " +
+                            "number of account cards (%s) exceeded", person.get().getId(), MAX_CARDS_PER_ACCOUNT));
+                    throw new AccountLimitException("The maximum number of customer's cards exceeded");
+                }
+                return cvc;
             } else {
-                logger.log(Level.INFO, String.format("Cannot create a new user's card (user id: %s): the maximum " +
-                        "number of account cards (%s) exceeded", person.get().getId(), MAX_CARDS_PER_ACCOUNT));
-                throw new AccountLimitException("The maximum number of customer's cards exceeded");
+                logger.log(Level.WARN, String.format("Cannot add card to account: person or account are not found " +
+                        "(principal name: %s, account id: %s)", principal.getName(), accountId));
+                return "";
             }
-            return cvc;
-        } else {
-            logger.log(Level.WARN, String.format("Cannot add card to account: person or account are not found " +
-                    "(principal name: %s, account id: %s)", principal.getName(), accountId));
-            return "";
+        } finally {
+            customerLock.unlock();
         }
     }
 
     /**
      * Removes a user's card
      * @param principal java.security.Principal (from security context)
-     * @param cardId a positive BigInteger
+     * @param cardId a positive value
      * @return true if a user's card was deleted or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean deleteUserCard(Principal principal, BigInteger cardId) throws SQLException {
+    public boolean deleteUserCard(Principal principal, Long cardId) throws SQLException {
         if (principal == null || !paramsValidator.validateId(cardId)) {
             logger.log(Level.WARN, String.format("Cannot delete a user's card: incorrect parameters (principal %s, " +
                             "card id: %s", principal, cardId));
@@ -443,16 +474,16 @@ public class CustomerService {
     /**
      * Performs a payment by using valid card to receiver's account
      * @param principal java.security.Principal (from security context)
-     * @param payerCardId a positive BigInteger
+     * @param payerCardId a positive value
      * @param cvc cvc-string (must contain three digits)
-     * @param receiverAccountId a positive BigInteger
+     * @param receiverAccountId a positive value
      * @param amount a positive BigDecimal
      * @throws SQLException
      * @throws PaymentParamException if invalid payment parameters passed
      * @throws TransactionException exception might be thrown by FinancialTransactionsPerformer instance
      */
-    public synchronized void performPayment(Principal principal, BigInteger payerCardId, String cvc,
-                                            BigInteger receiverAccountId, BigDecimal amount)
+    public void performPayment(Principal principal, Long payerCardId, String cvc,
+                               Long receiverAccountId, BigDecimal amount)
             throws SQLException, PaymentParamException, TransactionException {
         if (principal == null || !paramsValidator.validateId(payerCardId) ||
                 !paramsValidator.validatePaymentId(receiverAccountId) || !paramsValidator.validatePaymentAmount(amount)) {
@@ -476,4 +507,8 @@ public class CustomerService {
             }
         }
     }
+
+    private ReentrantLock getCustomerLock(Principal principal) {
+        return customerLocks[Math.floorMod(principal.getName().hashCode(), CUSTOMER_LOCK_STRIPES)];
+    }
 }
@@ -0,0 +1,245 @@
+package com.epam.upskillproject.model.service;
+
+import com.epam.upskillproject.model.dao.IdempotencyKeyDao;
+import com.epam.upskillproject.model.dto.IdempotencyRecord;
+import com.epam.upskillproject.util.init.PropertiesKeeper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps results of requests performed with idempotency keys, so a repeated request gets the result of the first one
+ * instead of being performed again. A key is reserved in the database before the request is performed (the primary key
+ * of the table lets only one of concurrent requests reserve it) and completed with the result afterwards. Completed
+ * records do not change, so they are also kept in a bounded in-memory cache: a repeated request is answered without
+ * database round trips. The cache is split into stripes with their own locks and LRU order, so lookups of different
+ * keys do not contend. Records expire after the configured time both in the cache and in the database
+ */
+@Singleton
+@Lock(LockType.READ)
+public class IdempotencyService {
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyService.class.getName());
+
+    private static final String TTL_MINUTES_PROP = "system.idempotency.ttlMinutes";
+    private static final String CACHE_MAX_ENTRIES_PROP = "system.idempotency.cache.maxEntries";
+    private static final String PURGE_PERIOD_MINUTES_PROP = "system.idempotency.purgePeriodMinutes";
+    private static final int DEFAULT_TTL_MINUTES = 1440;
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+    private static final int DEFAULT_PURGE_PERIOD_MINUTES = 30;
+    private static final int CACHE_STRIPES = 64;
+    private static final int MAX_MESSAGE_LENGTH = 255;
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final String FINGERPRINT_SEPARATOR = "\n";
+    private static final String PURGE_THREAD_NAME = "idempotency-keys-purge";
+
+    private final IdempotencyKeyDao idempotencyKeyDao;
+    private final PropertiesKeeper propertiesKeeper;
+    private CacheStripe[] cacheStripes;
+    private long ttlMinutes;
+    private ScheduledExecutorService purgeExecutor;
+
+    @Inject
+    public IdempotencyService(IdempotencyKeyDao idempotencyKeyDao, PropertiesKeeper propertiesKeeper) {
+        this.idempotencyKeyDao = idempotencyKeyDao;
+        this.propertiesKeeper = propertiesKeeper;
+    }
+
+    /**
+     * Reserves an idempotency key for a request of the owner
+     * @param owner a name of the caller principal
+     * @param key an idempotency key passed by the client
+     * @param operation an operation name
+     * @param fingerprint a fingerprint of the request parameters (see fingerprint())
+     * @return an empty Optional if the key is reserved by this call (the caller performs the request and then completes
+     * or releases the key), otherwise the record of the earlier request with the same key (a pending record if that
+     * request is still being performed)
+     * @throws SQLException
+     */
+    public Optional<IdempotencyRecord> reserve(String owner, String key, String operation, String fingerprint)
+            throws SQLException {
+        Optional<IdempotencyRecord> cached = getStripe(owner, key).get(cacheKey(owner, key));
+        if (cached.isPresent()) {
+            logger.log(Level.TRACE, String.format("Idempotency key found in cache (owner: %s, key: %s)", owner, key));
+            return cached;
+        }
+        if (idempotencyKeyDao.reserve(owner, key, operation, fingerprint)) {
+            return Optional.empty();
+        }
+        Optional<IdempotencyRecord> recorded = idempotencyKeyDao.getSingleRecord(owner, key);
+        if (recorded.isEmpty() || isExpired(recorded.get())) {
+            // the earlier record is released or expired and not purged yet, the key may be reused
+            recorded.ifPresent(record -> deleteQuietly(owner, key));
+            return (idempotencyKeyDao.reserve(owner, key, operation, fingerprint)) ? Optional.empty() :
+                    idempotencyKeyDao.getSingleRecord(owner, key);
+        }
+        if (recorded.get().isCompleted()) {
+            getStripe(owner, key).put(cacheKey(owner, key), recorded.get());
+        }
+        return recorded;
+    }
+
+    /**
+     * Records the result of a request which reserved the key
+     * @param message an error message or null if the request succeeded
+     */
+    public void complete(String owner, String key, int statusCode, String message) {
+        String recordedMessage = (message != null && message.length() > MAX_MESSAGE_LENGTH) ?
+                message.substring(0, MAX_MESSAGE_LENGTH) : message;
+        try {
+            if (idempotencyKeyDao.complete(owner, key, statusCode, recordedMessage)) {
+                Optional<IdempotencyRecord> recorded = idempotencyKeyDao.getSingleRecord(owner, key);
+                recorded.ifPresent(record -> getStripe(owner, key).put(cacheKey(owner, key), record));
+            }
+        } catch (SQLException e) {
+            // the key stays pending until it expires, repeated requests are rejected as being performed
+            logger.log(Level.ERROR, String.format("Cannot record result of idempotent request (owner: %s, key: %s, " +
+                    "status: %d)", owner, key, statusCode), e);
+        }
+    }
+
+    /**
+     * Releases a reserved key without a result, so the request can be repeated with the same key. Intended for requests
+     * which were not performed because of an internal error
+     */
+    public void release(String owner, String key) {
+        deleteQuietly(owner, key);
+    }
+
+    /**
+     * Builds a fingerprint of request parameters. A key reused with other parameters is a client error and is not
+     * answered with the recorded result
+     * @param params request parameters (null values are allowed)
+     * @return a hex string of 64 characters
+     */
+    public String fingerprint(String... params) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            for (String param : params) {
+                digest.update(String.valueOf(param).getBytes(StandardCharsets.UTF_8));
+                digest.update(FINGERPRINT_SEPARATOR.getBytes(StandardCharsets.UTF_8));
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Fingerprint algorithm is not available", e);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        ttlMinutes = propertiesKeeper.getIntOrDefault(TTL_MINUTES_PROP, DEFAULT_TTL_MINUTES);
+        int maxEntries = propertiesKeeper.getIntOrDefault(CACHE_MAX_ENTRIES_PROP, DEFAULT_CACHE_MAX_ENTRIES);
+        int maxStripeEntries = Math.max(maxEntries / CACHE_STRIPES, 1);
+        cacheStripes = Stream.generate(() -> new CacheStripe(maxStripeEntries))
+                .limit(CACHE_STRIPES)
+                .toArray(CacheStripe[]::new);
+        long purgePeriodMinutes = propertiesKeeper.getIntOrDefault(PURGE_PERIOD_MINUTES_PROP,
+                DEFAULT_PURGE_PERIOD_MINUTES);
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, PURGE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        purgeExecutor.scheduleWithFixedDelay(this::purgeExpired, purgePeriodMinutes, purgePeriodMinutes,
+                TimeUnit.MINUTES);
+        logger.log(Level.DEBUG, String.format("Idempotency keys service initialized (ttl: %d min, cache entries: %d)",
+                ttlMinutes, maxStripeEntries * CACHE_STRIPES));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            int deleted = idempotencyKeyDao.deleteExpired(LocalDateTime.now().minusMinutes(ttlMinutes));
+            logger.log(Level.DEBUG, String.format("Expired idempotency keys deleted: %d", deleted));
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.WARN, "Cannot delete expired idempotency keys", e);
+        }
+    }
+
+    private void deleteQuietly(String owner, String key) {
+        try {
+            idempotencyKeyDao.delete(owner, key);
+        } catch (SQLException e) {
+            logger.log(Level.WARN, String.format("Cannot delete idempotency key (owner: %s, key: %s)", owner, key), e);
+        }
+    }
+
+    private boolean isExpired(IdempotencyRecord record) {
+        return record.getCreated().plusMinutes(ttlMinutes).isBefore(LocalDateTime.now());
+    }
+
+    private CacheStripe getStripe(String owner, String key) {
+        return cacheStripes[Math.floorMod(cacheKey(owner, key).hashCode(), CACHE_STRIPES)];
+    }
+
+    private String cacheKey(String owner, String key) {
+        return owner + FINGERPRINT_SEPARATOR + key;
+    }
+
+    /**
+     * A part of the cache: an LRU map of completed records bounded by the number of entries
+     */
+    private class CacheStripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, IdempotencyRecord> records;
+
+        CacheStripe(int maxEntries) {
+            this.records = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        Optional<IdempotencyRecord> get(String cacheKey) {
+            lock.lock();
+            try {
+                IdempotencyRecord record = records.get(cacheKey);
+                if (record != null && isExpired(record)) {
+                    records.remove(cacheKey);
+                    record = null;
+                }
+                return Optional.ofNullable(record);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(String cacheKey, IdempotencyRecord record) {
+            lock.lock();
+            try {
+                records.put(cacheKey, record);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.epam.upskillproject.model.service;
 
+import com.epam.upskillproject.connect.customds.CustomPooledDataSource;
+import com.epam.upskillproject.connect.customds.PoolMetrics;
 import com.epam.upskillproject.exception.TransactionException;
 import com.epam.upskillproject.model.dao.CardDao;
 import com.epam.upskillproject.model.dao.queryhandler.FinancialTransactionsPerformer;
@@ -9,25 +11,31 @@ import com.epam.upskillproject.model.dto.*;
 import com.epam.upskillproject.model.dao.queryhandler.sqlorder.sort.PersonSortType;
 import com.epam.upskillproject.util.ParamsValidator;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import javax.sql.DataSource;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class SuperadminService {
 
     private static final Logger logger = LogManager.getLogger(SuperadminService.class.getName());
 
     private static final PersonSortType DEFAULT_PERSON_SORT_TYPE = PersonSortType.ID;
 
+    @Resource(lookup = "java:global/customProjectDB")
+    private DataSource dataSource;
     private final PersonDao personDao;
     private final CardDao cardDao;
     private final IncomeDao incomeDao;
@@ -84,11 +92,11 @@ public class SuperadminService {
 
     /**
      * Finds and returns an instance of an admin by id or null when there are no related records
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return a Person (admin's instance) | null - if it is not present or id is not valid
      * @throws SQLException
      */
-    public Person getAdmin(BigInteger id) throws SQLException {
+    public Person getAdmin(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot get admin (invalid id parameter - %s)", id));
             return null;
@@ -99,7 +107,7 @@ public class SuperadminService {
 
     /**
      * Updates admin's profile
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @param newRoleType might be null (in this case will be used old person's role type)
      * @param email an unique valid email
      * @param newPassword might be null (in this case will be used old person's password)
@@ -110,14 +118,14 @@ public class SuperadminService {
      * @return true if the specified admin's record was changed or false in other cases
      * @throws SQLException
      */
-    public synchronized boolean updateAdmin(BigInteger id,
-                                            RoleType newRoleType,
-                                            String email,
-                                            String newPassword,
-                                            String newFirstName,
-                                            String newLastName,
-                                            StatusType statusType,
-                                            LocalDate newRegDate) throws SQLException {
+    public boolean updateAdmin(Long id,
+                               RoleType newRoleType,
+                               String email,
+                               String newPassword,
+                               String newFirstName,
+                               String newLastName,
+                               StatusType statusType,
+                               LocalDate newRegDate) throws SQLException {
         if (!paramsValidator.validatePersonUpdateParams(id, email, newPassword, newFirstName, newLastName, statusType,
                 newRegDate)) {
             logger.log(Level.WARN, String.format("Cannot update admin (bad parameters passed) [id: %s]", id));
@@ -142,11 +150,11 @@ public class SuperadminService {
 
     /**
      * Removes the specified person. All the related accounts and cards will be also removed
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return true if a person was deleted, otherwise false
      * @throws TransactionException
      */
-    public boolean deletePerson(BigInteger id) throws TransactionException {
+    public boolean deletePerson(Long id) throws TransactionException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot delete person (bad id parameter passed: %s)", id));
             return false;
@@ -161,11 +169,11 @@ public class SuperadminService {
 
     /**
      * Removes the specified account. All the related cards will be also removed
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return true if an account was deleted, otherwise false
      * @throws TransactionException
      */
-    public boolean deleteAccount(BigInteger id) throws TransactionException {
+    public boolean deleteAccount(Long id) throws TransactionException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot delete account (bad id parameter passed: %s)", id));
             return false;
@@ -175,11 +183,11 @@ public class SuperadminService {
 
     /**
      * Removes the specified card
-     * @param id a positive BigInteger
+     * @param id a positive value
      * @return true if a card was deleted, otherwise false
      * @throws SQLException
      */
-    public boolean deleteCard(BigInteger id) throws SQLException {
+    public boolean deleteCard(Long id) throws SQLException {
         if (!paramsValidator.validateId(id)) {
             logger.log(Level.WARN, String.format("Cannot delete card (bad id parameter passed: %s)", id));
             return false;
@@ -195,4 +203,33 @@ public class SuperadminService {
     public BigDecimal getIncomeBalance() throws SQLException {
         return incomeDao.getBalance();
     }
+
+    /**
+     * Performs a bulk transfer (e.g. payouts to many receivers) in one transaction
+     * @param transfers transfer items
+     * @param atomicity ALL_OR_NOTHING to cancel the whole transfer if any item is rejected, PER_ITEM to skip rejected
+     *                  items
+     * @return results of the items in the order of passed items
+     * @throws TransactionException exception might be thrown by FinancialTransactionsPerformer instance
+     */
+    public List<TransferResult> performBulkTransfer(List<Transfer> transfers, TransferAtomicity atomicity)
+            throws TransactionException {
+        logger.log(Level.TRACE, String.format("Try to perform bulk transfer (items: %s, atomicity: %s)",
+                (transfers != null) ? transfers.size() : null, atomicity));
+        return financialTransactionsPerformer.makeBulkTransfer(transfers, atomicity);
+    }
+
+    /**
+     * Allows get runtime metrics of the connection pool (borrow wait, hold, creation and validation time histograms,
+     * connection gauges and timeout counters)
+     * @return PoolMetrics or empty Optional if the application data source is not CustomPooledDataSource
+     * @throws SQLException
+     */
+    public Optional<PoolMetrics> getPoolMetrics() throws SQLException {
+        if (!dataSource.isWrapperFor(CustomPooledDataSource.class)) {
+            logger.log(Level.DEBUG, "Pool metrics are not available (data source is not CustomPooledDataSource)");
+            return Optional.empty();
+        }
+        return Optional.of(dataSource.unwrap(CustomPooledDataSource.class).getPoolMetrics());
+    }
 }
@@ -7,22 +7,24 @@ import com.epam.upskillproject.model.dao.PersonDao;
 import com.epam.upskillproject.model.dto.*;
 import com.epam.upskillproject.util.ParamsValidator;
 import com.epam.upskillproject.util.RoleType;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.inject.Inject;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.Optional;
 
 @Singleton
+@Lock(LockType.READ)
 public class SystemService {
 
     private static final Logger logger = LogManager.getLogger(SystemService.class.getName());
 
-    private static final BigInteger SYSTEM_INCOME_ID = BigInteger.ZERO;
+    private static final Long SYSTEM_INCOME_ID = 0L;
     private static final BigDecimal INITIAL_BALANCE_AMOUNT = BigDecimal.valueOf(50.00);
 
     private final PersonDao personDao;
@@ -64,7 +66,7 @@ public class SystemService {
      * @throws SQLException
      * @throws TransactionException exception might be thrown by FinancialTransactionsPerformer instance
      */
-    public synchronized boolean addCustomer(String email, String password, String firstName, String lastName) throws
+    public boolean addCustomer(String email, String password, String firstName, String lastName) throws
             SQLException, TransactionException {
         if (!paramsValidator.validatePersonAddParams(email, password, firstName, lastName)) {
             logger.log(Level.WARN, String.format("Cannot add new customer (invalid parameters) [email: %s, password " +
@@ -135,7 +137,7 @@ public class SystemService {
      * @return true if a user's record was updated, otherwise false
      * @throws SQLException
      */
-    public synchronized boolean updateUser(String email, String newPassword, String newFirstName, String newLastName)
+    public boolean updateUser(String email, String newPassword, String newFirstName, String newLastName)
             throws SQLException {
         if (!paramsValidator.validatePersonAddParams(email, newPassword, newFirstName, newLastName)) {
             logger.log(Level.WARN, String.format("Cannot update user's record (invalid parameters) [email: %s, " +
@@ -3,7 +3,6 @@ package com.epam.upskillproject.util;
 import com.epam.upskillproject.model.dto.StatusType;
 import jakarta.ejb.Stateless;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.time.LocalDate;
 
 @Stateless
@@ -41,7 +40,7 @@ public class ParamsValidator {
 
     }
 
-    public boolean validatePersonUpdateParams(BigInteger id, String email, String password, String firstName,
+    public boolean validatePersonUpdateParams(Long id, String email, String password, String firstName,
                                               String lastName, StatusType statusType, LocalDate regDate) {
         return validateId(id) &&
                 validateEmail(email) &&
@@ -59,12 +58,12 @@ public class ParamsValidator {
         return (validatePositiveInt(amount) && validatePositiveInt(pageNumber));
     }
 
-    public boolean validateId(BigInteger id) {
-        return (id != null && id.compareTo(BigInteger.ZERO) > 0);
+    public boolean validateId(Long id) {
+        return (id != null && id > 0);
     }
 
-    public boolean validatePaymentId(BigInteger id) {
-        return (id != null && id.compareTo(BigInteger.ZERO) >= 0);
+    public boolean validatePaymentId(Long id) {
+        return (id != null && id >= 0);
     }
 
     public boolean validatePaymentAmount(BigDecimal amount) {
@@ -1,6 +1,8 @@
 package com.epam.upskillproject.util.init;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -16,6 +18,7 @@ import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 @Singleton
+@Lock(LockType.READ)
 public class PropertiesKeeper {
 
     private static final Logger logger = LogManager.getLogger(PropertiesKeeper.class.getName());
@@ -31,7 +34,8 @@ public class PropertiesKeeper {
             "/lang/ru/view.properties",
             "/lang/ru/statusmsg.properties"
     };
-    private Properties properties = new Properties();
+    // Replaced as a whole on (re)collection, so readers always see a completely filled instance
+    private volatile Properties properties = new Properties();
 
     @PostConstruct
     public void collectProperties() {
@@ -107,6 +111,21 @@ public class PropertiesKeeper {
         }
     }
 
+    public boolean getBooleanOrDefault(String key, boolean defaultValue) throws IllegalArgumentException {
+        if (key == null) {
+            logger.log(Level.WARN, "Passed property key is null");
+            throw new IllegalArgumentException("Property key may not be null");
+        }
+        String propStrValue = properties.getProperty(key);
+        if (Boolean.TRUE.toString().equalsIgnoreCase(propStrValue)) {
+            return true;
+        } else if (Boolean.FALSE.toString().equalsIgnoreCase(propStrValue)) {
+            return false;
+        } else {
+            return defaultValue;
+        }
+    }
+
     public BigDecimal getBigDecimal(String key) throws IllegalArgumentException {
         if (key == null) {
             logger.log(Level.WARN, "Passed property key is null");
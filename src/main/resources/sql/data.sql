@@ -250,6 +250,22 @@ INSERT INTO CARD (OWNER, ACCOUNT, NETWORK, CVC, STATUS, EXPDATE) VALUES (47, 53,
 INSERT INTO CARD (OWNER, ACCOUNT, NETWORK, CVC, STATUS, EXPDATE) VALUES (48, 54, 2, 'PBKDF2WithHmacSHA512:3072:gXGk+XuVq30wkdIiWX8Rq/KUbYf8jTWUHNbBzbPM/XY=:veW3PUuYmRudJ55ckgOq4vSVkBlx49dwPV3YOjgsyKI=', 2, STR_TO_DATE('11-05-2023', '%d-%m-%Y'));
 INSERT INTO CARD (OWNER, ACCOUNT, NETWORK, CVC, STATUS, EXPDATE) VALUES (48, 54, 5, 'PBKDF2WithHmacSHA512:3072:VJre64Xdy4vCUv8TMBsKErq2bGv6yrgpkbsxZKISDC4=:YHQZh2Bl2pUszWjZ0C7WQfO+FpGYMSE1iB9hkeFV0gI=', 2, STR_TO_DATE('15-05-2023', '%d-%m-%Y'));
 
-INSERT INTO INCOME (BALANCE) VALUES (1000000.00);
+INSERT INTO INCOME (SLOT, BALANCE) VALUES
+    (0, 62500.00),
+    (1, 62500.00),
+    (2, 62500.00),
+    (3, 62500.00),
+    (4, 62500.00),
+    (5, 62500.00),
+    (6, 62500.00),
+    (7, 62500.00),
+    (8, 62500.00),
+    (9, 62500.00),
+    (10, 62500.00),
+    (11, 62500.00),
+    (12, 62500.00),
+    (13, 62500.00),
+    (14, 62500.00),
+    (15, 62500.00);
 
 COMMIT;
\ No newline at end of file
@@ -3,6 +3,7 @@ CREATE DATABASE IF NOT EXISTS `upskill`;
 
 USE `upskill`;
 
+DROP TABLE IF EXISTS `IDEMPOTENCY_KEY`;
 DROP TABLE IF EXISTS `PAYMENT`;
 DROP TABLE IF EXISTS `INCOME`;
 DROP TABLE IF EXISTS `CARD`;
@@ -79,8 +80,10 @@ CREATE TABLE IF NOT EXISTS `CARD`
 
 CREATE TABLE IF NOT EXISTS `INCOME`
 (
+    `SLOT`        INTEGER NOT NULL,
     `BALANCE`     DECIMAL(20,2) NOT NULL,
-    CONSTRAINT `INC_POSITIVE_BALANCE` CHECK (`BALANCE` >= 0)
+    CONSTRAINT `INC_POSITIVE_BALANCE` CHECK (`BALANCE` >= 0),
+    PRIMARY KEY (`SLOT`)
     );
 
 CREATE TABLE IF NOT EXISTS `PAYMENT`
@@ -93,6 +96,18 @@ CREATE TABLE IF NOT EXISTS `PAYMENT`
     PRIMARY KEY (`ID`)
     );
 
+CREATE TABLE IF NOT EXISTS `IDEMPOTENCY_KEY`
+(
+    `OWNER`        VARCHAR(100) NOT NULL,
+    `IKEY`         VARCHAR(64) NOT NULL,
+    `OPERATION`    VARCHAR(20) NOT NULL,
+    `FINGERPRINT`  VARCHAR(64) NOT NULL,
+    `RESULT`       INTEGER,
+    `MESSAGE`      VARCHAR(255),
+    `CREATED`      DATETIME NOT NULL,
+    PRIMARY KEY (`OWNER`, `IKEY`)
+    );
+
 CREATE INDEX `I_PRSN_FSTNAME` ON `PERSON` (`FIRSTNAME`);
 CREATE INDEX `I_PRSN_LSTNAME` ON `PERSON` (`LASTNAME`);
 CREATE INDEX `I_PRSN_REGDATE` ON `PERSON` (`REGDATE`);
@@ -106,5 +121,58 @@ CREATE INDEX `I_PAYMNT_AMNT` ON `PAYMENT` (`AMOUNT`);
 CREATE INDEX `I_PAYMNT_PYR` ON `PAYMENT` (`PAYER`);
 CREATE INDEX `I_PAYMNT_RCVR` ON `PAYMENT` (`RECEIVER`);
 CREATE INDEX `I_PAYMNT_DATE` ON `PAYMENT` (`DATE`);
+CREATE INDEX `I_IDMP_CREATED` ON `IDEMPOTENCY_KEY` (`CREATED`);
+
+-- Performs a payment between two accounts or from an account to the system income (receiver 0) in one call.
+-- Account rows are locked in ascending id order, the commission goes to the income slot of the connection.
+-- Errors: SQLSTATE 45001 - an account is not found, 45002 - the receiver's account is blocked,
+-- error 3819 (ACC_POSITIVE_BALANCE) - the payer's balance is too low
+DROP PROCEDURE IF EXISTS `MAKE_PAYMENT`;
+
+CREATE PROCEDURE `MAKE_PAYMENT`(IN pAmount DECIMAL(20,2), IN pPayer BIGINT, IN pReceiver BIGINT,
+                                IN pCommissionRate DECIMAL(10,4))
+BEGIN
+    DECLARE vCommission DECIMAL(20,2) DEFAULT 0;
+    DECLARE vFound INTEGER DEFAULT 0;
+    DECLARE vStatus VARCHAR(10);
+    DECLARE vSlot INTEGER;
+    DECLARE vNow DATETIME DEFAULT NOW();
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    IF pAmount IS NULL OR pAmount <= 0 OR pPayer IS NULL OR pReceiver IS NULL OR pPayer = pReceiver THEN
+        SIGNAL SQLSTATE '45001' SET MESSAGE_TEXT = 'Incorrect payment parameters';
+    END IF;
+    SET TRANSACTION ISOLATION LEVEL READ COMMITTED;
+    START TRANSACTION;
+    SELECT COUNT(`ID`) INTO vFound FROM `ACCOUNT` WHERE `ID` IN (pPayer, pReceiver) FOR UPDATE;
+    IF vFound <> IF(pReceiver = 0, 1, 2) THEN
+        SIGNAL SQLSTATE '45001' SET MESSAGE_TEXT = 'Payer''s or receiver''s account not found';
+    END IF;
+    IF pReceiver <> 0 THEN
+        SELECT s.`NAME` INTO vStatus FROM `ACCOUNT` a JOIN `STATUS` s ON a.`STATUS` = s.`ID` WHERE a.`ID` = pReceiver;
+        IF vStatus = 'BLOCKED' THEN
+            SIGNAL SQLSTATE '45002' SET MESSAGE_TEXT = 'Receiver''s status does not allow to perform a payment';
+        END IF;
+        SET vCommission = ROUND(pAmount * pCommissionRate, 2);
+    END IF;
+    SELECT MOD(CONNECTION_ID(), COUNT(`SLOT`)) INTO vSlot FROM `INCOME`;
+
+    UPDATE `ACCOUNT` SET `BALANCE` = `BALANCE` - (pAmount + vCommission) WHERE `ID` = pPayer;
+    IF pReceiver = 0 THEN
+        UPDATE `INCOME` SET `BALANCE` = `BALANCE` + pAmount WHERE `SLOT` = vSlot;
+    ELSE
+        UPDATE `ACCOUNT` SET `BALANCE` = `BALANCE` + pAmount WHERE `ID` = pReceiver;
+    END IF;
+    INSERT INTO `PAYMENT` (`AMOUNT`, `PAYER`, `RECEIVER`, `DATE`) VALUES (pAmount, pPayer, pReceiver, vNow);
+    IF vCommission > 0 THEN
+        UPDATE `INCOME` SET `BALANCE` = `BALANCE` + vCommission WHERE `SLOT` = vSlot;
+        INSERT INTO `PAYMENT` (`AMOUNT`, `PAYER`, `RECEIVER`, `DATE`) VALUES (vCommission, pPayer, 0, vNow);
+    END IF;
+    COMMIT;
+END;
 
 COMMIT;
\ No newline at end of file
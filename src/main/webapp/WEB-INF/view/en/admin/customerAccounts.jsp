@@ -69,6 +69,12 @@
                                 <li class="nav-item">
                                     <a class="nav-link" href="/income">Income</a>
                                 </li>
+                                <li class="nav-item">
+                                    <a class="nav-link" href="/pool">Connection pool</a>
+                                </li>
+                                <li class="nav-item">
+                                    <a class="nav-link" href="/transfers">Bulk transfers</a>
+                                </li>
                             </c:if>
                         </ul>
                     </div>
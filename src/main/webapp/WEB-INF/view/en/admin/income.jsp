@@ -67,6 +67,12 @@
                             <li class="nav-item">
                                 <a class="nav-link active" aria-current="page" href="/income">Income</a>
                             </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/pool">Connection pool</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/transfers">Bulk transfers</a>
+                            </li>
 
                         </ul>
                     </div>
@@ -0,0 +1,158 @@
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="project" uri="/WEB-INF/upskill.tld" %>
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<!DOCTYPE html>
+<html>
+    <head>
+        <meta charset="utf-8" />
+        <meta name="description" content="UpSkillPAY - bulk transfers" />
+        <meta name="keywords" content="payment, customer, account" />
+        <meta name="author" content="P. Miakish" />
+        <meta name="viewport" content="width=device-width, initial-scale=1">
+        <link href="${pageContext.request.contextPath}/img/favicon.ico" rel="icon" type="image/x-icon" />
+        <link href="${pageContext.request.contextPath}/img/favicon-16x16.png" rel="icon" sizes="16x16" type="image/png">
+        <link href="https://cdn.jsdelivr.net/npm/bootstrap@5.1.1/dist/css/bootstrap.min.css" rel="stylesheet"
+              integrity="sha384-F3w7mX95PdgyTmZZMECAngseQB83DfGTowi0iMjiWaeVhAn4FJkqJByhZMI3AhiU" crossorigin="anonymous">
+        <title>Bulk transfers - UpSkillPAY</title>
+    </head>
+    <body>
+        <div class="container">
+            <br />
+            <div class="row">
+                <div class="col-3 align-self-center" >
+                    <a href="/" title="UpSkillPAY">
+                        <img src="${pageContext.request.contextPath}/img/logo.png" class="img-fluid" width="150"
+                             height="91" alt="UpSkillPAY logo" />
+                    </a>
+                </div>
+                <div class="col align-self-center">
+                    <h1>Bulk transfers</h1>
+                </div>
+                <div class="col-3">
+                    <c:if test="${user != null}">
+                        <br /><br /><strong>Superadmin:</strong><br />
+                        <a href="/profile" title="Edit profile">${user.email}</a><br />
+                        ${user.firstName} ${user.lastName}<br />
+                        <div class="d-grid gap-1 col-6 mx-auto">
+                            <a href="/logout" class="btn btn-outline-dark btn-sm" role="button">Logout</a>
+                        </div><br />
+                    </c:if>
+                </div>
+            </div>
+        </div>
+        <div class="container">
+            <nav class="navbar navbar-expand-lg navbar-light bg-light">
+                <div class="container-fluid">
+                    <a class="navbar-brand" href="/">UpSkillPay</a>
+                    <button class="navbar-toggler" type="button" data-bs-toggle="collapse" data-bs-target="#adminNavbar"
+                            aria-controls="adminNavbar" aria-expanded="false" aria-label="Toggle navigation">
+                        <span class="navbar-toggler-icon"></span>
+                    </button>
+                    <div class="collapse navbar-collapse" id="adminNavbar">
+                        <ul class="navbar-nav">
+                            <li class="nav-item">
+                                <a class="nav-link" href="/customers">Customers</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/accounts">Accounts</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/cards">Cards</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/payments">Payments</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/admins">Admins</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/income">Income</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/pool">Connection pool</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link active" aria-current="page" href="/transfers">Bulk transfers</a>
+                            </li>
+
+                        </ul>
+                    </div>
+                </div>
+            </nav>
+        </div>
+        <div class="container">
+            <%-- Operation status errorMessage --%>
+            <project:status operation="${opName}" result="${opStat}" message="${errMsg}" locale="${sessionScope.sessLoc}" />
+            <br />
+            <h3>New bulk transfer:</h3>
+            <form method="POST" action="/transfers" class="row g-3">
+                <input type="hidden" name="command" value="BULK_TRANSFER" />
+                <div class="mb-3">
+                    <label for="transfersInput" class="form-label"><strong>Transfers</strong></label>
+                    <textarea class="form-control" id="transfersInput" name="transfers" rows="10" required
+                              placeholder="payer's account, receiver's account, amount"><c:out value="${param.transfers}" /></textarea>
+                    <div class="form-text">One transfer per line: payer's account id, receiver's account id and amount
+                        (account 0 is the system income)</div>
+                </div>
+                <div class="mb-3">
+                    <label for="selectAtomicity" class="form-label"><strong>Atomicity</strong></label>
+                    <select class="form-select" id="selectAtomicity" name="atomicity">
+                        <option value="ALL_OR_NOTHING">All or nothing (a rejected transfer cancels the others)</option>
+                        <option value="PER_ITEM"<c:if test="${param.atomicity == 'PER_ITEM'}"> selected</c:if>>Per item (rejected transfers are skipped)</option>
+                    </select>
+                </div>
+                <div class="col-12">
+                    <button type="submit" class="btn btn-primary">Perform</button>
+                </div>
+            </form>
+            <c:if test="${results != null}">
+                <br /><h3>Results:</h3>
+                <p class="lead">Performed ${performed} of ${results.size()}</p>
+                <div class="table-responsive">
+                    <table class="table table-striped table-sm">
+                        <thead>
+                            <tr>
+                                <th scope="col">#</th>
+                                <th scope="col">Payer's account</th>
+                                <th scope="col">Receiver's account</th>
+                                <th scope="col">Amount</th>
+                                <th scope="col">Result</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <c:forEach var="result" items="${results}" varStatus="loop">
+                                <tr<c:if test="${!result.performed}"> class="table-danger"</c:if>>
+                                    <th scope="row">${loop.count}</th>
+                                    <td>${result.transfer.payerId}</td>
+                                    <td>${result.transfer.receiverId}</td>
+                                    <td>$${result.transfer.amount}</td>
+                                    <td>
+                                        <c:choose>
+                                            <c:when test="${result.performed}">Performed</c:when>
+                                            <c:when test="${result.reason == 'BAD_PARAM'}">Account not found or incorrect parameters</c:when>
+                                            <c:when test="${result.reason == 'FORBIDDEN_STATUS'}">Receiver's account is blocked</c:when>
+                                            <c:when test="${result.reason == 'LOW_BALANCE'}">Insufficient funds</c:when>
+                                            <c:otherwise>Cancelled</c:otherwise>
+                                        </c:choose>
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                        </tbody>
+                    </table>
+                </div>
+            </c:if>
+        </div>
+        <br /><br />
+        <div class="container" style="background-color: rgba(232, 232, 232, 0.3);">
+            <br />
+            <p class="text-center">
+                <a href="/lang?locale=ru&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   title="Русская версия">Русский</a>
+                &nbsp;|&nbsp;
+                <a href="/lang?locale=en&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   class="pe-none" tabindex="-1" aria-disabled="true">English</a>
+            </p>
+            <br />
+        </div>
+    </body>
+</html>
\ No newline at end of file
@@ -135,6 +135,7 @@
                         <div class="modal-body">
                             <input type="hidden" id="acc-id" name="accountId" />
                             <input type="hidden" name="command" value="INCREASE_ACCOUNT" />
+                            <input type="hidden" name="idempotencyKey" value="${idempotencyKey}" />
                             <div class="mb-3">
                                 You can replenish your account for no more than $100 per day
                                 <label for="amount" class="form-label">Amount:</label>
@@ -0,0 +1,187 @@
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<!DOCTYPE html>
+<html>
+    <head>
+        <meta charset="utf-8" />
+        <meta name="description" content="UpSkillPAY - состояние пула соединений" />
+        <meta name="keywords" content="платеж, клиент, счет" />
+        <meta name="author" content="P. Miakish" />
+        <meta name="viewport" content="width=device-width, initial-scale=1">
+        <link href="${pageContext.request.contextPath}/img/favicon.ico" rel="icon" type="image/x-icon" />
+        <link href="${pageContext.request.contextPath}/img/favicon-16x16.png" rel="icon" sizes="16x16" type="image/png">
+        <link href="https://cdn.jsdelivr.net/npm/bootstrap@5.1.1/dist/css/bootstrap.min.css" rel="stylesheet"
+              integrity="sha384-F3w7mX95PdgyTmZZMECAngseQB83DfGTowi0iMjiWaeVhAn4FJkqJByhZMI3AhiU" crossorigin="anonymous">
+        <title>Пул соединений - UpSkillPAY</title>
+    </head>
+    <body>
+        <div class="container">
+            <br />
+            <div class="row">
+                <div class="col-3 align-self-center" >
+                    <a href="/" title="UpSkillPAY">
+                        <img src="${pageContext.request.contextPath}/img/logo.png" class="img-fluid" width="150"
+                             height="91" alt="UpSkillPAY лого" />
+                    </a>
+                </div>
+                <div class="col align-self-center">
+                    <h1>Пул соединений</h1>
+                </div>
+                <div class="col-3">
+                    <c:if test="${user != null}">
+                        <br /><br /><strong>Главный администратор:</strong><br />
+                        <a href="/profile" title="Редактировать профиль">${user.email}</a><br />
+                        ${user.firstName} ${user.lastName}<br />
+                        <div class="d-grid gap-1 col-6 mx-auto">
+                            <a href="/logout" class="btn btn-outline-dark btn-sm" role="button">Выйти</a>
+                        </div><br />
+                    </c:if>
+                </div>
+            </div>
+        </div>
+        <div class="container">
+            <nav class="navbar navbar-expand-lg navbar-light bg-light">
+                <div class="container-fluid">
+                    <a class="navbar-brand" href="/">UpSkillPay</a>
+                    <button class="navbar-toggler" type="button" data-bs-toggle="collapse" data-bs-target="#adminNavbar"
+                            aria-controls="adminNavbar" aria-expanded="false" aria-label="Toggle navigation">
+                        <span class="navbar-toggler-icon"></span>
+                    </button>
+                    <div class="collapse navbar-collapse" id="adminNavbar">
+                        <ul class="navbar-nav">
+                            <li class="nav-item">
+                                <a class="nav-link" href="/customers">Клиенты</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/accounts">Счета</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/cards">Карты</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/payments">Платежи</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/admins">Администраторы</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/income">Системный счет</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/pool">Connection pool</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/transfers">Массовые переводы</a>
+                            </li>
+
+                        </ul>
+                    </div>
+                </div>
+            </nav>
+        </div>
+        <div class="container">
+            <br />
+            <c:if test="${metrics != null}">
+                <div class="row">
+                    <div class="col">
+                        <h3>Соединения</h3>
+                        <table class="table table-sm">
+                            <tr><td>Максимум</td><td>${metrics.maxConnections}</td></tr>
+                            <tr><td>Целевое число</td><td>${metrics.targetConnections}</td></tr>
+                            <tr><td>Всего</td><td>${metrics.totalConnections}</td></tr>
+                            <tr><td>Используются</td><td>${metrics.activeConnections}</td></tr>
+                            <tr><td>Свободны</td><td>${metrics.idleConnections}</td></tr>
+                            <tr><td>Ожидающие потоки</td><td>${metrics.waitingThreads}</td></tr>
+                        </table>
+                    </div>
+                    <div class="col">
+                        <h3>Счетчики</h3>
+                        <table class="table table-sm">
+                            <tr><td>Выдано соединений</td><td>${metrics.borrowCount}</td></tr>
+                            <tr><td>Отказы по таймауту</td><td>${metrics.timeoutCount}</td></tr>
+                            <tr><td>Ошибки создания соединений</td><td>${metrics.creationFailureCount}</td></tr>
+                            <tr><td>Подозрения на утечку</td><td>${metrics.leakCount}</td></tr>
+                            <tr><td>Принудительно закрыто</td><td>${metrics.reclaimCount}</td></tr>
+                        </table>
+                    </div>
+                </div>
+                <h3>Время, мкс</h3>
+                <div class="table-responsive">
+                    <table class="table table-striped table-sm">
+                        <thead>
+                            <tr>
+                                <th scope="col">Метрика</th>
+                                <th scope="col">Количество</th>
+                                <th scope="col">Среднее</th>
+                                <th scope="col">p50</th>
+                                <th scope="col">p95</th>
+                                <th scope="col">p99</th>
+                                <th scope="col">p99.9</th>
+                                <th scope="col">max</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <c:set var="latency" value="${metrics.borrowWait}" />
+                            <tr>
+                                <td>Ожидание соединения</td>
+                                <td>${latency.count}</td>
+                                <td>${latency.meanMicros}</td>
+                                <td>${latency.p50Micros}</td>
+                                <td>${latency.p95Micros}</td>
+                                <td>${latency.p99Micros}</td>
+                                <td>${latency.p999Micros}</td>
+                                <td>${latency.maxMicros}</td>
+                            </tr>
+                            <c:set var="latency" value="${metrics.holdTime}" />
+                            <tr>
+                                <td>Удержание соединения</td>
+                                <td>${latency.count}</td>
+                                <td>${latency.meanMicros}</td>
+                                <td>${latency.p50Micros}</td>
+                                <td>${latency.p95Micros}</td>
+                                <td>${latency.p99Micros}</td>
+                                <td>${latency.p999Micros}</td>
+                                <td>${latency.maxMicros}</td>
+                            </tr>
+                            <c:set var="latency" value="${metrics.creationTime}" />
+                            <tr>
+                                <td>Создание соединения</td>
+                                <td>${latency.count}</td>
+                                <td>${latency.meanMicros}</td>
+                                <td>${latency.p50Micros}</td>
+                                <td>${latency.p95Micros}</td>
+                                <td>${latency.p99Micros}</td>
+                                <td>${latency.p999Micros}</td>
+                                <td>${latency.maxMicros}</td>
+                            </tr>
+                            <c:set var="latency" value="${metrics.validationTime}" />
+                            <tr>
+                                <td>Проверка соединения</td>
+                                <td>${latency.count}</td>
+                                <td>${latency.meanMicros}</td>
+                                <td>${latency.p50Micros}</td>
+                                <td>${latency.p95Micros}</td>
+                                <td>${latency.p99Micros}</td>
+                                <td>${latency.p999Micros}</td>
+                                <td>${latency.maxMicros}</td>
+                            </tr>
+                        </tbody>
+                    </table>
+                </div>
+            </c:if>
+            <c:if test="${metrics == null}"><div class="alert alert-danger" role="alert">Метрики пула соединений недоступны</div></c:if>
+        </div>
+        <br /><br />
+        <div class="container" style="background-color: rgba(232, 232, 232, 0.3);">
+            <br />
+            <p class="text-center">
+                <a href="/lang?locale=ru&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   class="pe-none" tabindex="-1" aria-disabled="true">Русский</a>
+                &nbsp;|&nbsp;
+                <a href="/lang?locale=en&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   title="English version">English</a>
+            </p>
+            <br />
+        </div>
+    </body>
+</html>
\ No newline at end of file
@@ -0,0 +1,158 @@
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="project" uri="/WEB-INF/upskill.tld" %>
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<!DOCTYPE html>
+<html>
+    <head>
+        <meta charset="utf-8" />
+        <meta name="description" content="UpSkillPAY - массовые переводы" />
+        <meta name="keywords" content="платеж, клиент, счет" />
+        <meta name="author" content="P. Miakish" />
+        <meta name="viewport" content="width=device-width, initial-scale=1">
+        <link href="${pageContext.request.contextPath}/img/favicon.ico" rel="icon" type="image/x-icon" />
+        <link href="${pageContext.request.contextPath}/img/favicon-16x16.png" rel="icon" sizes="16x16" type="image/png">
+        <link href="https://cdn.jsdelivr.net/npm/bootstrap@5.1.1/dist/css/bootstrap.min.css" rel="stylesheet"
+              integrity="sha384-F3w7mX95PdgyTmZZMECAngseQB83DfGTowi0iMjiWaeVhAn4FJkqJByhZMI3AhiU" crossorigin="anonymous">
+        <title>Массовые переводы - UpSkillPAY</title>
+    </head>
+    <body>
+        <div class="container">
+            <br />
+            <div class="row">
+                <div class="col-3 align-self-center" >
+                    <a href="/" title="UpSkillPAY">
+                        <img src="${pageContext.request.contextPath}/img/logo.png" class="img-fluid" width="150"
+                             height="91" alt="UpSkillPAY лого" />
+                    </a>
+                </div>
+                <div class="col align-self-center">
+                    <h1>Массовые переводы</h1>
+                </div>
+                <div class="col-3">
+                    <c:if test="${user != null}">
+                        <br /><br /><strong>Главный администратор:</strong><br />
+                        <a href="/profile" title="Редактировать профиль">${user.email}</a><br />
+                        ${user.firstName} ${user.lastName}<br />
+                        <div class="d-grid gap-1 col-6 mx-auto">
+                            <a href="/logout" class="btn btn-outline-dark btn-sm" role="button">Выйти</a>
+                        </div><br />
+                    </c:if>
+                </div>
+            </div>
+        </div>
+        <div class="container">
+            <nav class="navbar navbar-expand-lg navbar-light bg-light">
+                <div class="container-fluid">
+                    <a class="navbar-brand" href="/">UpSkillPay</a>
+                    <button class="navbar-toggler" type="button" data-bs-toggle="collapse" data-bs-target="#adminNavbar"
+                            aria-controls="adminNavbar" aria-expanded="false" aria-label="Toggle navigation">
+                        <span class="navbar-toggler-icon"></span>
+                    </button>
+                    <div class="collapse navbar-collapse" id="adminNavbar">
+                        <ul class="navbar-nav">
+                            <li class="nav-item">
+                                <a class="nav-link" href="/customers">Клиенты</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/accounts">Счета</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/cards">Карты</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/payments">Платежи</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/admins">Администраторы</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/income">Системный счет</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link" href="/pool">Connection pool</a>
+                            </li>
+                            <li class="nav-item">
+                                <a class="nav-link active" aria-current="page" href="/transfers">Массовые переводы</a>
+                            </li>
+
+                        </ul>
+                    </div>
+                </div>
+            </nav>
+        </div>
+        <div class="container">
+            <%-- Operation status errorMessage --%>
+            <project:status operation="${opName}" result="${opStat}" message="${errMsg}" locale="${sessionScope.sessLoc}" />
+            <br />
+            <h3>Новый массовый перевод:</h3>
+            <form method="POST" action="/transfers" class="row g-3">
+                <input type="hidden" name="command" value="BULK_TRANSFER" />
+                <div class="mb-3">
+                    <label for="transfersInput" class="form-label"><strong>Переводы</strong></label>
+                    <textarea class="form-control" id="transfersInput" name="transfers" rows="10" required
+                              placeholder="счет плательщика, счет получателя, сумма"><c:out value="${param.transfers}" /></textarea>
+                    <div class="form-text">Один перевод в строке: номер счета плательщика, номер счета получателя и сумма
+                        (счет 0 - системный счет)</div>
+                </div>
+                <div class="mb-3">
+                    <label for="selectAtomicity" class="form-label"><strong>Атомарность</strong></label>
+                    <select class="form-select" id="selectAtomicity" name="atomicity">
+                        <option value="ALL_OR_NOTHING">Все или ничего (отклоненный перевод отменяет остальные)</option>
+                        <option value="PER_ITEM"<c:if test="${param.atomicity == 'PER_ITEM'}"> selected</c:if>>Каждый перевод отдельно (отклоненные переводы пропускаются)</option>
+                    </select>
+                </div>
+                <div class="col-12">
+                    <button type="submit" class="btn btn-primary">Выполнить</button>
+                </div>
+            </form>
+            <c:if test="${results != null}">
+                <br /><h3>Результаты:</h3>
+                <p class="lead">Выполнено ${performed} из ${results.size()}</p>
+                <div class="table-responsive">
+                    <table class="table table-striped table-sm">
+                        <thead>
+                            <tr>
+                                <th scope="col">#</th>
+                                <th scope="col">Счет плательщика</th>
+                                <th scope="col">Счет получателя</th>
+                                <th scope="col">Сумма</th>
+                                <th scope="col">Результат</th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <c:forEach var="result" items="${results}" varStatus="loop">
+                                <tr<c:if test="${!result.performed}"> class="table-danger"</c:if>>
+                                    <th scope="row">${loop.count}</th>
+                                    <td>${result.transfer.payerId}</td>
+                                    <td>${result.transfer.receiverId}</td>
+                                    <td>$${result.transfer.amount}</td>
+                                    <td>
+                                        <c:choose>
+                                            <c:when test="${result.performed}">Выполнен</c:when>
+                                            <c:when test="${result.reason == 'BAD_PARAM'}">Счет не найден или неверные параметры</c:when>
+                                            <c:when test="${result.reason == 'FORBIDDEN_STATUS'}">Счет получателя заблокирован</c:when>
+                                            <c:when test="${result.reason == 'LOW_BALANCE'}">Недостаточно средств</c:when>
+                                            <c:otherwise>Отменен</c:otherwise>
+                                        </c:choose>
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                        </tbody>
+                    </table>
+                </div>
+            </c:if>
+        </div>
+        <br /><br />
+        <div class="container" style="background-color: rgba(232, 232, 232, 0.3);">
+            <br />
+            <p class="text-center">
+                <a href="/lang?locale=ru&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   class="pe-none" tabindex="-1" aria-disabled="true">Русский</a>
+                &nbsp;|&nbsp;
+                <a href="/lang?locale=en&uri=${requestScope['jakarta.servlet.forward.request_uri']}"
+                   title="English version">English</a>
+            </p>
+            <br />
+        </div>
+    </body>
+</html>
\ No newline at end of file
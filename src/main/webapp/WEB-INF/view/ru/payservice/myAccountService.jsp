@@ -195,6 +195,7 @@
                               class="needs-validation" novalidate onsubmit="return confirm('Вы уверены? Итоговая ' +
                                'сумма с комиссией составит ' + getTotal());">
                             <input type="hidden" name="command" value="PAYMENT" />
+                            <input type="hidden" name="idempotencyKey" value="${idempotencyKey}" />
                             <div class="input-group mb-3">
                                 <label class="input-group-text" for="inputCard">Карта</label>
                                 <select class="form-select" id="inputCard" name="cardId" required>
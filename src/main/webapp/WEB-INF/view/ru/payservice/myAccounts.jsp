@@ -135,6 +135,7 @@
                         <div class="modal-body">
                             <input type="hidden" id="acc-id" name="accountId" />
                             <input type="hidden" name="command" value="INCREASE_ACCOUNT" />
+                            <input type="hidden" name="idempotencyKey" value="${idempotencyKey}" />
                             <div class="mb-3">
                                 Вы можете пополнить свой счет не более, чем на $100 в сутки
                                 <label for="amount" class="form-label">Сумма:</label>
@@ -4,7 +4,6 @@ import com.epam.upskillproject.model.dto.StatusType;
 import com.epam.upskillproject.util.ParamsValidator;
 import org.junit.Test;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.time.LocalDate;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
@@ -58,26 +57,26 @@ public class ParamsValidatorTest {
 
     @Test
     public void testCorrectIdValidation() {
-        assertTrue(paramsValidator.validateId(new BigInteger("15")));
-        assertTrue(paramsValidator.validateId(new BigInteger("1000005")));
+        assertTrue(paramsValidator.validateId(15L));
+        assertTrue(paramsValidator.validateId(1000005L));
     }
 
     @Test
     public void testIncorrectIdValidation() {
-        assertFalse(paramsValidator.validateId(new BigInteger("-15")));
-        assertFalse(paramsValidator.validateId(new BigInteger("0")));
+        assertFalse(paramsValidator.validateId(-15L));
+        assertFalse(paramsValidator.validateId(0L));
     }
 
     @Test
     public void testCorrectPaymentIdValidation() {
-        assertTrue(paramsValidator.validatePaymentId(new BigInteger("15")));
-        assertTrue(paramsValidator.validatePaymentId(BigInteger.ZERO));
+        assertTrue(paramsValidator.validatePaymentId(15L));
+        assertTrue(paramsValidator.validatePaymentId(0L));
     }
 
     @Test
     public void testIncorrectPaymentIdValidation() {
-        assertFalse(paramsValidator.validatePaymentId(new BigInteger("-15")));
-        assertFalse(paramsValidator.validatePaymentId(new BigInteger("-11111")));
+        assertFalse(paramsValidator.validatePaymentId(-15L));
+        assertFalse(paramsValidator.validatePaymentId(-11111L));
     }
 
     @Test
@@ -119,17 +118,17 @@ public class ParamsValidatorTest {
 
     @Test
     public void testCorrectPersonUpdateParamsValidation() {
-        assertTrue(paramsValidator.validatePersonUpdateParams(new BigInteger("12"), "correctemail@mail.com", "password",
+        assertTrue(paramsValidator.validatePersonUpdateParams(12L, "correctemail@mail.com", "password",
                 "Ihar", "Alekseev", StatusType.ACTIVE, LocalDate.now()));
-        assertTrue(paramsValidator.validatePersonUpdateParams(new BigInteger("1"), "correct-email@mail.ru", null,
+        assertTrue(paramsValidator.validatePersonUpdateParams(1L, "correct-email@mail.ru", null,
                 "Игорь", "Алексеев", StatusType.BLOCKED, LocalDate.now()));
     }
 
     @Test
     public void testIncorrectPersonUpdateParamsValidation() {
-        assertFalse(paramsValidator.validatePersonUpdateParams(new BigInteger("-12"), "correctemail@mail.com", "password",
+        assertFalse(paramsValidator.validatePersonUpdateParams(-12L, "correctemail@mail.com", "password",
                 "Ihar", "Alekseev", StatusType.ACTIVE, LocalDate.now()));
-        assertFalse(paramsValidator.validatePersonUpdateParams(new BigInteger("1"), "incorrect email@mail.ru", null,
+        assertFalse(paramsValidator.validatePersonUpdateParams(1L, "incorrect email@mail.ru", null,
                 "Игорь", "Алексеев", StatusType.BLOCKED, LocalDate.now()));
     }
 
@@ -0,0 +1,166 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class ConnectionBagTest {
+
+    private static final long AWAIT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private ConnectionBag connectionBag;
+
+    @Before
+    public void createBag() {
+        StubJdbc.reset();
+        connectionBag = new ConnectionBag();
+    }
+
+    @Test
+    public void testSlotReservationLimited() {
+        assertTrue(connectionBag.tryReserve(2));
+        assertTrue(connectionBag.tryReserve(2));
+        assertFalse(connectionBag.tryReserve(2));
+        connectionBag.cancelReservation();
+        assertEquals(1, connectionBag.size());
+        assertTrue(connectionBag.tryReserve(2));
+    }
+
+    @Test
+    public void testMostRecentlyReturnedConnectionBorrowedFirst() {
+        PoolConnection first = addConnection();
+        PoolConnection second = addConnection();
+        assertEquals(2, connectionBag.activeCount());
+        connectionBag.requite(first);
+        connectionBag.requite(second);
+        assertEquals(2, connectionBag.idleCount());
+        assertSame(second, connectionBag.poll());
+        assertSame(first, connectionBag.poll());
+        assertNull(connectionBag.poll());
+        assertEquals(2, connectionBag.activeCount());
+    }
+
+    @Test
+    public void testReservedConnectionNotBorrowed() {
+        PoolConnection connection = addConnection();
+        connectionBag.requite(connection);
+        assertTrue(connectionBag.reserve(connection));
+        assertFalse(connectionBag.reserve(connection));
+        assertNull(connectionBag.poll());
+        connectionBag.unreserve(connection);
+        assertSame(connection, connectionBag.poll());
+    }
+
+    @Test
+    public void testRemovedConnectionFreesSlot() {
+        PoolConnection connection = addConnection();
+        connectionBag.requite(connection);
+        assertTrue(connectionBag.remove(connection));
+        assertFalse(connectionBag.contains(connection));
+        assertEquals(0, connectionBag.size());
+        assertNull(connectionBag.poll());
+    }
+
+    @Test
+    public void testAwaitTimeout() throws InterruptedException {
+        addConnection();
+        assertNull(connectionBag.await(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertEquals(0, connectionBag.waitersCount());
+    }
+
+    @Test
+    public void testReturnedConnectionHandedOffToWaiter() throws Exception {
+        PoolConnection connection = addConnection();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PoolConnection> waiter = executor.submit(() -> connectionBag.await(AWAIT_TIMEOUT_NANOS));
+            while (connectionBag.waitersCount() == 0) {
+                Thread.sleep(1);
+            }
+            connectionBag.requite(connection);
+            assertSame(connection, waiter.get(AWAIT_TIMEOUT_NANOS, TimeUnit.NANOSECONDS));
+            assertEquals(PoolConnection.STATE_IN_USE, connection.getState());
+            assertNull(connectionBag.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConnectionsNotSharedUnderContention() throws Exception {
+        int connectionsNumber = 2;
+        int threadsNumber = 8;
+        int borrowsPerThread = 2000;
+        for (int i = 0; i < connectionsNumber; i++) {
+            connectionBag.requite(addConnection());
+        }
+        Map<PoolConnection, Thread> owners = new ConcurrentHashMap<>();
+        AtomicInteger sharedBorrows = new AtomicInteger();
+        AtomicInteger failedBorrows = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadsNumber);
+        try {
+            List<Future<?>> borrowers = new ArrayList<>();
+            for (int i = 0; i < threadsNumber; i++) {
+                borrowers.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < borrowsPerThread; j++) {
+                        PoolConnection connection = connectionBag.poll();
+                        if (connection == null) {
+                            connection = connectionBag.await(AWAIT_TIMEOUT_NANOS);
+                        }
+                        if (connection == null) {
+                            failedBorrows.incrementAndGet();
+                            continue;
+                        }
+                        if (owners.putIfAbsent(connection, Thread.currentThread()) != null) {
+                            sharedBorrows.incrementAndGet();
+                            continue;
+                        }
+                        Thread.yield();
+                        owners.remove(connection);
+                        connectionBag.requite(connection);
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> borrower : borrowers) {
+                borrower.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, sharedBorrows.get());
+        assertEquals(0, failedBorrows.get());
+        assertEquals(connectionsNumber, connectionBag.idleCount());
+        assertEquals(0, connectionBag.activeCount());
+        assertEquals(0, connectionBag.waitersCount());
+        for (int i = 0; i < connectionsNumber; i++) {
+            assertNotNull(connectionBag.poll());
+        }
+        assertNull(connectionBag.poll());
+    }
+
+    private PoolConnection addConnection() {
+        assertTrue(connectionBag.tryReserve(Integer.MAX_VALUE));
+        PoolConnection connection = new PoolConnection(null, StubJdbc.newConnection().getProxy(), null);
+        connectionBag.register(connection);
+        return connection;
+    }
+}
@@ -0,0 +1,62 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Properties;
+import static junit.framework.TestCase.assertEquals;
+
+public class PoolConnectionTest {
+
+    private static final String UPDATE_QUERY = "UPDATE ACCOUNT SET BALANCE = BALANCE + 1 WHERE ID = ?";
+
+    private CustomPooledDataSource pool;
+    private StubJdbc.StubConnection driverConnection;
+
+    @Before
+    public void startPool() throws ReflectiveOperationException {
+        StubJdbc.reset();
+        Properties properties = new Properties();
+        properties.setProperty("cp.minConnectionsNumber", "1");
+        properties.setProperty("cp.maxConnectionsNumber", "1");
+        pool = StubJdbc.startPool(properties);
+        driverConnection = StubJdbc.getConnections().get(0);
+    }
+
+    @After
+    public void shutdownPool() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRollbackOfStatementPreparedBeforeCommit() throws Exception {
+        Connection conn = pool.getConnection();
+        PreparedStatement statement = conn.prepareStatement(UPDATE_QUERY);
+        conn.setAutoCommit(false);
+        conn.commit();
+        statement.setLong(1, 1L);
+        statement.executeUpdate();
+        conn.rollback();
+        assertEquals(1, driverConnection.getRollbacks());
+        conn.setAutoCommit(true);
+        conn.close();
+    }
+
+    @Test
+    public void testUnfinishedTransactionRolledBackOnRelease() throws Exception {
+        Connection conn = pool.getConnection();
+        PreparedStatement statement = conn.prepareStatement(UPDATE_QUERY);
+        conn.setAutoCommit(false);
+        conn.commit();
+        int commits = driverConnection.getCommits();
+        statement.setLong(1, 1L);
+        statement.executeUpdate();
+        conn.close();
+        assertEquals(1, driverConnection.getRollbacks());
+        // switching auto-commit back on after the rollback has nothing to commit
+        assertEquals(commits + 1, driverConnection.getCommits());
+        assertEquals(1, pool.getPoolMetrics().getIdleConnections());
+    }
+}
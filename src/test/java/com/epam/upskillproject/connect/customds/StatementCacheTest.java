@@ -0,0 +1,109 @@
+package com.epam.upskillproject.connect.customds;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class StatementCacheTest {
+
+    private static final String QUERY_A = "SELECT ID FROM ACCOUNT WHERE ID = ?";
+    private static final String QUERY_B = "SELECT ID FROM CARD WHERE ID = ?";
+    private static final String QUERY_C = "SELECT ID FROM PERSON WHERE ID = ?";
+
+    private StatementCacheStatistics statistics;
+    private StatementCache statementCache;
+    private StubJdbc.StubConnection driverConnection;
+
+    @Before
+    public void createCache() {
+        StubJdbc.reset();
+        statistics = new StatementCacheStatistics();
+        statementCache = new StatementCache(2, statistics);
+        driverConnection = StubJdbc.newConnection();
+    }
+
+    @Test
+    public void testClosedStatementReused() throws SQLException {
+        PreparedStatement first = prepare(QUERY_A);
+        first.close();
+        PreparedStatement second = prepare(QUERY_A);
+        assertSame(first, second);
+        assertEquals(1, driverConnection.getStatements().size());
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test
+    public void testStatementInUseNotShared() throws SQLException {
+        prepare(QUERY_A);
+        assertNull(prepare(QUERY_A));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementEvictedAndClosed() throws SQLException {
+        prepare(QUERY_A).close();
+        prepare(QUERY_B).close();
+        // QUERY_A becomes the most recently used one
+        prepare(QUERY_A).close();
+        prepare(QUERY_C).close();
+        List<StubJdbc.StubStatement> statements = driverConnection.getStatements();
+        assertEquals(3, statements.size());
+        assertFalse(statements.get(0).isClosed());
+        assertTrue(statements.get(1).isClosed());
+        assertFalse(statements.get(2).isClosed());
+        assertEquals(2, statementCache.size());
+        assertEquals(1, statistics.getEvictions());
+    }
+
+    @Test
+    public void testEvictedStatementInUseClosedOnReturn() throws SQLException {
+        PreparedStatement inUse = prepare(QUERY_A);
+        prepare(QUERY_B).close();
+        prepare(QUERY_C).close();
+        StubJdbc.StubStatement evicted = driverConnection.getStatements().get(0);
+        assertFalse(evicted.isClosed());
+        inUse.close();
+        assertTrue(evicted.isClosed());
+    }
+
+    @Test
+    public void testStatementResetOnReturn() throws SQLException {
+        PreparedStatement statement = prepare(QUERY_A);
+        statement.setLong(1, 1L);
+        statement.addBatch();
+        statement.setFetchSize(100);
+        statement.setMaxRows(10);
+        statement.setQueryTimeout(5);
+        statement.close();
+        StubJdbc.StubStatement driverStatement = driverConnection.getStatements().get(0);
+        assertEquals(0, driverStatement.getPendingBatch());
+        assertEquals(0, driverStatement.getFetchSize());
+        assertEquals(0, driverStatement.getMaxRows());
+        assertEquals(0, driverStatement.getQueryTimeout());
+        PreparedStatement reused = prepare(QUERY_A);
+        reused.executeBatch();
+        assertEquals(0, driverStatement.getExecutedBatchItems());
+    }
+
+    @Test
+    public void testClearClosesAllStatements() throws SQLException {
+        prepare(QUERY_A).close();
+        prepare(QUERY_B).close();
+        statementCache.clear();
+        assertEquals(0, statementCache.size());
+        driverConnection.getStatements().forEach(statement -> assertTrue(statement.isClosed()));
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        Connection conn = driverConnection.getProxy();
+        return statementCache.prepare(conn, conn, sql);
+    }
+}
@@ -0,0 +1,427 @@
+package com.epam.upskillproject.connect.customds;
+
+import com.epam.upskillproject.util.init.PropertiesKeeper;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory JDBC driver for tests of the pool and the query layer. Connections, statements and result sets are
+ * dynamic proxies which record calls (commits, rollbacks, statement texts, bound parameters, statement settings,
+ * batches) and return the rows set by setRows() for every query
+ */
+public final class StubJdbc {
+
+    public static final String URL = "jdbc:stub:upskill";
+
+    private static final List<StubConnection> connections = Collections.synchronizedList(new ArrayList<>());
+    private static volatile String[] columns = new String[0];
+    private static volatile List<Object[]> rows = new ArrayList<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private StubJdbc() {
+    }
+
+    /**
+     * Forgets opened connections and query rows
+     */
+    public static void reset() {
+        connections.clear();
+        columns = new String[0];
+        rows = new ArrayList<>();
+    }
+
+    public static void setRows(String[] columnNames, List<Object[]> resultRows) {
+        columns = columnNames.clone();
+        rows = new ArrayList<>(resultRows);
+    }
+
+    public static List<StubConnection> getConnections() {
+        synchronized (connections) {
+            return new ArrayList<>(connections);
+        }
+    }
+
+    public static StubConnection newConnection() {
+        StubConnection connection = new StubConnection();
+        connections.add(connection);
+        return connection;
+    }
+
+    /**
+     * Starts a pool over stub connections
+     * @param poolProperties pool properties overriding the stub database and a one second request timeout
+     * @return an initialized pool
+     */
+    public static CustomPooledDataSource startPool(Properties poolProperties) throws ReflectiveOperationException {
+        Properties properties = new Properties();
+        properties.setProperty("db.url", URL);
+        properties.setProperty("db.name", "test");
+        properties.setProperty("db.password", "test");
+        properties.setProperty("cp.requestTimeoutValue", "1");
+        properties.setProperty("cp.requestTimeoutUnit", "SECONDS");
+        properties.putAll(poolProperties);
+        PropertiesKeeper propertiesKeeper = new PropertiesKeeper() {
+            @Override
+            protected Properties readPropertiesFromFile(String resourceName) {
+                return properties;
+            }
+        };
+        propertiesKeeper.collectProperties();
+        CustomPooledDataSource pool = new CustomPooledDataSource(propertiesKeeper);
+        Method init = CustomPooledDataSource.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(pool);
+        return pool;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type.isPrimitive() && type != void.class) {
+            return 0;
+        }
+        return null;
+    }
+
+    /**
+     * A recording java.sql.Connection
+     */
+    public static final class StubConnection {
+
+        private final Connection proxy;
+        private final List<StubStatement> statements = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean closed;
+        private volatile boolean autoCommit = true;
+        private volatile int commits;
+        private volatile int rollbacks;
+
+        private StubConnection() {
+            proxy = (Connection) Proxy.newProxyInstance(StubJdbc.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (p, method, args) -> handle(method, args));
+        }
+
+        public Connection getProxy() {
+            return proxy;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public int getCommits() {
+            return commits;
+        }
+
+        public int getRollbacks() {
+            return rollbacks;
+        }
+
+        public List<StubStatement> getStatements() {
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+
+        private Object handle(Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+                case "close":
+                case "abort":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "setAutoCommit":
+                    if ((Boolean) args[0] && !autoCommit) {
+                        commits++;
+                    }
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "commit":
+                    commits++;
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        rollbacks++;
+                    }
+                    return null;
+                case "getTransactionIsolation":
+                    return Connection.TRANSACTION_REPEATABLE_READ;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    if (closed) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    StubStatement statement = new StubStatement(proxy,
+                            (args != null && args.length > 0) ? (String) args[0] : null);
+                    statements.add(statement);
+                    return statement.getProxy();
+                case "hashCode":
+                    return System.identityHashCode(this);
+                case "equals":
+                    return args[0] == proxy;
+                case "toString":
+                    return "StubConnection@" + Integer.toHexString(System.identityHashCode(this));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * A recording java.sql.CallableStatement (so it can be returned for any kind of statement)
+     */
+    public static final class StubStatement {
+
+        private final PreparedStatement proxy;
+        private final Connection connection;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new ConcurrentSkipListMap<>();
+        private volatile boolean closed;
+        private volatile int fetchSize;
+        private volatile int maxRows;
+        private volatile int queryTimeout;
+        private volatile int pendingBatch;
+        private volatile int executedBatchItems;
+        private volatile ResultSet resultSet;
+
+        private StubStatement(Connection connection, String sql) {
+            this.connection = connection;
+            this.sql = sql;
+            proxy = (PreparedStatement) Proxy.newProxyInstance(StubJdbc.class.getClassLoader(),
+                    new Class<?>[]{CallableStatement.class}, (p, method, args) -> handle(method, args));
+        }
+
+        public PreparedStatement getProxy() {
+            return proxy;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * @return a text of the prepared statement or null for a plain statement
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return values of the currently bound parameters in the order of their indexes
+         */
+        public List<Object> getParameters() {
+            return new ArrayList<>(parameters.values());
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public int getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        public int getPendingBatch() {
+            return pendingBatch;
+        }
+
+        public int getExecutedBatchItems() {
+            return executedBatchItems;
+        }
+
+        private Object handle(Method method, Object[] args) throws SQLException {
+            String name = method.getName();
+            if (closed && !name.equals("isClosed") && !name.equals("close")) {
+                throw new SQLException("Statement is closed");
+            }
+            switch (name) {
+                case "close":
+                    closed = true;
+                    if (resultSet != null) {
+                        resultSet.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return connection;
+                case "setFetchSize":
+                    fetchSize = (Integer) args[0];
+                    return null;
+                case "getFetchSize":
+                    return fetchSize;
+                case "setMaxRows":
+                    maxRows = (Integer) args[0];
+                    return null;
+                case "getMaxRows":
+                    return maxRows;
+                case "setQueryTimeout":
+                    queryTimeout = (Integer) args[0];
+                    return null;
+                case "getQueryTimeout":
+                    return queryTimeout;
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "addBatch":
+                    pendingBatch++;
+                    return null;
+                case "clearBatch":
+                    pendingBatch = 0;
+                    return null;
+                case "executeBatch":
+                    int[] counts = new int[pendingBatch];
+                    executedBatchItems += pendingBatch;
+                    pendingBatch = 0;
+                    return counts;
+                case "executeQuery":
+                    resultSet = new StubResultSet(proxy, columns, rows).getProxy();
+                    return resultSet;
+                case "getResultSet":
+                    return resultSet;
+                case "hashCode":
+                    return System.identityHashCode(this);
+                case "equals":
+                    return args[0] == proxy;
+                case "toString":
+                    return "StubStatement@" + Integer.toHexString(System.identityHashCode(this));
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], args[1]);
+                        return null;
+                    }
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    private static final class StubResultSet {
+
+        private final ResultSet proxy;
+        private final Statement statement;
+        private final String[] columnNames;
+        private final List<Object[]> data;
+        private int position = -1;
+        private boolean closed;
+
+        private StubResultSet(Statement statement, String[] columnNames, List<Object[]> data) {
+            this.statement = statement;
+            this.columnNames = columnNames;
+            this.data = data;
+            proxy = (ResultSet) Proxy.newProxyInstance(StubJdbc.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (p, method, args) -> handle(method, args));
+        }
+
+        private ResultSet getProxy() {
+            return proxy;
+        }
+
+        private Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (closed && !name.equals("isClosed") && !name.equals("close")) {
+                throw new SQLException("Result set is closed");
+            }
+            switch (name) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getStatement":
+                    return statement;
+                case "next":
+                    return ++position < data.size();
+                case "findColumn":
+                    for (int i = 0; i < columnNames.length; i++) {
+                        if (columnNames[i].equalsIgnoreCase((String) args[0])) {
+                            return i + 1;
+                        }
+                    }
+                    throw new SQLException("Column not found: " + args[0]);
+                case "wasNull":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(this);
+                case "equals":
+                    return args[0] == proxy;
+                default:
+                    if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+                        Object value = data.get(position)[(Integer) args[0] - 1];
+                        if (method.getReturnType() == long.class) {
+                            return ((Number) value).longValue();
+                        } else if (method.getReturnType() == int.class) {
+                            return ((Number) value).intValue();
+                        }
+                        return value;
+                    }
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    private static final class StubDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            return acceptsURL(url) ? newConnection().getProxy() : null;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.epam.upskillproject.model.dao;
+
+import com.epam.upskillproject.connect.customds.StubJdbc;
+import com.epam.upskillproject.model.dao.queryhandler.QueryExecutor;
+import com.epam.upskillproject.model.dao.queryhandler.constructors.AccountQueryConstructor;
+import com.epam.upskillproject.util.init.PropertiesKeeper;
+import org.junit.Before;
+import org.junit.Test;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class AccountLockOrderTest {
+
+    // Must match the chunk size of AccountDaoImpl
+    private static final int LOCK_CHUNK_SIZE = 500;
+    private static final String SQL_PROPERTIES = "sql.properties";
+
+    private AccountDao accountDao;
+    private StubJdbc.StubConnection driverConnection;
+
+    @Before
+    public void createDao() {
+        StubJdbc.reset();
+        // locked rows are not checked, the stub result sets are empty
+        StubJdbc.setRows(new String[]{"ID", "OWNER", "BALANCE", "statName", "REGDATE"}, Collections.emptyList());
+        PropertiesKeeper propertiesKeeper = new PropertiesKeeper() {
+            @Override
+            protected Properties readPropertiesFromFile(String resourceName) {
+                return SQL_PROPERTIES.equals(resourceName) ? super.readPropertiesFromFile(resourceName) :
+                        new Properties();
+            }
+        };
+        propertiesKeeper.collectProperties();
+        accountDao = new AccountDaoImpl(new AccountQueryConstructor(propertiesKeeper), new QueryExecutor(),
+                null, null);
+        driverConnection = StubJdbc.newConnection();
+    }
+
+    @Test
+    public void testRowsLockedInAscendingIdOrder() throws SQLException {
+        lock(Arrays.asList(7L, 3L, 7L, 12L, 1L));
+        List<StubJdbc.StubStatement> statements = driverConnection.getStatements();
+        assertEquals(1, statements.size());
+        StubJdbc.StubStatement statement = statements.get(0);
+        assertEquals(Arrays.asList(1L, 3L, 7L, 12L), statement.getParameters());
+        assertTrue(statement.getSql().contains("IN (?, ?, ?, ?) ORDER BY a.ID FOR UPDATE"));
+    }
+
+    @Test
+    public void testChunksLockedInAscendingIdOrder() throws SQLException {
+        int accountsNumber = LOCK_CHUNK_SIZE * 2 + 1;
+        List<Long> ids = LongStream.rangeClosed(1, accountsNumber).boxed().collect(Collectors.toList());
+        Collections.reverse(ids);
+        lock(ids);
+        List<StubJdbc.StubStatement> statements = driverConnection.getStatements();
+        assertEquals(3, statements.size());
+        List<Object> lockOrder = new ArrayList<>();
+        statements.forEach(statement -> lockOrder.addAll(statement.getParameters()));
+        assertEquals(LongStream.rangeClosed(1, accountsNumber).boxed().collect(Collectors.toList()), lockOrder);
+        assertEquals(LOCK_CHUNK_SIZE, statements.get(0).getParameters().size());
+        assertEquals(1, statements.get(2).getParameters().size());
+    }
+
+    @Test
+    public void testNothingLockedWithoutIds() throws SQLException {
+        lock(null);
+        lock(Collections.emptyList());
+        assertEquals(0, driverConnection.getStatements().size());
+    }
+
+    private void lock(List<Long> ids) throws SQLException {
+        Connection conn = driverConnection.getProxy();
+        assertEquals(0, accountDao.lockAccountsByIds(conn, ids).size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.model.dto.Money;
+import com.epam.upskillproject.model.dto.StatusType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+
+public class ParameterBinderTest {
+
+    private static final String QUERY = "SELECT ID FROM PERSON WHERE ID = ? AND NAME = ?";
+    private static final String ID_QUERY = "SELECT ID FROM ACCOUNT WHERE ID = ?";
+
+    private final QueryExecutor queryExecutor = new QueryExecutor();
+
+    @Before
+    public void clearPlans() {
+        QueryExecutor.binderPlans.clear();
+    }
+
+    @After
+    public void clearFilledPlans() {
+        // plans are static, so the limit reached here must not be left to other tests
+        QueryExecutor.binderPlans.clear();
+    }
+
+    @Test
+    public void testBinderResolvedByType() {
+        assertSame(ParameterBinder.STRING, ParameterBinder.of(String.class));
+        assertSame(ParameterBinder.INTEGER, ParameterBinder.of(Integer.class));
+        assertSame(ParameterBinder.LONG, ParameterBinder.of(Long.class));
+        assertSame(ParameterBinder.BIG_DECIMAL, ParameterBinder.of(BigDecimal.class));
+        assertSame(ParameterBinder.MONEY, ParameterBinder.of(Money.class));
+        assertSame(ParameterBinder.STATUS_TYPE, ParameterBinder.of(StatusType.class));
+        assertSame(ParameterBinder.TIMESTAMP, ParameterBinder.of(Timestamp.class));
+        assertSame(ParameterBinder.DATE, ParameterBinder.of(Date.class));
+        assertNull(ParameterBinder.of(Object.class));
+        assertNull(ParameterBinder.of(Double.class));
+    }
+
+    @Test
+    public void testPlanCachedOnFirstExecution() throws SQLException {
+        ParameterBinder[] binders = queryExecutor.resolveBinders(QUERY, new Object[]{1L, "Ihar"});
+        assertEquals(2, binders.length);
+        assertSame(ParameterBinder.LONG, binders[0]);
+        assertSame(ParameterBinder.STRING, binders[1]);
+        assertSame(binders, QueryExecutor.binderPlans.get(QUERY));
+        assertSame(binders, queryExecutor.resolveBinders(QUERY, new Object[]{2L, "Maria"}));
+    }
+
+    @Test
+    public void testMismatchedTypeResolvedWithoutChangingPlan() throws SQLException {
+        ParameterBinder[] plan = queryExecutor.resolveBinders(QUERY, new Object[]{1L, "Ihar"});
+        ParameterBinder[] binders = queryExecutor.resolveBinders(QUERY, new Object[]{1, "Ihar"});
+        assertNotSame(plan, binders);
+        assertSame(ParameterBinder.INTEGER, binders[0]);
+        assertSame(ParameterBinder.STRING, binders[1]);
+        assertSame(plan, QueryExecutor.binderPlans.get(QUERY));
+        assertSame(ParameterBinder.LONG, plan[0]);
+        // a plan of another length is not used
+        binders = queryExecutor.resolveBinders(QUERY, new Object[]{Money.ofCents(100L)});
+        assertEquals(1, binders.length);
+        assertSame(ParameterBinder.MONEY, binders[0]);
+        assertSame(plan, QueryExecutor.binderPlans.get(QUERY));
+    }
+
+    @Test
+    public void testInvalidParametersNotCached() throws SQLException {
+        assertNull(queryExecutor.resolveBinders(ID_QUERY, new Object[]{-1L}));
+        assertNull(queryExecutor.resolveBinders(ID_QUERY, new Object[]{" "}));
+        assertNull(queryExecutor.resolveBinders(ID_QUERY, new Object[]{null}));
+        assertNull(queryExecutor.resolveBinders(ID_QUERY, null));
+        assertFalse(QueryExecutor.binderPlans.containsKey(ID_QUERY));
+        // a cached plan still checks values
+        queryExecutor.resolveBinders(ID_QUERY, new Object[]{1L});
+        assertNull(queryExecutor.resolveBinders(ID_QUERY, new Object[]{-1L}));
+    }
+
+    @Test
+    public void testUnsupportedTypeRejected() throws SQLException {
+        assertUnsupported(ID_QUERY, new Object[]{1.5d});
+        assertFalse(QueryExecutor.binderPlans.containsKey(ID_QUERY));
+        queryExecutor.resolveBinders(ID_QUERY, new Object[]{1L});
+        assertUnsupported(ID_QUERY, new Object[]{new Object()});
+    }
+
+    @Test
+    public void testPlansCountLimited() throws SQLException {
+        for (int i = 0; i < QueryExecutor.MAX_BINDER_PLANS + 10; i++) {
+            queryExecutor.resolveBinders("SELECT ID FROM ACCOUNT WHERE ID IN (?, " + i + ")", new Object[]{1L});
+        }
+        assertEquals(QueryExecutor.MAX_BINDER_PLANS, QueryExecutor.binderPlans.size());
+        // queries beyond the limit are still bound, their plans are not kept
+        ParameterBinder[] binders = queryExecutor.resolveBinders(ID_QUERY, new Object[]{1L});
+        assertSame(ParameterBinder.LONG, binders[0]);
+        assertFalse(QueryExecutor.binderPlans.containsKey(ID_QUERY));
+    }
+
+    @Test
+    public void testQueryWithoutParameters() throws SQLException {
+        assertEquals(0, queryExecutor.resolveBinders(ID_QUERY, new Object[0]).length);
+    }
+
+    private void assertUnsupported(String rawQuery, Object[] params) {
+        try {
+            queryExecutor.resolveBinders(rawQuery, params);
+            fail("Parameter of an unsupported type must be rejected");
+        } catch (SQLException e) {
+            assertEquals("Illegal SQL parameter passed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.exception.TransactionException;
+import com.epam.upskillproject.exception.TransactionExceptionType;
+import com.epam.upskillproject.model.dto.Money;
+import org.junit.After;
+import org.junit.Test;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+
+public class PaymentGroupCommitterTest {
+
+    private static final long RESULT_TIMEOUT_MS = 200;
+
+    private PaymentGroupCommitter groupCommitter;
+
+    @After
+    public void stopCommitter() {
+        if (groupCommitter != null) {
+            groupCommitter.stop();
+        }
+    }
+
+    @Test
+    public void testPaymentCommitted() throws TransactionException {
+        start(batch -> batch.forEach(PaymentGroupCommitter.PaymentRequest::succeed));
+        groupCommitter.perform(Money.ofCents(100), 1L, 2L);
+    }
+
+    @Test
+    public void testStalledBatchFailsByTimeout() {
+        start(batch -> {
+            // a batch which never completes its requests
+        });
+        assertFailure(TransactionExceptionType.PERFORM);
+    }
+
+    @Test
+    public void testDeadWorkerRestarted() throws TransactionException {
+        AtomicInteger batches = new AtomicInteger();
+        start(batch -> {
+            if (batches.incrementAndGet() == 1) {
+                throw new AssertionError("worker killed");
+            }
+            batch.forEach(PaymentGroupCommitter.PaymentRequest::succeed);
+        });
+        // the first batch kills the worker, its caller gets no result
+        assertFailure(TransactionExceptionType.PERFORM);
+        groupCommitter.perform(Money.ofCents(100), 1L, 2L);
+        assertEquals(2, batches.get());
+    }
+
+    private void start(Consumer<List<PaymentGroupCommitter.PaymentRequest>> batchPerformer) {
+        groupCommitter = new PaymentGroupCommitter(batchPerformer, 4, 1, RESULT_TIMEOUT_MS);
+        groupCommitter.start();
+    }
+
+    private void assertFailure(TransactionExceptionType expectedType) {
+        try {
+            groupCommitter.perform(Money.ofCents(100), 1L, 2L);
+            fail("Payment must fail by the result timeout");
+        } catch (TransactionException e) {
+            assertEquals(expectedType, e.getType());
+        }
+    }
+}
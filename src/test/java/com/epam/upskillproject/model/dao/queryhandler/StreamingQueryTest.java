@@ -0,0 +1,80 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.connect.customds.CustomPooledDataSource;
+import com.epam.upskillproject.connect.customds.PoolMetrics;
+import com.epam.upskillproject.connect.customds.StubJdbc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class StreamingQueryTest {
+
+    private static final String QUERY = "SELECT ID, NAME FROM PERSON";
+
+    private final QueryExecutor queryExecutor = new QueryExecutor();
+    private final RowMapper<String> rowMapper = new RowMapper<>((rs, columns) ->
+            rs.getLong(columns[0]) + ":" + rs.getString(columns[1]), "ID", "NAME");
+    private CustomPooledDataSource pool;
+
+    @Before
+    public void startPool() throws ReflectiveOperationException {
+        StubJdbc.reset();
+        StubJdbc.setRows(new String[]{"ID", "NAME"}, Arrays.asList(
+                new Object[]{1L, "Ihar"}, new Object[]{2L, "Maria"}, new Object[]{3L, "Ivan"}));
+        Properties properties = new Properties();
+        properties.setProperty("cp.minConnectionsNumber", "1");
+        properties.setProperty("cp.maxConnectionsNumber", "2");
+        pool = StubJdbc.startPool(properties);
+    }
+
+    @After
+    public void shutdownPool() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testConsumedStreamReturnsConnection() throws Exception {
+        PoolMetrics metrics = pool.getPoolMetrics();
+        Connection conn = pool.getConnection();
+        ResultSet rs = queryExecutor.executeStreaming(conn, QUERY);
+        List<String> rows;
+        try (Stream<String> stream = rowMapper.stream(rs, conn)) {
+            assertEquals(1, metrics.getActiveConnections());
+            rows = stream.collect(Collectors.toList());
+        }
+        assertEquals(Arrays.asList("1:Ihar", "2:Maria", "3:Ivan"), rows);
+        assertEquals(0, metrics.getActiveConnections());
+        assertEquals(1, metrics.getIdleConnections());
+        assertTrue(rs.isClosed());
+        StubJdbc.StubStatement statement = StubJdbc.getConnections().get(0).getStatements().get(0);
+        assertTrue(statement.isClosed());
+        assertEquals(Integer.MIN_VALUE, statement.getFetchSize());
+    }
+
+    @Test
+    public void testPartiallyConsumedStreamReturnsConnection() throws Exception {
+        PoolMetrics metrics = pool.getPoolMetrics();
+        Connection conn = pool.getConnection();
+        Optional<String> first;
+        try (Stream<String> stream = rowMapper.stream(queryExecutor.executeStreaming(conn, QUERY), conn)) {
+            first = stream.findFirst();
+        }
+        assertEquals(Optional.of("1:Ihar"), first);
+        assertEquals(0, metrics.getActiveConnections());
+        // the returned connection is reused by the next borrower
+        Connection next = pool.getConnection();
+        assertEquals(1, metrics.getActiveConnections());
+        next.close();
+        assertEquals(1, StubJdbc.getConnections().size());
+    }
+}
@@ -0,0 +1,149 @@
+package com.epam.upskillproject.model.dao.queryhandler;
+
+import com.epam.upskillproject.exception.TransactionException;
+import com.epam.upskillproject.exception.TransactionExceptionType;
+import org.junit.Before;
+import org.junit.Test;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+public class TransactionRetryPolicyTest {
+
+    private static final String OPERATION = "Test transaction";
+    private static final int MYSQL_DEADLOCK_ERROR = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT_ERROR = 1205;
+    private static final int MYSQL_DUPLICATE_ENTRY_ERROR = 1062;
+    // Budget retries available before any unit of work earned a share
+    private static final int INITIAL_BUDGET_RETRIES = 100;
+
+    private TransactionRetryMetrics metrics;
+
+    @Before
+    public void createMetrics() {
+        metrics = new TransactionRetryMetrics();
+    }
+
+    @Test
+    public void testTransientSqlErrorsClassification() {
+        assertTrue(TransactionRetryPolicy.isTransient(new SQLTransactionRollbackException("rolled back")));
+        assertTrue(TransactionRetryPolicy.isTransient(new SQLException("deadlock", "40001", MYSQL_DEADLOCK_ERROR)));
+        assertTrue(TransactionRetryPolicy.isTransient(
+                new SQLException("lock wait timeout", "HY000", MYSQL_LOCK_WAIT_TIMEOUT_ERROR)));
+        assertTrue(TransactionRetryPolicy.isTransient(new SQLException("serialization failure", "40001")));
+        assertFalse(TransactionRetryPolicy.isTransient(
+                new SQLException("duplicate entry", "23000", MYSQL_DUPLICATE_ENTRY_ERROR)));
+        assertFalse(TransactionRetryPolicy.isTransient(new SQLException("no state")));
+    }
+
+    @Test
+    public void testTransientFailureRetried() {
+        TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy(metrics, 3, 1, 1, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        String result = retryPolicy.execute(OPERATION, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw conflict(MYSQL_LOCK_WAIT_TIMEOUT_ERROR);
+            }
+            return "done";
+        });
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, metrics.getLockWaitTimeoutCount());
+        assertEquals(1, metrics.getRetryCount());
+        assertEquals(1, metrics.getRecoveredCount());
+    }
+
+    @Test
+    public void testNotTransientFailureNotRetried() {
+        TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy(metrics, 3, 1, 1, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        assertFailure(retryPolicy, attempts, TransactionExceptionType.LOW_BALANCE);
+        assertEquals(1, attempts.get());
+        assertEquals(0, metrics.getRetryCount());
+        assertEquals(0, metrics.getDeadlockCount());
+    }
+
+    @Test
+    public void testAttemptsExhausted() {
+        TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy(metrics, 3, 1, 1, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        assertFailure(retryPolicy, attempts, TransactionExceptionType.CONFLICT);
+        assertEquals(3, attempts.get());
+        assertEquals(3, metrics.getDeadlockCount());
+        assertEquals(2, metrics.getRetryCount());
+        assertEquals(1, metrics.getExhaustedCount());
+        assertEquals(0, metrics.getBudgetRejectionCount());
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() {
+        TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy(metrics, Integer.MAX_VALUE, 1, 1, 50);
+        AtomicInteger attempts = new AtomicInteger();
+        // the budget is full at the start, so the share earned by the first unit of work is dropped
+        assertFailure(retryPolicy, attempts, TransactionExceptionType.CONFLICT);
+        assertEquals(INITIAL_BUDGET_RETRIES + 1, attempts.get());
+        assertEquals(INITIAL_BUDGET_RETRIES, metrics.getRetryCount());
+        assertEquals(1, metrics.getBudgetRejectionCount());
+        // the second unit of work earns half a retry, which is not enough
+        attempts.set(0);
+        assertFailure(retryPolicy, attempts, TransactionExceptionType.CONFLICT);
+        assertEquals(1, attempts.get());
+        // the third unit of work earns another half, which makes a whole retry
+        attempts.set(0);
+        assertFailure(retryPolicy, attempts, TransactionExceptionType.CONFLICT);
+        assertEquals(2, attempts.get());
+        assertEquals(3, metrics.getBudgetRejectionCount());
+        assertEquals(0, metrics.getExhaustedCount());
+    }
+
+    @Test
+    public void testBackoffJitterBounds() {
+        TransactionRetryPolicy retryPolicy = new TransactionRetryPolicy(metrics, 10, 10, 40, 10);
+        long[] caps = {10, 20, 40, 40};
+        for (int attempt = 1; attempt <= caps.length; attempt++) {
+            assertJitterBounds(retryPolicy, attempt, TimeUnit.MILLISECONDS.toNanos(caps[attempt - 1]));
+        }
+        // a shift beyond the long range is capped by the maximum delay
+        assertJitterBounds(retryPolicy, 64, TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    private void assertJitterBounds(TransactionRetryPolicy retryPolicy, int attempt, long capNanos) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long delayNanos = retryPolicy.backoff(attempt);
+            assertTrue(delayNanos >= 0 && delayNanos <= capNanos);
+            min = Math.min(min, delayNanos);
+            max = Math.max(max, delayNanos);
+        }
+        // full jitter spreads delays over the whole range from zero to the cap
+        assertTrue(min < capNanos / 4);
+        assertTrue(max > capNanos * 3 / 4);
+    }
+
+    private void assertFailure(TransactionRetryPolicy retryPolicy, AtomicInteger attempts,
+                               TransactionExceptionType type) {
+        try {
+            retryPolicy.execute(OPERATION, () -> {
+                attempts.incrementAndGet();
+                if (type == TransactionExceptionType.CONFLICT) {
+                    throw conflict(MYSQL_DEADLOCK_ERROR);
+                }
+                throw new TransactionException(type, 400);
+            });
+            fail("Unit of work must fail");
+        } catch (TransactionException e) {
+            assertEquals(type, e.getType());
+        }
+    }
+
+    private static TransactionException conflict(int errorCode) {
+        return new TransactionException(TransactionExceptionType.CONFLICT, 409,
+                new SQLException("concurrent transactions", "40001", errorCode));
+    }
+}
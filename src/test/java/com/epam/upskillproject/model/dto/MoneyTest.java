@@ -0,0 +1,112 @@
+package com.epam.upskillproject.model.dto;
+
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class MoneyTest {
+
+    @Test
+    public void testConversionFromDecimal() {
+        assertEquals(1050L, Money.of(new BigDecimal("10.50")).getCents());
+        assertEquals(1L, Money.of(new BigDecimal("0.005")).getCents());
+        assertEquals(0L, Money.of(new BigDecimal("0.004")).getCents());
+        assertEquals(-1L, Money.of(new BigDecimal("-0.005")).getCents());
+        assertEquals(12345L, Money.parse("123.45").getCents());
+        assertSame(Money.ZERO, Money.of(BigDecimal.ZERO));
+        assertEquals(new BigDecimal("123.45"), Money.ofCents(12345L).toBigDecimal());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testConversionOverflow() {
+        Money.of(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseOfIllegalString() {
+        Money.parse("ten");
+    }
+
+    @Test
+    public void testArithmetic() {
+        Money tenDollars = Money.ofCents(1000L);
+        Money fiveCents = Money.ofCents(5L);
+        assertEquals(Money.ofCents(1005L), tenDollars.add(fiveCents));
+        assertEquals(Money.ofCents(995L), tenDollars.subtract(fiveCents));
+        assertEquals(Money.ofCents(-5L), fiveCents.negate());
+        assertEquals(-1, fiveCents.negate().signum());
+        assertTrue(fiveCents.isPositive());
+        assertTrue(tenDollars.compareTo(fiveCents) > 0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testAddOverflow() {
+        Money.ofCents(Long.MAX_VALUE).add(Money.ofCents(1L));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testSubtractOverflow() {
+        Money.ofCents(Long.MIN_VALUE).subtract(Money.ofCents(1L));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testNegateOverflow() {
+        Money.ofCents(Long.MIN_VALUE).negate();
+    }
+
+    @Test
+    public void testMultiplyRoundsHalfUp() {
+        // 1% of 1.50 is 0.015, rounded up to 0.02
+        assertEquals(Money.ofCents(2L), Money.ofCents(150L).multiplyHalfUp(1L, 100L));
+        // 1% of 1.49 is 0.0149, rounded down to 0.01
+        assertEquals(Money.ofCents(1L), Money.ofCents(149L).multiplyHalfUp(1L, 100L));
+        // 1% of 0.49 is 0.0049, rounded down to zero
+        assertEquals(Money.ZERO, Money.ofCents(49L).multiplyHalfUp(1L, 100L));
+        // halves of negative amounts are rounded away from zero
+        assertEquals(Money.ofCents(-2L), Money.ofCents(-150L).multiplyHalfUp(1L, 100L));
+        assertEquals(Money.ofCents(-1L), Money.ofCents(-149L).multiplyHalfUp(1L, 100L));
+        assertEquals(Money.ofCents(375L), Money.ofCents(250L).multiplyHalfUp(3L, 2L));
+    }
+
+    @Test
+    public void testMultiplyMatchesBigDecimalRounding() {
+        BigDecimal rate = new BigDecimal("0.07");
+        for (long cents = -1000L; cents <= 1000L; cents++) {
+            BigDecimal expected = BigDecimal.valueOf(cents, Money.SCALE).multiply(rate)
+                    .setScale(Money.SCALE, RoundingMode.HALF_UP);
+            assertEquals(expected, Money.ofCents(cents).multiplyHalfUp(7L, 100L).toBigDecimal());
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testMultiplyOverflow() {
+        Money.ofCents(Long.MAX_VALUE / 2).multiplyHalfUp(3L, 100L);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testMultiplyByIllegalDenominator() {
+        Money.ofCents(100L).multiplyHalfUp(1L, 0L);
+    }
+
+    @Test
+    public void testFormatting() {
+        assertEquals("10.00", Money.ofCents(1000L).toString());
+        assertEquals("10.05", Money.ofCents(1005L).toString());
+        assertEquals("0.05", Money.ofCents(5L).toString());
+        assertEquals("0.00", Money.ZERO.toString());
+        assertEquals("-0.05", Money.ofCents(-5L).toString());
+        assertEquals("-0.50", Money.ofCents(-50L).toString());
+        assertEquals("-12.34", Money.ofCents(-1234L).toString());
+        assertEquals("92233720368547758.07", Money.ofCents(Long.MAX_VALUE).toString());
+        assertEquals("-92233720368547758.08", Money.ofCents(Long.MIN_VALUE).toString());
+    }
+
+    @Test
+    public void testEquality() {
+        assertEquals(Money.ofCents(100L), Money.parse("1.00"));
+        assertEquals(Money.ofCents(100L).hashCode(), Money.parse("1").hashCode());
+    }
+}